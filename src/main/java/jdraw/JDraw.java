@@ -5,9 +5,24 @@
 
 package jdraw;
 
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import javax.swing.SwingUtilities;
+
 import jdraw.framework.DrawContext;
+import jdraw.net.DrawingClient;
+import jdraw.std.EdtWatchdog;
+import jdraw.std.InputRecorder;
+import jdraw.std.StdContext;
+import jdraw.std.StdDrawView;
 
 import org.apache.log4j.BasicConfigurator;
+import org.apache.log4j.Logger;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 
 /**
@@ -33,7 +48,15 @@ import org.springframework.context.support.ClassPathXmlApplicationContext;
  * where `config` is an optional XML file for Spring framework configuration.
  * 
  * Logging is set up using log4j, configured via a log4j.properties file found
- * in the classpath.
+ * in the classpath. Stalls of the event dispatch thread are detected by an
+ * {@link EdtWatchdog} and logged with the sampled stack frames; the threshold
+ * can be set with the system property <code>jdraw.stallThreshold</code> (in
+ * milliseconds, 0 disables the watchdog). If the system property
+ * <code>jdraw.recordInput</code> names a file, the mouse and key events of the
+ * session are recorded to that file and can be replayed with
+ * {@link JDrawReplay}. If the system property <code>jdraw.share</code> is set
+ * to the port of a {@link JDrawServer} on the same machine, the drawing is
+ * shared with all other editors connected to that server.
  * 
  * @see jdraw.framework.DrawView
  * @see jdraw.framework.DrawContext
@@ -52,6 +75,18 @@ public final class JDraw {
      */
     private static String springContext = DEFAULT_CONTEXT;
 
+    /**
+     * System property with the time in milliseconds after which the event dispatch
+     * thread is considered stalled, 0 disables the detection of stalls.
+     */
+    private static final String STALL_THRESHOLD_PROPERTY = "jdraw.stallThreshold";
+
+    /** System property with the file to which the input events are recorded. */
+    private static final String RECORD_INPUT_PROPERTY = "jdraw.recordInput";
+
+    /** System property with the port of the server sharing the drawing. */
+    private static final String SHARE_PROPERTY = "jdraw.share";
+
     /** The Spring application context, managing the beans for the application. */
     private static ClassPathXmlApplicationContext ctx;
 
@@ -71,11 +106,57 @@ public final class JDraw {
         // Configure log4j using a properties file found on the classpath
         BasicConfigurator.configure();
 
+        // Watch for stalls of the event dispatch thread, unless disabled with
+        // -Djdraw.stallThreshold=0
+        long threshold = Long.getLong(STALL_THRESHOLD_PROPERTY, EdtWatchdog.DEFAULT_THRESHOLD);
+        if (threshold > 0) {
+            EdtWatchdog watchdog = new EdtWatchdog(threshold, EdtWatchdog.DEFAULT_SAMPLE_INTERVAL);
+            watchdog.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(watchdog::stop));
+        }
+
         if (args.length > 0) {
             springContext = args[0];
         }
 
         DrawContext drawContext = getContext();
+
+        // Record the input of the session for a later replay with JDrawReplay
+        String recording = System.getProperty(RECORD_INPUT_PROPERTY);
+        if (recording != null && drawContext.getView() instanceof StdDrawView) {
+            try {
+                InputRecorder recorder = new InputRecorder(
+                        Files.newBufferedWriter(Paths.get(recording), StandardCharsets.UTF_8));
+                ((StdDrawView) drawContext.getView()).setInputRecorder(recorder);
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try {
+                        recorder.close();
+                    } catch (IOException e) {
+                        Logger.getLogger(JDraw.class).error("input recording could not be written", e);
+                    }
+                }));
+            } catch (IOException e) {
+                Logger.getLogger(JDraw.class).error("input recording could not be started", e);
+            }
+        }
+
+        // Share the drawing with the other editors connected to a JDrawServer
+        Integer port = Integer.getInteger(SHARE_PROPERTY);
+        if (port != null) {
+            DrawingClient client = new DrawingClient(drawContext.getModel(), SwingUtilities::invokeLater);
+            try {
+                client.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+                Runtime.getRuntime().addShutdownHook(new Thread(client::close));
+                // groups are not shared
+                if (drawContext instanceof StdContext) {
+                    ((StdContext) drawContext).setGroupingEnabled(false);
+                }
+                drawContext.showStatusText("Drawing shared, grouping is disabled");
+            } catch (IOException e) {
+                Logger.getLogger(JDraw.class).error("drawing could not be shared", e);
+            }
+        }
+
         drawContext.showView();
     }
 
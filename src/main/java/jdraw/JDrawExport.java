@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import jdraw.export.HeadlessRenderer;
+import jdraw.export.SvgExporter;
+import jdraw.framework.DrawModel;
+import jdraw.jfr.FileIOEvent;
+
+import org.apache.log4j.BasicConfigurator;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+/**
+ * The JDrawExport class is the command line entry point for exporting drawings
+ * without a graphical user interface. It obtains the draw model from the Spring
+ * configuration (the bean named <code>drawModel</code>) and writes it as a PNG
+ * image using a {@link HeadlessRenderer}, or as an SVG document using a
+ * {@link SvgExporter} if the name of the output file ends with
+ * <code>.svg</code>. No window is opened and AWT is run in headless mode, so
+ * the export also works on machines without a display.
+ *
+ * To run the export, use the following command:
+ *
+ * <PRE>
+ * java jdraw.JDrawExport [-config file] [-scale s] [-band rows] [-transparent] output.(png|svg)
+ * </PRE>
+ *
+ * where `config` is an optional XML file for Spring framework configuration,
+ * `s` the number of pixels per drawing unit and `rows` the number of rows
+ * rendered at once.
+ *
+ * @see jdraw.JDraw
+ * @see jdraw.export.HeadlessRenderer
+ * @see jdraw.export.SvgExporter
+ */
+public final class JDrawExport {
+
+    /** Default XML configuration file for Spring. */
+    private static final String DEFAULT_CONTEXT = "jdraw-context.xml";
+
+    private static final String USAGE =
+            "usage: java jdraw.JDrawExport [-config file] [-scale s] [-band rows] [-transparent] output.(png|svg)";
+
+    /**
+     * Exports the configured drawing as a PNG image or an SVG document.
+     *
+     * @param args the command line arguments, see the class comment
+     * @throws IOException if the image cannot be written
+     */
+    public static void main(final String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        BasicConfigurator.configure();
+
+        String config = DEFAULT_CONTEXT;
+        double scale = 1.0;
+        int band = HeadlessRenderer.DEFAULT_BAND_HEIGHT;
+        boolean transparent = false;
+        String output = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                case "-config":
+                    config = args[++i];
+                    break;
+                case "-scale":
+                    scale = Double.parseDouble(args[++i]);
+                    break;
+                case "-band":
+                    band = Integer.parseInt(args[++i]);
+                    break;
+                case "-transparent":
+                    transparent = true;
+                    break;
+                default:
+                    if (output != null || args[i].startsWith("-")) {
+                        throw new IllegalArgumentException(args[i]);
+                    }
+                    output = args[i];
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            output = null;
+        }
+        if (output == null) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        try (ClassPathXmlApplicationContext ctx = new ClassPathXmlApplicationContext(config)) {
+            DrawModel model = ctx.getBean("drawModel", DrawModel.class);
+            HeadlessRenderer renderer = new HeadlessRenderer(model);
+            renderer.setScale(scale);
+            if (transparent) {
+                renderer.setBackground(null);
+            }
+            boolean svg = output.endsWith(".svg");
+            FileIOEvent event = new FileIOEvent(FileIOEvent.WRITE, output, svg ? "svg" : "png");
+            boolean succeeded = false;
+            try {
+                if (svg) {
+                    try (Writer out = Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8)) {
+                        new SvgExporter(out).write(model, renderer.getDrawingArea());
+                    }
+                } else {
+                    try (OutputStream out = new BufferedOutputStream(new FileOutputStream(output))) {
+                        renderer.writePng(out, renderer.getDrawingArea(), band);
+                    }
+                }
+                succeeded = true;
+            } finally {
+                event.end((int) model.getFigures().count(), new File(output).length(), succeeded);
+            }
+        }
+    }
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private JDrawExport() {
+        // Prevent instantiation.
+    }
+}
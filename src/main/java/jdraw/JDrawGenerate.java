@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+import jdraw.export.HeadlessRenderer;
+import jdraw.export.SvgExporter;
+import jdraw.figures.DrawingGenerator;
+import jdraw.framework.DrawContext;
+import jdraw.framework.DrawModel;
+import jdraw.std.StdDrawModel;
+
+import org.apache.log4j.BasicConfigurator;
+
+/**
+ * The JDrawGenerate class is the command line entry point for generating large
+ * drawings, e.g. to test the editor under load. The drawing is produced by a
+ * {@link DrawingGenerator} and either opened in the editor or, if an output file
+ * is given, exported as a PNG image or an SVG document without opening a window.
+ * The same seed always produces the same drawing.
+ *
+ * To generate a drawing, use the following command:
+ *
+ * <PRE>
+ * java jdraw.JDrawGenerate [-seed s] [-distribution uniform|clustered|grid] [-groups f] [-depth k] n [output.(png|svg)]
+ * </PRE>
+ *
+ * where `n` is the number of rectangles, ovals and lines, `f` the fraction of
+ * them combined into groups and `k` the nesting depth of the groups.
+ *
+ * @see jdraw.figures.DrawingGenerator
+ */
+public final class JDrawGenerate {
+
+    private static final String USAGE = "usage: java jdraw.JDrawGenerate [-seed s] "
+            + "[-distribution uniform|clustered|grid] [-groups f] [-depth k] n [output.(png|svg)]";
+
+    /**
+     * Generates a drawing and opens or exports it.
+     *
+     * @param args the command line arguments, see the class comment
+     * @throws IOException if the output file cannot be written
+     */
+    public static void main(final String[] args) throws IOException {
+        BasicConfigurator.configure();
+
+        long seed = 0;
+        DrawingGenerator.Distribution distribution = DrawingGenerator.Distribution.UNIFORM;
+        double groups = 0;
+        int depth = 1;
+        int n = -1;
+        String output = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                case "-seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "-distribution":
+                    distribution = DrawingGenerator.Distribution.valueOf(args[++i].toUpperCase(Locale.ROOT));
+                    break;
+                case "-groups":
+                    groups = Double.parseDouble(args[++i]);
+                    break;
+                case "-depth":
+                    depth = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    if (args[i].startsWith("-") || output != null) {
+                        throw new IllegalArgumentException(args[i]);
+                    } else if (n < 0) {
+                        n = Integer.parseInt(args[i]);
+                    } else {
+                        output = args[i];
+                    }
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            n = -1;
+        }
+        DrawingGenerator generator = new DrawingGenerator(seed);
+        generator.setDistribution(distribution);
+        try {
+            generator.setGroups(groups, depth);
+        } catch (IllegalArgumentException e) {
+            n = -1;
+        }
+        if (n < 0) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        if (output == null) {
+            DrawContext context = JDraw.getContext();
+            generator.populate(context.getModel(), n);
+            context.showView();
+            return;
+        }
+
+        System.setProperty("java.awt.headless", "true");
+        DrawModel model = new StdDrawModel();
+        generator.populate(model, n);
+        HeadlessRenderer renderer = new HeadlessRenderer(model);
+        if (output.endsWith(".svg")) {
+            try (Writer out = Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8)) {
+                new SvgExporter(out).write(model, renderer.getDrawingArea());
+            }
+        } else {
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(output))) {
+                renderer.writePng(out, renderer.getDrawingArea(), HeadlessRenderer.DEFAULT_BAND_HEIGHT);
+            }
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private JDrawGenerate() {
+        // Prevent instantiation.
+    }
+}
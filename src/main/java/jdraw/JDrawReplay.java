@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+import jdraw.std.InputRecorder;
+import jdraw.std.InputReplayer;
+import jdraw.std.StdDrawModel;
+
+import org.apache.log4j.BasicConfigurator;
+
+/**
+ * The JDrawReplay class is the command line entry point for replaying an input
+ * recording without a graphical user interface. Sessions are recorded by
+ * starting the editor with <code>-Djdraw.recordInput=file</code>. Every run
+ * replays the session against a new, empty model and prints the total time,
+ * the latency percentiles of the events and the allocated bytes. The first runs
+ * serve as a warm-up of the JIT compiler.
+ *
+ * To replay a recording, use the following command:
+ *
+ * <PRE>
+ * java jdraw.JDrawReplay [-runs n] [-paint] recording
+ * </PRE>
+ *
+ * where `n` is the number of runs (default 5) and `-paint` paints the view
+ * after every event.
+ *
+ * @see jdraw.std.InputReplayer
+ */
+public final class JDrawReplay {
+
+    /** Default number of runs. */
+    private static final int DEFAULT_RUNS = 5;
+
+    private static final String USAGE = "usage: java jdraw.JDrawReplay [-runs n] [-paint] recording";
+
+    /**
+     * Replays a recorded session.
+     *
+     * @param args the command line arguments, see the class comment
+     * @throws IOException if the recording cannot be read
+     */
+    public static void main(final String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        BasicConfigurator.configure();
+
+        int runs = DEFAULT_RUNS;
+        boolean paint = false;
+        String recording = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                case "-runs":
+                    runs = Integer.parseInt(args[++i]);
+                    break;
+                case "-paint":
+                    paint = true;
+                    break;
+                default:
+                    if (recording != null || args[i].startsWith("-")) {
+                        throw new IllegalArgumentException(args[i]);
+                    }
+                    recording = args[i];
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            recording = null;
+        }
+        if (recording == null) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        List<InputRecorder.Entry> entries;
+        try (Reader in = Files.newBufferedReader(Paths.get(recording), StandardCharsets.UTF_8)) {
+            entries = InputRecorder.read(in);
+        }
+        for (int run = 1; run <= runs; run++) {
+            InputReplayer replayer = new InputReplayer(new StdDrawModel());
+            replayer.setPaint(paint);
+            System.out.println("run " + run + ": " + replayer.replay(entries));
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private JDrawReplay() {
+        // Prevent instantiation.
+    }
+}
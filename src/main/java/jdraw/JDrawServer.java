@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw;
+
+import java.io.IOException;
+
+import jdraw.net.DrawingServer;
+import jdraw.std.StdDrawModel;
+
+import org.apache.log4j.BasicConfigurator;
+
+/**
+ * The JDrawServer class is the command line entry point for a server holding a
+ * drawing shared by several editors on the same machine. The server runs until
+ * the process is terminated.
+ *
+ * To start the server, use the following command:
+ *
+ * <PRE>
+ * java jdraw.JDrawServer [port]
+ * </PRE>
+ *
+ * and start the editors with <code>-Djdraw.share=port</code>.
+ *
+ * @see jdraw.net.DrawingServer
+ * @see jdraw.net.DrawingClient
+ */
+public final class JDrawServer {
+
+    /**
+     * Starts the server.
+     *
+     * @param args the command line arguments, see the class comment
+     * @throws IOException if the port cannot be opened
+     * @throws InterruptedException if the main thread is interrupted
+     */
+    public static void main(final String[] args) throws IOException, InterruptedException {
+        BasicConfigurator.configure();
+        int port = DrawingServer.DEFAULT_PORT;
+        if (args.length > 0) {
+            try {
+                port = Integer.parseInt(args[0]);
+            } catch (NumberFormatException e) {
+                System.err.println("usage: java jdraw.JDrawServer [port]");
+                System.exit(2);
+            }
+        }
+        DrawingServer server = new DrawingServer(new StdDrawModel());
+        server.start(port);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        Thread.currentThread().join();
+    }
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private JDrawServer() {
+        // Prevent instantiation.
+    }
+}
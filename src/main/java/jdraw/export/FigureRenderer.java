@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.export;
+
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+
+import jdraw.framework.Figure;
+
+/**
+ * The FigureRenderer draws figures into a rectangular region of pixels of a
+ * scaled drawing, e.g. into a tile of a view, into a band of an exported image
+ * or into a patch of a thumbnail. Figures which do not touch the region are
+ * culled, and when the drawing is zoomed out, figures which would be smaller
+ * than a pixel threshold are drawn as a single pixel in the color returned by
+ * {@link Figure#getPreviewColor()}, or are skipped entirely (level of detail).
+ *
+ * A renderer is meant to be used for a single region by a single thread. The
+ * figures passed to it have to be drawn in their z-order.
+ *
+ * @see HeadlessRenderer
+ */
+public final class FigureRenderer {
+
+    /**
+     * Number of pixels the bounds of a figure are grown by. The outline of a
+     * figure is drawn one pixel right and below its bounds, so the bounds alone do
+     * not cover all pixels touched by a figure.
+     */
+    public static final int STROKE_MARGIN = 2;
+
+    /** Default size in pixels below which figures are drawn as a single pixel. */
+    public static final double DEFAULT_DETAIL_THRESHOLD = 1.0;
+
+    /** Number of pixels per drawing unit. */
+    private final double scale;
+
+    /** The drawing point which is mapped to the pixel (0, 0) of the scaled drawing. */
+    private final Point origin;
+
+    /**
+     * The area of the drawing which is visible in the region, grown such that
+     * figures whose outline reaches into the region are included.
+     */
+    private final Rectangle visible;
+
+    /** Graphics context of the region, transformed to drawing coordinates. */
+    private final Graphics2D graphics;
+
+    /** Graphics context of the region in pixels of the scaled drawing. */
+    private final Graphics2D pixels;
+
+    /** Size in drawing units below which figures are simplified. */
+    private double minSize;
+
+    /** Whether simplified figures are skipped instead of drawn as a pixel. */
+    private boolean skipTiny;
+
+    /** Number of figures drawn, simplified and culled so far. */
+    private int drawn;
+    private int simplified;
+    private int culled;
+
+    /**
+     * Creates a renderer for the given region of the scaled drawing.
+     *
+     * @param target the graphics context to draw on; its origin is the top left
+     *               pixel of the region
+     * @param region the pixels to render, relative to the origin of the scaled
+     *               drawing
+     * @param origin the drawing point which is mapped to the origin of the scaled
+     *               drawing
+     * @param scale  the number of pixels per drawing unit
+     */
+    public FigureRenderer(Graphics2D target, Rectangle region, Point origin, double scale) {
+        if (!(scale > 0)) {
+            throw new IllegalArgumentException("scale must be positive");
+        }
+        this.scale = scale;
+        this.origin = new Point(origin);
+        int m = STROKE_MARGIN;
+        int x0 = (int) Math.floor((region.x - m) / scale);
+        int y0 = (int) Math.floor((region.y - m) / scale);
+        int x1 = (int) Math.ceil((region.x + region.width + m) / scale);
+        int y1 = (int) Math.ceil((region.y + region.height + m) / scale);
+        this.visible = new Rectangle(origin.x + x0, origin.y + y0, x1 - x0, y1 - y0);
+
+        this.pixels = (Graphics2D) target.create();
+        pixels.translate(-region.x, -region.y);
+        this.graphics = (Graphics2D) pixels.create();
+        graphics.scale(scale, scale);
+        graphics.translate(-origin.x, -origin.y);
+        setLevelOfDetail(DEFAULT_DETAIL_THRESHOLD, false);
+    }
+
+    /**
+     * Returns the bounds of the given figure, grown by the stroke margin.
+     *
+     * @param f the figure
+     * @return the area of all pixels which may be touched when the figure is
+     *         drawn, or <code>null</code> if the figure has no bounds
+     */
+    public static Rectangle paddedBounds(Figure f) {
+        Rectangle r = f.getBounds();
+        if (r != null) {
+            r.grow(STROKE_MARGIN, STROKE_MARGIN);
+        }
+        return r;
+    }
+
+    /**
+     * Sets the level of detail used when the drawing is zoomed out. Figures whose
+     * width and height in pixels are below the given threshold are drawn as a
+     * single pixel, or not at all if <code>skip</code> is set. At scales of 1 and
+     * above, all figures are drawn.
+     *
+     * @param threshold the size in pixels below which figures are simplified
+     * @param skip      <code>true</code> if simplified figures are not drawn at all
+     */
+    public void setLevelOfDetail(double threshold, boolean skip) {
+        this.minSize = scale < 1.0 ? threshold / scale : 0;
+        this.skipTiny = skip;
+    }
+
+    /**
+     * Draws the given figure if it touches the region.
+     *
+     * @param f the figure to draw
+     */
+    public void draw(Figure f) {
+        draw(f, paddedBounds(f));
+    }
+
+    /**
+     * Draws the given figure if it touches the region. The bounds are passed by
+     * callers which draw the same figure into several regions. A figure without
+     * bounds is always drawn.
+     *
+     * @param f the figure to draw
+     * @param b the padded bounds of the figure, or <code>null</code>
+     * @see #paddedBounds(Figure)
+     */
+    public void draw(Figure f, Rectangle b) {
+        if (b == null) {
+            drawn++;
+            f.draw(graphics);
+            return;
+        }
+        if (!visible.intersects(b)) {
+            culled++;
+            return;
+        }
+        int m = 2 * STROKE_MARGIN;
+        if (b.width - m < minSize && b.height - m < minSize) {
+            simplified++;
+            if (!skipTiny) {
+                pixels.setColor(f.getPreviewColor());
+                pixels.fillRect((int) ((b.getCenterX() - origin.x) * scale),
+                        (int) ((b.getCenterY() - origin.y) * scale), 1, 1);
+            }
+        } else {
+            drawn++;
+            f.draw(graphics);
+        }
+    }
+
+    /**
+     * Returns the number of figures which have been drawn by themselves.
+     *
+     * @return the number of drawn figures
+     */
+    public int getDrawn() {
+        return drawn;
+    }
+
+    /**
+     * Returns the number of figures which were too small to be drawn by
+     * themselves, whether they were drawn as a pixel or skipped.
+     *
+     * @return the number of simplified figures
+     */
+    public int getSimplified() {
+        return simplified;
+    }
+
+    /**
+     * Returns the number of figures which did not touch the region.
+     *
+     * @return the number of culled figures
+     */
+    public int getCulled() {
+        return culled;
+    }
+
+    /** Releases the graphics contexts created by this renderer. */
+    public void dispose() {
+        graphics.dispose();
+        pixels.dispose();
+    }
+}
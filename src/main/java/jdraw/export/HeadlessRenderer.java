@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.export;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Objects;
+
+import jdraw.framework.DrawModel;
+import jdraw.framework.Figure;
+
+/**
+ * The HeadlessRenderer renders the figures of a draw model into images. It
+ * does not need a view, a context or a display and can therefore be used on
+ * servers and in CI builds (e.g. with <code>-Djava.awt.headless=true</code>).
+ *
+ * A drawing can either be rendered into a single {@link BufferedImage} or be
+ * written as a PNG image. In the latter case the image is rendered in bands of
+ * rows which are compressed and written as soon as they are complete, so the
+ * memory needed is independent of the height of the image. This allows images
+ * to be exported which would not fit into memory as a whole.
+ *
+ * Figures are drawn in the order of the model, i.e. in their z-order. At scales
+ * below 1, figures which would be smaller than a pixel are drawn as a single
+ * pixel in the center of their bounds, see {@link FigureRenderer}.
+ *
+ * @see jdraw.JDrawExport
+ */
+public final class HeadlessRenderer {
+
+    /** Default margin around the figures of the drawing, in drawing units. */
+    public static final int DEFAULT_MARGIN = 10;
+
+    /** Default number of rows rendered at once when a PNG image is written. */
+    public static final int DEFAULT_BAND_HEIGHT = 256;
+
+    /** The model whose figures are rendered. */
+    private final DrawModel model;
+
+    /** Number of pixels per drawing unit. */
+    private double scale = 1.0;
+
+    /** Margin around the figures of the drawing, in drawing units. */
+    private int margin = DEFAULT_MARGIN;
+
+    /** The background color, or null for a transparent background. */
+    private Color background = Color.WHITE;
+
+    /**
+     * Creates a renderer for the given model.
+     *
+     * @param model the model to be rendered
+     */
+    public HeadlessRenderer(DrawModel model) {
+        if (model == null) {
+            throw new IllegalArgumentException("model must not be null");
+        }
+        this.model = model;
+    }
+
+    /**
+     * Sets the number of pixels per drawing unit.
+     *
+     * @param scale the scale, must be positive
+     */
+    public void setScale(double scale) {
+        if (!(scale > 0)) {
+            throw new IllegalArgumentException("scale must be positive");
+        }
+        this.scale = scale;
+    }
+
+    /**
+     * Returns the number of pixels per drawing unit.
+     *
+     * @return the scale
+     */
+    public double getScale() {
+        return scale;
+    }
+
+    /**
+     * Sets the margin which is left around the figures by
+     * {@link #getDrawingArea()}.
+     *
+     * @param margin the margin in drawing units
+     */
+    public void setMargin(int margin) {
+        if (margin < 0) {
+            throw new IllegalArgumentException("margin must not be negative");
+        }
+        this.margin = margin;
+    }
+
+    /**
+     * Returns the margin which is left around the figures.
+     *
+     * @return the margin in drawing units
+     */
+    public int getMargin() {
+        return margin;
+    }
+
+    /**
+     * Sets the background color. If the background is <code>null</code>, images
+     * are rendered with a transparent background and an alpha channel.
+     *
+     * @param background the background color, or <code>null</code>
+     */
+    public void setBackground(Color background) {
+        this.background = background;
+    }
+
+    /**
+     * Returns the background color.
+     *
+     * @return the background color, or <code>null</code> if transparent
+     */
+    public Color getBackground() {
+        return background;
+    }
+
+    /**
+     * Returns the area of the drawing which is covered by figures, grown by the
+     * margin. If the model is empty, an area of the size of the margin at the
+     * origin is returned.
+     *
+     * @return the area to be rendered, in drawing coordinates
+     */
+    public Rectangle getDrawingArea() {
+        Rectangle area = model.getFigures()
+                .map(FigureRenderer::paddedBounds)
+                .filter(Objects::nonNull)
+                .reduce(Rectangle::union)
+                .orElseGet(() -> new Rectangle(0, 0, 1, 1));
+        area.grow(margin, margin);
+        return area;
+    }
+
+    /**
+     * Renders the whole drawing into an image.
+     *
+     * @return the rendered image
+     * @see #getDrawingArea()
+     */
+    public BufferedImage render() {
+        return render(getDrawingArea());
+    }
+
+    /**
+     * Renders the given area of the drawing into an image. The image is
+     * <code>scale</code> times as large as the area.
+     *
+     * @param area the area of the drawing, in drawing coordinates
+     * @return the rendered image
+     */
+    public BufferedImage render(Rectangle area) {
+        Scene scene = new Scene(area);
+        BufferedImage image = scene.createImage(scene.height);
+        scene.paint(image, 0, scene.height);
+        return image;
+    }
+
+    /**
+     * Renders the whole drawing and writes it as a PNG image to the given stream.
+     *
+     * @param out the stream to write to; it is not closed
+     * @throws IOException if writing to the stream fails
+     */
+    public void writePng(OutputStream out) throws IOException {
+        writePng(out, getDrawingArea(), DEFAULT_BAND_HEIGHT);
+    }
+
+    /**
+     * Renders the given area of the drawing and writes it as a PNG image to the
+     * given stream. The image is rendered in bands of <code>bandHeight</code>
+     * rows, each band is written before the next one is rendered.
+     *
+     * @param out        the stream to write to; it is not closed
+     * @param area       the area of the drawing, in drawing coordinates
+     * @param bandHeight the number of rows rendered at once
+     * @throws IOException if writing to the stream fails
+     */
+    public void writePng(OutputStream out, Rectangle area, int bandHeight) throws IOException {
+        if (bandHeight <= 0) {
+            throw new IllegalArgumentException("band height must be positive");
+        }
+        Scene scene = new Scene(area);
+        int rows = Math.min(bandHeight, scene.height);
+        BufferedImage band = scene.createImage(rows);
+        try (PngWriter png = new PngWriter(out, scene.width, scene.height, background == null)) {
+            for (int y = 0; y < scene.height; y += rows) {
+                int count = Math.min(rows, scene.height - y);
+                scene.paint(band, y, count);
+                png.writeRows(band, count);
+            }
+        }
+    }
+
+    /**
+     * The figures of the model and their bounds, taken once per rendering such
+     * that each band only has to test the bounds instead of querying the figures.
+     */
+    private final class Scene {
+        private final Rectangle area;
+        private final int width;
+        private final int height;
+        private final Figure[] figures;
+        private final Rectangle[] bounds;
+
+        Scene(Rectangle area) {
+            if (area.isEmpty()) {
+                throw new IllegalArgumentException("area must not be empty");
+            }
+            this.area = new Rectangle(area);
+            this.width = Math.max(1, (int) Math.ceil(area.width * scale));
+            this.height = Math.max(1, (int) Math.ceil(area.height * scale));
+            this.figures = model.getFigures().toArray(Figure[]::new);
+            this.bounds = new Rectangle[figures.length];
+            for (int i = 0; i < figures.length; i++) {
+                bounds[i] = FigureRenderer.paddedBounds(figures[i]);
+            }
+        }
+
+        BufferedImage createImage(int rows) {
+            int type = background == null ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+            return new BufferedImage(width, rows, type);
+        }
+
+        /**
+         * Renders the given rows of the image into the given band.
+         *
+         * @param band  the image receiving the rows, starting at its top
+         * @param y     the first row of the image to render
+         * @param count the number of rows to render
+         */
+        void paint(BufferedImage band, int y, int count) {
+            Graphics2D pixels = band.createGraphics();
+            try {
+                pixels.setBackground(background != null ? background : new Color(0, 0, 0, 0));
+                pixels.clearRect(0, 0, width, count);
+                pixels.clipRect(0, 0, width, count);
+
+                FigureRenderer renderer = new FigureRenderer(pixels, new Rectangle(0, y, width, count),
+                        area.getLocation(), scale);
+                for (int i = 0; i < figures.length; i++) {
+                    renderer.draw(figures[i], bounds[i]);
+                }
+                renderer.dispose();
+            } finally {
+                pixels.dispose();
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.export;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * The PngWriter writes a PNG image row by row. In contrast to ImageIO, the
+ * whole image never has to be present in memory: the rows are passed in bands
+ * (e.g. images of 256 rows) which are compressed and written immediately.
+ *
+ * The image is written as 8 bit RGB or RGBA without interlacing.
+ *
+ * @see HeadlessRenderer
+ */
+final class PngWriter implements Closeable {
+
+    /** The PNG file signature. */
+    private static final byte[] SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+
+    /** Maximal size of the data of a single IDAT chunk. */
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final DataOutputStream out;
+    private final int width;
+    private final int height;
+    private final boolean alpha;
+
+    /** Compresses the image data into IDAT chunks. */
+    private final DeflaterOutputStream idat;
+    private final Deflater deflater = new Deflater();
+
+    /** Buffer for a single row of ARGB pixels. */
+    private final int[] pixels;
+    /** Buffer for a single encoded row, including the filter type byte. */
+    private final byte[] row;
+
+    /** Number of rows written so far. */
+    private int rows;
+
+    /**
+     * Starts writing a PNG image of the given size to the given stream.
+     *
+     * @param out    the stream to write to; it is not closed by this writer
+     * @param width  the width of the image in pixels
+     * @param height the height of the image in pixels
+     * @param alpha  whether an alpha channel is written
+     * @throws IOException if writing to the stream fails
+     */
+    PngWriter(OutputStream out, int width, int height, boolean alpha) throws IOException {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("image must not be empty");
+        }
+        this.out = new DataOutputStream(out);
+        this.width = width;
+        this.height = height;
+        this.alpha = alpha;
+        this.pixels = new int[width];
+        this.row = new byte[1 + width * (alpha ? 4 : 3)];
+
+        this.out.write(SIGNATURE);
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream h = new DataOutputStream(header);
+        h.writeInt(width);
+        h.writeInt(height);
+        h.writeByte(8); // bit depth
+        h.writeByte(alpha ? 6 : 2); // color type RGBA or RGB
+        h.writeByte(0); // compression
+        h.writeByte(0); // filter
+        h.writeByte(0); // no interlace
+        writeChunk("IHDR", header.toByteArray(), header.size());
+
+        this.idat = new DeflaterOutputStream(new ChunkStream(), deflater, CHUNK_SIZE);
+    }
+
+    /**
+     * Appends the first <code>count</code> rows of the given band to the image.
+     *
+     * @param band  an image holding the next rows, at least as wide as the PNG
+     * @param count the number of rows of the band to write
+     * @throws IOException if writing to the stream fails
+     */
+    void writeRows(BufferedImage band, int count) throws IOException {
+        if (rows + count > height) {
+            throw new IllegalStateException("more rows than the height of the image");
+        }
+        for (int y = 0; y < count; y++) {
+            band.getRGB(0, y, width, 1, pixels, 0, width);
+            int i = 1; // row[0] = 0: filter type none
+            for (int p : pixels) {
+                row[i++] = (byte) (p >> 16);
+                row[i++] = (byte) (p >> 8);
+                row[i++] = (byte) p;
+                if (alpha) {
+                    row[i++] = (byte) (p >>> 24);
+                }
+            }
+            idat.write(row);
+        }
+        rows += count;
+    }
+
+    /**
+     * Completes the image. All rows must have been written.
+     *
+     * @throws IOException if writing to the stream fails
+     */
+    @Override
+    public void close() throws IOException {
+        if (rows != height) {
+            throw new IllegalStateException("only " + rows + " of " + height + " rows written");
+        }
+        idat.finish();
+        idat.flush(); // writes the last, partially filled IDAT chunk
+        deflater.end();
+        writeChunk("IEND", new byte[0], 0);
+        out.flush();
+    }
+
+    private void writeChunk(String type, byte[] data, int length) throws IOException {
+        byte[] t = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(t);
+        crc.update(data, 0, length);
+        out.writeInt(length);
+        out.write(t);
+        out.write(data, 0, length);
+        out.writeInt((int) crc.getValue());
+    }
+
+    /** Stream which packs the compressed data into IDAT chunks. */
+    private final class ChunkStream extends OutputStream {
+        private final byte[] buffer = new byte[CHUNK_SIZE];
+        private int size;
+
+        @Override
+        public void write(int b) throws IOException {
+            buffer[size++] = (byte) b;
+            if (size == buffer.length) {
+                flush();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                int n = Math.min(len, buffer.length - size);
+                System.arraycopy(b, off, buffer, size, n);
+                size += n;
+                off += n;
+                len -= n;
+                if (size == buffer.length) {
+                    flush();
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (size > 0) {
+                writeChunk("IDAT", buffer, size);
+                size = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.export;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import jdraw.figures.Line;
+import jdraw.figures.Oval;
+import jdraw.figures.Rect;
+import jdraw.framework.DrawModel;
+import jdraw.framework.DrawingSnapshot;
+import jdraw.framework.Figure;
+import jdraw.framework.FigureGroup;
+import jdraw.framework.PrimitiveFigure;
+
+/**
+ * The SvgExporter writes the figures of a draw model as an SVG document. The
+ * figures are visited once in their z-order and every figure is written as
+ * soon as it is visited; no document tree is built in memory. Exporting a
+ * drawing therefore needs constant memory, independent of the number of
+ * figures.
+ *
+ * Rectangles, ovals and lines are written as <code>rect</code>,
+ * <code>ellipse</code> and <code>line</code> elements, groups as nested
+ * <code>g</code> elements; other {@link PrimitiveFigure}s (e.g. the views of a
+ * compact model) are written like the figures they represent. Other figures
+ * are approximated by a rectangle of their bounds. Fill and stroke are
+ * inherited from the root element.
+ */
+public final class SvgExporter {
+
+    /** The writer the document is written to. */
+    private final Writer out;
+
+    /** Buffer used to format numbers without creating strings. */
+    private final char[] digits = new char[12];
+
+    /**
+     * Creates an exporter which writes to the given writer. If the writer is not
+     * buffered, it is wrapped into a {@link BufferedWriter}.
+     *
+     * @param out the writer to write to; it is flushed but not closed
+     */
+    public SvgExporter(Writer out) {
+        this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out);
+    }
+
+    /**
+     * Writes the figures of the given model as an SVG document. The document has
+     * no view box, i.e. figures at negative coordinates are not visible.
+     *
+     * @param model the model to be exported
+     * @throws IOException if writing fails
+     */
+    public void write(DrawModel model) throws IOException {
+        write(model, null);
+    }
+
+    /**
+     * Writes the figures of the given model as an SVG document showing the given
+     * area of the drawing.
+     *
+     * @param model the model to be exported
+     * @param area  the area of the drawing shown by the document, or
+     *              <code>null</code> if the document has no view box
+     * @throws IOException if writing fails
+     */
+    public void write(DrawModel model, Rectangle area) throws IOException {
+        write(model.getFigures(), area);
+    }
+
+    /**
+     * Writes the figures of the given snapshot as an SVG document showing the
+     * given area of the drawing. As a snapshot does not change, this may be done
+     * on a background thread while the drawing is edited.
+     *
+     * @param snapshot the snapshot of the drawing to be exported
+     * @param area     the area of the drawing shown by the document, or
+     *                 <code>null</code> if the document has no view box
+     * @throws IOException if writing fails
+     */
+    public void write(DrawingSnapshot snapshot, Rectangle area) throws IOException {
+        write(snapshot.getFigures(), area);
+    }
+
+    private void write(Stream<? extends Figure> figures, Rectangle area) throws IOException {
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        out.write("<svg xmlns=\"http://www.w3.org/2000/svg\" version=\"1.1\"");
+        if (area != null) {
+            attribute("width", area.width);
+            attribute("height", area.height);
+            out.write(" viewBox=\"");
+            number(area.x);
+            out.write(' ');
+            number(area.y);
+            out.write(' ');
+            number(area.width);
+            out.write(' ');
+            number(area.height);
+            out.write('"');
+        }
+        out.write(" fill=\"white\" stroke=\"black\">\n");
+        Iterator<? extends Figure> it = figures.iterator();
+        while (it.hasNext()) {
+            figure(it.next());
+        }
+        out.write("</svg>\n");
+        out.flush();
+    }
+
+    private void figure(Figure f) throws IOException {
+        if (f instanceof FigureGroup) {
+            out.write("<g>\n");
+            Iterator<? extends Figure> it = ((FigureGroup) f).getFigureParts().iterator();
+            while (it.hasNext()) {
+                figure(it.next());
+            }
+            out.write("</g>\n");
+        } else if (f instanceof PrimitiveFigure) {
+            primitive((PrimitiveFigure) f);
+        } else if (f instanceof Line) {
+            Point p1 = ((Line) f).getStart();
+            Point p2 = ((Line) f).getEnd();
+            out.write("<line");
+            attribute("x1", p1.x);
+            attribute("y1", p1.y);
+            attribute("x2", p2.x);
+            attribute("y2", p2.y);
+            out.write("/>\n");
+        } else if (f instanceof Oval) {
+            Rectangle r = f.getBounds();
+            // the center and the radii are multiples of 0.5
+            out.write("<ellipse");
+            halfAttribute("cx", 2 * r.x + r.width);
+            halfAttribute("cy", 2 * r.y + r.height);
+            halfAttribute("rx", r.width);
+            halfAttribute("ry", r.height);
+            out.write("/>\n");
+        } else {
+            Rectangle r = f.getBounds();
+            out.write(f instanceof Rect ? "<rect" : "<rect class=\"bounds\"");
+            attribute("x", r.x);
+            attribute("y", r.y);
+            attribute("width", r.width);
+            attribute("height", r.height);
+            out.write("/>\n");
+        }
+    }
+
+    private void primitive(PrimitiveFigure f) throws IOException {
+        Point p1 = f.getStart();
+        Point p2 = f.getEnd();
+        switch (f.getKind()) {
+        case LINE:
+            out.write("<line");
+            attribute("x1", p1.x);
+            attribute("y1", p1.y);
+            attribute("x2", p2.x);
+            attribute("y2", p2.y);
+            break;
+        case OVAL:
+            out.write("<ellipse");
+            halfAttribute("cx", p1.x + p2.x);
+            halfAttribute("cy", p1.y + p2.y);
+            halfAttribute("rx", p2.x - p1.x);
+            halfAttribute("ry", p2.y - p1.y);
+            break;
+        default:
+            out.write("<rect");
+            attribute("x", p1.x);
+            attribute("y", p1.y);
+            attribute("width", p2.x - p1.x);
+            attribute("height", p2.y - p1.y);
+        }
+        out.write("/>\n");
+    }
+
+    private void attribute(String name, int value) throws IOException {
+        out.write(' ');
+        out.write(name);
+        out.write("=\"");
+        number(value);
+        out.write('"');
+    }
+
+    /** Writes an attribute whose value is half of the given number. */
+    private void halfAttribute(String name, int twice) throws IOException {
+        out.write(' ');
+        out.write(name);
+        out.write("=\"");
+        if (twice < 0) {
+            out.write('-');
+            twice = -twice;
+        }
+        number(twice >>> 1);
+        if ((twice & 1) != 0) {
+            out.write(".5");
+        }
+        out.write('"');
+    }
+
+    private void number(int value) throws IOException {
+        if (value == Integer.MIN_VALUE) {
+            out.write(Integer.toString(value));
+            return;
+        }
+        int pos = digits.length;
+        boolean negative = value < 0;
+        int v = negative ? -value : value;
+        do {
+            digits[--pos] = (char) ('0' + v % 10);
+            v /= 10;
+        } while (v != 0);
+        if (negative) {
+            digits[--pos] = '-';
+        }
+        out.write(digits, pos, digits.length - pos);
+    }
+}
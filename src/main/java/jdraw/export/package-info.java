@@ -0,0 +1,16 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+/**
+ * This package contains the export of drawings into other formats. The classes
+ * in this package only depend on the draw model and the figures, not on the
+ * Swing based views and contexts, so they can be used on servers and in
+ * continuous integration builds without a display.
+ * 
+ * Exports are written as a stream: large drawings are rendered or written piece
+ * by piece such that the memory needed does not grow with the size of the
+ * output.
+ */
+package jdraw.export;
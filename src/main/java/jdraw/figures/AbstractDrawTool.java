@@ -9,6 +9,7 @@ import java.awt.event.MouseEvent;
 import jdraw.framework.DrawContext;
 import jdraw.framework.DrawTool;
 import jdraw.framework.Figure;
+import jdraw.jfr.ToolEvent;
 
 /**
  * Base class for drawing tools.
@@ -85,9 +86,16 @@ public abstract class AbstractDrawTool implements DrawTool {
      */
     @Override
     public void mouseDrag(int x, int y, MouseEvent e) {
-        newFigure.setBounds(anchor, new Point(x, y));
-        java.awt.Rectangle r = newFigure.getBounds();
-        this.context.showStatusText("w: " + r.width + ", h: " + r.height);
+        ToolEvent event = ToolEvent.isRecorded() ? new ToolEvent(getName(), ToolEvent.MOUSE_DRAG, x, y) : null;
+        try {
+            newFigure.setBounds(anchor, new Point(x, y));
+            java.awt.Rectangle r = newFigure.getBounds();
+            this.context.showStatusText("w: " + r.width + ", h: " + r.height);
+        } finally {
+            if (event != null) {
+                event.end(context.getView());
+            }
+        }
     }
 
     /**
@@ -99,9 +107,19 @@ public abstract class AbstractDrawTool implements DrawTool {
      */
     @Override
     public void mouseUp(int x, int y, MouseEvent e) {
-        newFigure = null;
-        anchor = null;
-        this.context.showStatusText(name + " Mode");
+        ToolEvent event = ToolEvent.isRecorded() ? new ToolEvent(getName(), ToolEvent.MOUSE_UP, x, y) : null;
+        try {
+            if (newFigure != null) {
+                context.getView().getModel().figureEdited(newFigure);
+            }
+            newFigure = null;
+            anchor = null;
+            this.context.showStatusText(name + " Mode");
+        } finally {
+            if (event != null) {
+                event.end(context.getView());
+            }
+        }
     }
 
     /**
@@ -113,12 +131,19 @@ public abstract class AbstractDrawTool implements DrawTool {
      */
     @Override
     public void mouseDown(int x, int y, MouseEvent e) {
-        if (newFigure != null) {
-            throw new IllegalStateException("A figure is already in creation.");
+        ToolEvent event = ToolEvent.isRecorded() ? new ToolEvent(getName(), ToolEvent.MOUSE_DOWN, x, y) : null;
+        try {
+            if (newFigure != null) {
+                throw new IllegalStateException("A figure is already in creation.");
+            }
+            anchor = new Point(x, y);
+            newFigure = createFigureAt(x, y);
+            context.getView().getModel().addFigure(newFigure);
+        } finally {
+            if (event != null) {
+                event.end(context.getView());
+            }
         }
-        anchor = new Point(x, y);
-        newFigure = createFigureAt(x, y);
-        context.getView().getModel().addFigure(newFigure);
     }
 
     /**
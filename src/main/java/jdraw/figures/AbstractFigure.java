@@ -1,7 +1,7 @@
 package jdraw.figures;
 
+import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 import jdraw.figures.handles.EState;
 import jdraw.figures.handles.Handle;
@@ -23,18 +23,24 @@ import jdraw.framework.FigureListener;
  */
 public abstract class AbstractFigure implements SwappableFigure {
 
-    private final Handle sw = new Handle(new SWState(this));
-    private final Handle se = new Handle(new SEState(this));
-    private final Handle nw = new Handle(new NWState(this));
-    private final Handle ne = new Handle(new NEState(this));
-    private final Handle n = new Handle(new NState(this));
-    private final Handle e = new Handle(new EState(this));
-    private final Handle s = new Handle(new SState(this));
-    private final Handle w = new Handle(new WState(this));
-    private final List<FigureHandle> handles = List.of(sw, se, nw, ne, n, e, s, w);
-
-    /** List of listeners. */
-    private final List<FigureListener> observers = new CopyOnWriteArrayList<>();
+    /**
+     * The handles, created when they are first requested. Most figures are never
+     * selected, and clones (e.g. for the clipboard) then cost no handles.
+     */
+    private List<FigureHandle> handles;
+
+    /**
+     * The listeners: <code>null</code> if there are none, the listener itself if
+     * there is one, otherwise an array which is copied on every change. Most
+     * figures only have their model as listener and need no list at all.
+     */
+    private volatile Object observers;
+
+    /**
+     * The event passed to the listeners. Events are immutable, so a figure
+     * creates its event once instead of on every change.
+     */
+    private transient FigureEvent event;
 
     protected AbstractFigure(AbstractFigure source) {
 
@@ -46,23 +52,69 @@ public abstract class AbstractFigure implements SwappableFigure {
 
     /** Adds a listener. */
     @Override
-    public void addFigureListener(FigureListener listener) {
-        if (listener != null && !observers.contains(listener)) {
-            observers.add(listener);
+    public synchronized void addFigureListener(FigureListener listener) {
+        Object o = observers;
+        if (listener == null || listener.equals(o)) {
+            return;
+        }
+        if (o == null) {
+            observers = listener;
+        } else if (o instanceof FigureListener) {
+            observers = new FigureListener[] { (FigureListener) o, listener };
+        } else {
+            FigureListener[] a = (FigureListener[]) o;
+            if (!Arrays.asList(a).contains(listener)) {
+                a = Arrays.copyOf(a, a.length + 1);
+                a[a.length - 1] = listener;
+                observers = a;
+            }
         }
     }
 
     /** Removes a listener. */
     @Override
-    public void removeFigureListener(FigureListener listener) {
-        observers.remove(listener);
+    public synchronized void removeFigureListener(FigureListener listener) {
+        Object o = observers;
+        if (o == null) {
+            return;
+        }
+        if (o instanceof FigureListener) {
+            if (o.equals(listener)) {
+                observers = null;
+            }
+            return;
+        }
+        FigureListener[] a = (FigureListener[]) o;
+        int i = Arrays.asList(a).indexOf(listener);
+        if (i >= 0) {
+            if (a.length == 2) {
+                observers = a[1 - i];
+            } else {
+                FigureListener[] b = new FigureListener[a.length - 1];
+                System.arraycopy(a, 0, b, 0, i);
+                System.arraycopy(a, i + 1, b, i, b.length - i);
+                observers = b;
+            }
+        }
     }
 
     /** Notifies all listeners of a change. */
     protected void notifyObservers() {
-        FigureEvent figureEvent = new FigureEvent(this);
-        for (FigureListener figureListener : observers) {
-            figureListener.figureChanged(figureEvent);
+        Object o = observers;
+        if (o == null) {
+            return;
+        }
+        FigureEvent figureEvent = event;
+        if (figureEvent == null) {
+            figureEvent = new FigureEvent(this);
+            event = figureEvent;
+        }
+        if (o instanceof FigureListener) {
+            ((FigureListener) o).figureChanged(figureEvent);
+        } else {
+            for (FigureListener figureListener : (FigureListener[]) o) {
+                figureListener.figureChanged(figureEvent);
+            }
         }
     }
 
@@ -74,12 +126,17 @@ public abstract class AbstractFigure implements SwappableFigure {
 
     @Override
     public List<FigureHandle> getHandles() {
+        if (handles == null) {
+            handles = List.of(new Handle(new SWState(this)), new Handle(new SEState(this)),
+                    new Handle(new NWState(this)), new Handle(new NEState(this)), new Handle(new NState(this)),
+                    new Handle(new EState(this)), new Handle(new SState(this)), new Handle(new WState(this)));
+        }
         return handles;
     }
 
     @Override
     public void swapVertical() {
-        for (FigureHandle figureHandle : handles) {
+        for (FigureHandle figureHandle : getHandles()) {
             Handle handle = (Handle) figureHandle; // wegen setState und getState
             handle.setState(handle.getState().swapVertical());
         }
@@ -87,7 +144,7 @@ public abstract class AbstractFigure implements SwappableFigure {
 
     @Override
     public void swapHorizontal() {
-        for (FigureHandle figureHandle : handles) {
+        for (FigureHandle figureHandle : getHandles()) {
             Handle handle = (Handle) figureHandle;
             handle.setState(handle.getState().swapHorizontal());
         }
@@ -56,6 +56,13 @@ public abstract class AbstractRectangularFigure extends AbstractFigure {
         return rectangle.getBounds();
     }
 
+    /** Copies the bounds into the given rectangle. */
+    @Override
+    public Rectangle getBounds(Rectangle rv) {
+        rv.setBounds(rectangle);
+        return rv;
+    }
+
     /** Checks if a point is inside the figure. */
     @Override
     public boolean contains(int x, int y) {
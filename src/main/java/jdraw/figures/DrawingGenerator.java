@@ -0,0 +1,172 @@
+package jdraw.figures;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import jdraw.framework.DrawModel;
+import jdraw.framework.Figure;
+
+/**
+ * Generates large drawings for load tests and profiling. The drawings consist
+ * of rectangles, ovals and lines, optionally combined into (nested) groups.
+ * The figures are placed according to a distribution and a seed, i.e. the same
+ * settings always produce the same drawing.
+ */
+public class DrawingGenerator {
+
+    /** How the figures are placed. */
+    public enum Distribution {
+        /** Figures are spread uniformly over the area. */
+        UNIFORM,
+        /** Figures are placed in normally distributed clusters. */
+        CLUSTERED,
+        /** Figures are placed on a regular grid, one figure per cell. */
+        GRID
+    }
+
+    /** Number of figures per cluster of the clustered distribution. */
+    private static final int CLUSTER_SIZE = 1000;
+
+    /** Maximal number of parts of a generated group. */
+    private static final int MAX_GROUP_SIZE = 8;
+
+    private final long seed;
+    private Distribution distribution = Distribution.UNIFORM;
+    private int minSize = 5;
+    private int maxSize = 40;
+    private double groupFraction = 0;
+    private int groupDepth = 1;
+
+    /**
+     * Creates a generator.
+     *
+     * @param seed the seed of the random numbers
+     */
+    public DrawingGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    public void setDistribution(Distribution distribution) {
+        this.distribution = distribution;
+    }
+
+    /**
+     * Sets the range of the width and height of the figures.
+     *
+     * @param min minimal width and height
+     * @param max maximal width and height
+     */
+    public void setFigureSize(int min, int max) {
+        if (min < 0 || max < min) {
+            throw new IllegalArgumentException();
+        }
+        this.minSize = min;
+        this.maxSize = max;
+    }
+
+    /**
+     * Sets which fraction of the figures is combined into groups, and how deeply
+     * groups are nested.
+     *
+     * @param fraction fraction of the figures put into groups (0 to 1)
+     * @param depth    number of nesting levels (at least 1)
+     */
+    public void setGroups(double fraction, int depth) {
+        if (fraction < 0 || fraction > 1 || depth < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.groupFraction = fraction;
+        this.groupDepth = depth;
+    }
+
+    /**
+     * Adds a generated drawing to the given model. The figures are added with a
+     * single bulk insertion.
+     *
+     * @param model the model to populate
+     * @param n     the number of rectangles, ovals and lines
+     */
+    public void populate(DrawModel model, int n) {
+        model.addFigures(generate(n));
+    }
+
+    /**
+     * Generates a drawing. The drawing covers a square area which grows with the
+     * number of figures, such that the density stays the same.
+     *
+     * @param n the number of rectangles, ovals and lines
+     * @return the top level figures (groups contain the remaining figures)
+     */
+    public List<Figure> generate(int n) {
+        Random random = new Random(seed);
+        int cell = maxSize + maxSize / 2 + 1;
+        int columns = (int) Math.ceil(Math.sqrt(n));
+        int side = columns * cell;
+
+        Point[] centers = new Point[Math.max(1, n / CLUSTER_SIZE)];
+        for (int i = 0; i < centers.length; i++) {
+            centers[i] = new Point(random.nextInt(side), random.nextInt(side));
+        }
+        double sigma = side / (2.0 * Math.sqrt(centers.length) + 2);
+
+        List<Figure> figures = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int x;
+            int y;
+            switch (distribution) {
+            case CLUSTERED:
+                Point c = centers[random.nextInt(centers.length)];
+                x = c.x + (int) (random.nextGaussian() * sigma);
+                y = c.y + (int) (random.nextGaussian() * sigma);
+                break;
+            case GRID:
+                x = (i % columns) * cell;
+                y = (i / columns) * cell;
+                break;
+            default:
+                x = random.nextInt(side);
+                y = random.nextInt(side);
+            }
+            int w = minSize + random.nextInt(maxSize - minSize + 1);
+            int h = minSize + random.nextInt(maxSize - minSize + 1);
+            figures.add(createFigure(random.nextInt(3), x, y, w, h, random));
+        }
+
+        for (int level = 0; level < groupDepth && groupFraction > 0; level++) {
+            figures = group(figures, random);
+        }
+        return figures;
+    }
+
+    private static Figure createFigure(int kind, int x, int y, int w, int h, Random random) {
+        switch (kind) {
+        case 0:
+            return new Rect(x, y, w, h);
+        case 1:
+            return new Oval(x, y, w, h);
+        default:
+            Line line = new Line(x, y);
+            line.setBounds(new Point(x, y), new Point(x + w, random.nextBoolean() ? y + h : y - h));
+            return line;
+        }
+    }
+
+    /** Combines runs of consecutive figures into groups. */
+    private List<Figure> group(List<Figure> figures, Random random) {
+        List<Figure> result = new ArrayList<>();
+        int i = 0;
+        while (i < figures.size()) {
+            int size = 2 + random.nextInt(MAX_GROUP_SIZE - 1);
+            if (i + size <= figures.size() && random.nextDouble() < groupFraction) {
+                result.add(new Group(figures.subList(i, i + size)));
+                i += size;
+            } else {
+                result.add(figures.get(i));
+                i++;
+            }
+        }
+        return result;
+    }
+}
@@ -1,9 +1,13 @@
 package jdraw.figures;
 
+import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -11,24 +15,57 @@ import jdraw.framework.DrawModel;
 import jdraw.framework.Figure;
 import jdraw.framework.FigureGroup;
 
+/**
+ * A group of figures. Cloning a group is copy-on-write: the clone shares the
+ * parts of its source, and both are marked as shared. The first time a shared
+ * group is moved, it replaces its parts by copies (again copy-on-write for
+ * nested groups); afterwards it moves its own parts in place. Copying a large
+ * group into the clipboard and pasting it therefore takes O(1) until one of the
+ * copies is moved, and dragging a group only copies its parts once.
+ *
+ * Reading a group modifies neither the group nor its parts, so a clone may be
+ * read by another thread (e.g. in a snapshot of the model) while its source is
+ * edited, and a group which has not been moved hands out the figures it has
+ * been created with.
+ */
 public class Group extends AbstractFigure implements FigureGroup {
 
+    /** The parts, not modified while they may be shared with clones. */
     private List<Figure> parts;
 
+    /** Whether the parts may be shared with a clone or the source of this group. */
+    private boolean shared;
+
     public Group(DrawModel model, List<Figure> parts) {
         super();
         if (parts == null || parts.isEmpty()) {
             throw new IllegalArgumentException();
         }
+        Set<Figure> members = new HashSet<>(parts);
         this.parts = model
                 .getFigures()
-                .filter(parts::contains)
+                .filter(members::contains)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Creates a group of the given figures, which are drawn in the given order.
+     *
+     * @param parts the figures of the group
+     */
+    public Group(List<Figure> parts) {
+        super();
+        if (parts == null || parts.isEmpty()) {
+            throw new IllegalArgumentException();
+        }
+        this.parts = new ArrayList<>(parts);
+    }
+
     public Group(Group source) {
         super(source);
-        parts = source.parts.stream().map(Figure::clone).toList();
+        parts = source.parts;
+        shared = true;
+        source.shared = true;
     }
 
     @Override
@@ -41,10 +78,28 @@ public class Group extends AbstractFigure implements FigureGroup {
         parts.forEach(figure -> figure.draw(g));
     }
 
+    @Override
+    public Color getPreviewColor() {
+        // the topmost part covers the others
+        return parts.get(parts.size() - 1).getPreviewColor();
+    }
+
     @Override
     public void move(int dx, int dy) {
         if (dx != 0 || dy != 0) {
-            parts.forEach(figure -> figure.move(dx, dy));
+            if (shared) {
+                List<Figure> copies = new ArrayList<>(parts.size());
+                for (Figure f : parts) {
+                    Figure copy = f.clone();
+                    // a part which cannot be cloned remains shared
+                    copies.add(copy != null ? copy : f);
+                }
+                parts = copies;
+                shared = false;
+            }
+            for (int i = 0; i < parts.size(); i++) {
+                parts.get(i).move(dx, dy);
+            }
             notifyObservers();
         }
     }
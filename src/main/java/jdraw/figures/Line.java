@@ -23,6 +23,16 @@ public class Line extends AbstractFigure {
         line = new Line2D.Double(x, y, x, y);
     }
 
+    public Line(Line source) {
+        super(source);
+        line = (Line2D) source.line.clone();
+    }
+
+    @Override
+    public Line clone() {
+        return new Line(this);
+    }
+
     /** Moves the line. */
     @Override
     public void move(int dx, int dy) {
@@ -52,6 +62,27 @@ public class Line extends AbstractFigure {
         return line.getBounds();
     }
 
+    /** Stores the line bounds in the given rectangle, as computed by {@link #getBounds()}. */
+    @Override
+    public Rectangle getBounds(Rectangle rv) {
+        int x0 = (int) Math.floor(Math.min(line.getX1(), line.getX2()));
+        int y0 = (int) Math.floor(Math.min(line.getY1(), line.getY2()));
+        int x1 = (int) Math.ceil(Math.max(line.getX1(), line.getX2()));
+        int y1 = (int) Math.ceil(Math.max(line.getY1(), line.getY2()));
+        rv.setBounds(x0, y0, x1 - x0, y1 - y0);
+        return rv;
+    }
+
+    /** Returns the start point of the line. */
+    public Point getStart() {
+        return new Point((int) line.getX1(), (int) line.getY1());
+    }
+
+    /** Returns the end point of the line. */
+    public Point getEnd() {
+        return new Point((int) line.getX2(), (int) line.getY2());
+    }
+
     /** Checks if the point is on the line. */
     @Override
     public boolean contains(int x, int y) {
@@ -2,16 +2,15 @@ package jdraw.figures;
 
 import java.awt.Color;
 import java.awt.Graphics;
+import java.awt.Point;
 import java.awt.Rectangle;
-import java.awt.geom.Ellipse2D.Float;
+import java.awt.geom.Ellipse2D;
 
 /**
  * Represents an oval figure.
  */
 public class Oval extends AbstractRectangularFigure {
 
-    private java.awt.geom.Ellipse2D.Float ellipse;
-
     /**
      * Constructs a new oval.
      *
@@ -20,14 +19,13 @@ public class Oval extends AbstractRectangularFigure {
      * @param w the width
      * @param h the height
      */
-    protected Oval(int x, int y, int w, int h) {
+    public Oval(int x, int y, int w, int h) {
         super(x, y);
-        ellipse = new Float(x, y, 0, 0);
+        setBounds(new Point(x, y), new Point(x + w, y + h));
     }
 
     public Oval(Oval source) {
         super(source);
-        ellipse = (java.awt.geom.Ellipse2D.Float)source.ellipse.clone();
     }
 
     @Override
@@ -35,21 +33,20 @@ public class Oval extends AbstractRectangularFigure {
         return new Oval(this);
     }
 
-    /** Draws the oval. */
+    /** Draws the oval (without side effects, tiles may be rendered concurrently). */
     @Override
     public void draw(Graphics g) {
         Rectangle bounds = getBounds();
-        ellipse.setFrame(bounds.x, bounds.y, bounds.width, bounds.height);
-
         g.setColor(Color.WHITE);
         g.fillOval(bounds.x, bounds.y, bounds.width, bounds.height);
         g.setColor(Color.BLACK);
-        g.drawOval((int) ellipse.x, (int) ellipse.y, (int) ellipse.width, (int) ellipse.height);
+        g.drawOval(bounds.x, bounds.y, bounds.width, bounds.height);
     }
 
     /** Checks if the point is inside the oval. */
     @Override
     public boolean contains(int x, int y) {
-        return ellipse.contains(x, y);
+        Rectangle bounds = getBounds();
+        return new Ellipse2D.Float(bounds.x, bounds.y, bounds.width, bounds.height).contains(x, y);
     }
 }
@@ -5,6 +5,18 @@
 
 package jdraw.framework;
 
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -35,6 +47,22 @@ public interface DrawModel {
      */
     void addFigure(Figure f);
 
+    /**
+     * Adds several figures to the draw model, in the order of the given
+     * collection. The result is the same as if {@link #addFigure(Figure)} were
+     * called for each figure, but implementations may add the figures more
+     * efficiently and notify the listeners with a single
+     * {@link DrawModelEvent.Type#FIGURES_ADDED} event instead of one event per
+     * figure. This is intended for loading or generating large drawings.
+     * 
+     * @param figures the figures to be added to the draw model.
+     */
+    default void addFigures(Collection<? extends Figure> figures) {
+        for (Figure f : figures) {
+            addFigure(f);
+        }
+    }
+
     /**
      * Removes the specified figure from the draw model. If the figure is not
      * present in the model, no action is taken.
@@ -84,6 +112,30 @@ public interface DrawModel {
      */
     void removeModelChangeListener(DrawModelListener listener);
 
+    /**
+     * Restricts the {@link DrawModelEvent.Type#FIGURE_CHANGED} events delivered to
+     * a registered listener to the figures whose bounds intersect the given area
+     * of the drawing, e.g. the area which is visible in a view. A change is
+     * delivered if the bounds of the figure intersect the area before or after
+     * the change; all other events are always delivered. With several views on
+     * the same model, a change thus only reaches the views which show it.
+     * 
+     * Changes outside the area are not lost: when the area of the listener is
+     * set again (e.g. because the view has been scrolled), the listener first
+     * receives one <code>FIGURE_CHANGED</code> event for every figure which has
+     * changed outside its previous area in the meantime.
+     * 
+     * The default implementation ignores the area, i.e. all events are
+     * delivered.
+     * 
+     * @param listener a listener registered with this model
+     * @param area     the area of interest in drawing coordinates, or
+     *                 <code>null</code> to receive all events again
+     */
+    default void setListenerInterest(DrawModelListener listener, Rectangle area) {
+        // all events are delivered
+    }
+
     /**
      * Returns the draw command handler associated with this model. The command
      * handler is responsible for managing undo and redo operations on figures
@@ -113,4 +165,179 @@ public interface DrawModel {
      *                                   the model.
      */
     void setFigureIndex(Figure f, int index) throws IllegalArgumentException, IndexOutOfBoundsException;
+
+    /**
+     * Moves several figures to a new position in the z-order with a single
+     * operation. Afterwards the figures keep their relative order and occupy the
+     * indices <code>index</code> to <code>index + k - 1</code>, where k is the
+     * number of distinct figures given; the order of the other figures remains
+     * unchanged. If the order has changed, a single <code>DRAWING_CHANGED</code>
+     * event without a figure is sent to all registered model listeners.
+     * 
+     * The default implementation calls {@link #setFigureIndex(Figure, int)} for
+     * every figure, i.e. the listeners may receive an event per figure.
+     * 
+     * @param figures the figures to be moved, in any order.
+     * @param index   the new index of the first of the moved figures.
+     * 
+     * @throws IllegalArgumentException  if a figure is not contained in the
+     *                                   model.
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *                                   (<code>index &lt; 0 || index + k &gt; size()</code>).
+     */
+    default void moveFigures(Collection<? extends Figure> figures, int index)
+            throws IllegalArgumentException, IndexOutOfBoundsException {
+        Map<Figure, Integer> positions = new HashMap<>();
+        getFigures().forEachOrdered(f -> positions.put(f, positions.size()));
+        List<Figure> moved = new ArrayList<>(new LinkedHashSet<Figure>(figures));
+        for (Figure f : moved) {
+            if (!positions.containsKey(f)) {
+                throw new IllegalArgumentException();
+            }
+        }
+        if (index < 0 || index + moved.size() > positions.size()) {
+            throw new IndexOutOfBoundsException();
+        }
+        moved.sort(Comparator.comparing(positions::get));
+
+        // first to the front, then down to the index
+        int pos = positions.size();
+        for (int i = moved.size() - 1; i >= 0; i--) {
+            setFigureIndex(moved.get(i), --pos);
+        }
+        if (index < pos) {
+            for (int i = 0; i < moved.size(); i++) {
+                setFigureIndex(moved.get(i), index + i);
+            }
+        }
+    }
+
+    /**
+     * Moves the given figures in front of all other figures, keeping their
+     * relative order, see {@link #moveFigures(Collection, int)}.
+     * 
+     * @param figures the figures to be moved.
+     * @throws IllegalArgumentException if a figure is not contained in the model.
+     */
+    default void bringToFront(Collection<? extends Figure> figures) throws IllegalArgumentException {
+        int count = new HashSet<Figure>(figures).size();
+        moveFigures(figures, Math.max(0, (int) getFigures().count() - count));
+    }
+
+    /**
+     * Moves the given figures behind all other figures, keeping their relative
+     * order, see {@link #moveFigures(Collection, int)}.
+     * 
+     * @param figures the figures to be moved.
+     * @throws IllegalArgumentException if a figure is not contained in the model.
+     */
+    default void sendToBack(Collection<? extends Figure> figures) throws IllegalArgumentException {
+        moveFigures(figures, 0);
+    }
+
+    /**
+     * Replaces several figures by a group of them with a single operation. The
+     * parts are passed to the factory in the order of the model, and the group
+     * takes the place of the frontmost part in the z-order. Listeners receive a
+     * single {@link DrawModelEvent.Type#FIGURES_GROUPED} event which refers to
+     * the group.
+     * 
+     * The default implementation removes the parts and adds the group one by
+     * one, i.e. the listeners receive an event per figure.
+     * 
+     * @param parts   the figures to be grouped, in any order.
+     * @param factory creates the group of the parts, a {@link FigureGroup} whose
+     *                parts are the given figures.
+     * @return the group which has been added to the model.
+     * @throws IllegalArgumentException if a part is not contained in the model or
+     *                                  no parts are given.
+     */
+    default Figure groupFigures(Collection<? extends Figure> parts,
+            Function<? super List<Figure>, ? extends Figure> factory) throws IllegalArgumentException {
+        Map<Figure, Integer> positions = new HashMap<>();
+        getFigures().forEachOrdered(f -> positions.put(f, positions.size()));
+        List<Figure> ordered = new ArrayList<>(new LinkedHashSet<Figure>(parts));
+        if (ordered.isEmpty() || !positions.keySet().containsAll(ordered)) {
+            throw new IllegalArgumentException();
+        }
+        ordered.sort(Comparator.comparing(positions::get));
+
+        Figure group = factory.apply(ordered);
+        int index = positions.get(ordered.get(ordered.size() - 1)) - ordered.size() + 1;
+        for (Figure f : ordered) {
+            removeFigure(f);
+        }
+        addFigure(group);
+        setFigureIndex(group, index);
+        return group;
+    }
+
+    /**
+     * Replaces a group by its parts with a single operation. The parts take the
+     * place of the group in the z-order. Listeners receive a single
+     * {@link DrawModelEvent.Type#FIGURES_UNGROUPED} event which refers to the
+     * group.
+     * 
+     * The default implementation removes the group and adds the parts one by
+     * one, i.e. the listeners receive an event per figure.
+     * 
+     * @param group the group to be replaced, a {@link FigureGroup}.
+     * @throws IllegalArgumentException if the figure is not a group contained in
+     *                                  the model, or a part is contained in the
+     *                                  model.
+     */
+    default void ungroupFigure(Figure group) throws IllegalArgumentException {
+        if (!(group instanceof FigureGroup)) {
+            throw new IllegalArgumentException();
+        }
+        List<Figure> parts = ((FigureGroup) group).getFigureParts().collect(Collectors.toList());
+        List<Figure> figures = getFigures().collect(Collectors.toList());
+        int index = figures.indexOf(group);
+        Set<Figure> present = new HashSet<>(figures);
+        if (index < 0 || parts.stream().anyMatch(present::contains)) {
+            throw new IllegalArgumentException();
+        }
+        removeFigure(group);
+        addFigures(parts);
+        moveFigures(parts, index);
+    }
+
+    /**
+     * Informs the model that a tool has finished editing the given figure, e.g.
+     * when a draw tool has dragged a new figure to its size. Models which store
+     * figures in a more compact form may then replace the figure by one with the
+     * same geometry; the listeners receive a
+     * {@link DrawModelEvent.Type#FIGURE_REMOVED} event for the figure followed
+     * by a {@link DrawModelEvent.Type#FIGURE_ADDED} event for its replacement,
+     * which keeps the position of the figure in the z-order.
+     * 
+     * The default implementation does nothing.
+     * 
+     * @param f a figure contained in the model
+     */
+    default void figureEdited(Figure f) {
+        // figures are stored as they are
+    }
+
+    /**
+     * Returns an immutable snapshot of the drawing, which may be traversed on
+     * another thread while the model keeps changing. Like all other methods of
+     * the model, this method must be called on the thread which modifies the
+     * model.
+     * 
+     * The default implementation clones all figures and has no version (the
+     * version is always 0); implementations should share the copies of
+     * unchanged figures between snapshots. Figures whose
+     * {@link Figure#clone()} returns <code>null</code> are not copied, so their
+     * geometry in the snapshot may change.
+     * 
+     * @return a snapshot of the current state of the drawing
+     */
+    default DrawingSnapshot snapshot() {
+        List<Figure> copies = getFigures().map(f -> {
+            Figure copy = f.clone();
+            return copy != null ? copy : (Figure) f;
+        }).collect(Collectors.toList());
+        return DrawingSnapshot.of(0, copies);
+    }
 }
@@ -37,11 +37,33 @@ public class DrawModelEvent {
          */
         FIGURE_ADDED,
 
+        /**
+         * Indicates that several figures were added to the draw model at once, see
+         * {@link DrawModel#addFigures(java.util.Collection)}. The event does not
+         * refer to a figure; listeners which need to know the added figures have
+         * to inspect the figures of the model.
+         */
+        FIGURES_ADDED,
+
         /**
          * Indicates that a figure was removed from the draw model.
          */
         FIGURE_REMOVED,
 
+        /**
+         * Indicates that several figures were replaced by a group of them, see
+         * {@link DrawModel#groupFigures(java.util.Collection, java.util.function.Function)}.
+         * The event refers to the new group; the removed figures are its parts.
+         */
+        FIGURES_GROUPED,
+
+        /**
+         * Indicates that a group was replaced by its parts, see
+         * {@link DrawModel#ungroupFigure(Figure)}. The event refers to the removed
+         * group; the added figures are its parts.
+         */
+        FIGURES_UNGROUPED,
+
         /**
          * Indicates that a figure's position, size, or other attributes were changed in
          * the draw model.
@@ -9,6 +9,7 @@ import java.awt.Cursor;
 import java.awt.Graphics;
 import java.awt.Rectangle;
 import java.awt.event.MouseEvent;
+import java.awt.geom.AffineTransform;
 import java.util.List;
 
 /**
@@ -22,6 +23,13 @@ import java.util.List;
  * architecture of JDraw, linking the drawing model with the drawing tools and
  * user interface. It provides methods for setting the context, managing grids,
  * selecting figures, and handling graphical rendering.
+ * 
+ * The figures are stored in drawing coordinates. A view may present the
+ * drawing zoomed and panned; the mapping from drawing coordinates to the pixels
+ * of the view is described by the view transform. Mouse coordinates are mapped
+ * back to drawing coordinates by the view before they are passed to the
+ * current tool, the grid or the handles, i.e. all coordinates seen by the
+ * framework are drawing coordinates.
  *
  * @see DrawModel
  * @see DrawContext
@@ -148,6 +156,42 @@ public interface DrawView {
      */
     void repaint();
 
+    /**
+     * Returns the transformation from drawing coordinates to the pixel coordinates
+     * of this view. The transformation consists of a uniform scale (the zoom) and
+     * a translation (the pan offset). The returned object is a copy; modifying it
+     * does not affect the view.
+     * 
+     * @return the view transform of this view
+     */
+    AffineTransform getViewTransform();
+
+    /**
+     * Returns the zoom of this view, i.e. the number of pixels used to display one
+     * unit in drawing coordinates.
+     * 
+     * @return the current zoom factor, 1.0 if the drawing is not zoomed
+     */
+    double getZoom();
+
+    /**
+     * Sets the zoom of this view. Values outside the range supported by the view
+     * are clamped to that range. The view is repainted.
+     * 
+     * @param zoom the new zoom factor, must be positive
+     * @throws IllegalArgumentException if <code>zoom</code> is not positive
+     */
+    void setZoom(double zoom) throws IllegalArgumentException;
+
+    /**
+     * Moves the displayed drawing by the given distance. The distance is specified
+     * in pixels of the view, independent of the current zoom.
+     * 
+     * @param dx the distance in pixels to move the drawing to the right
+     * @param dy the distance in pixels to move the drawing down
+     */
+    void pan(int dx, int dy);
+
     /**
      * Sets the cursor for the drawing view, updating the cursor displayed to the
      * user to reflect the current interaction mode or tool.
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.framework;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * The DrawingSnapshot interface represents the state of a draw model at a
+ * certain point in time. A snapshot is immutable: later changes of the model,
+ * neither of its figure list nor of the geometry of its figures, are visible
+ * in the snapshot. It can therefore be traversed on another thread while the
+ * user keeps editing the drawing, e.g. by an exporter, an autosave or a
+ * thumbnail renderer.
+ *
+ * The figures of a snapshot are copies of the figures of the model and must
+ * not be modified. Models may share these copies between snapshots, so taking
+ * a snapshot only copies the figures which have changed since the previous
+ * snapshot.
+ *
+ * @see DrawModel#snapshot()
+ */
+public interface DrawingSnapshot {
+
+    /**
+     * Returns the version of the model at the time the snapshot was taken. The
+     * version is advanced by every mutation of the model, so two snapshots of
+     * the same model with the same version show the same drawing.
+     *
+     * @return the version of the model
+     */
+    long getVersion();
+
+    /**
+     * Returns the number of figures in the snapshot.
+     *
+     * @return the number of figures
+     */
+    int getFigureCount();
+
+    /**
+     * Returns the figures of the snapshot in the order of the model, i.e. in
+     * back-to-front order. This method may be called on any thread.
+     *
+     * @return a stream of the figures
+     */
+    Stream<Figure> getFigures();
+
+    /**
+     * Creates a snapshot of the given figures. The list is not copied and must
+     * not be modified afterwards.
+     *
+     * @param version the version of the model
+     * @param figures the copies of the figures
+     * @return the snapshot
+     */
+    static DrawingSnapshot of(long version, List<Figure> figures) {
+        return new DrawingSnapshot() {
+            @Override
+            public long getVersion() {
+                return version;
+            }
+
+            @Override
+            public int getFigureCount() {
+                return figures.size();
+            }
+
+            @Override
+            public Stream<Figure> getFigures() {
+                return figures.stream();
+            }
+        };
+    }
+}
@@ -5,6 +5,7 @@
 
 package jdraw.framework;
 
+import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Point;
 import java.awt.Rectangle;
@@ -81,6 +82,26 @@ public interface Figure extends Serializable {
      */
     Rectangle getBounds();
 
+    /**
+     * Stores the bounding rectangle of the figure in the given rectangle. This
+     * method is used on paths which run for every change of a figure (e.g.
+     * while it is dragged), so figures should override it such that it does not
+     * allocate.
+     * 
+     * @param rv the rectangle receiving the bounds
+     * @return the given rectangle, or <code>null</code> if the figure has no
+     *         bounds
+     * @see #getBounds()
+     */
+    default Rectangle getBounds(Rectangle rv) {
+        Rectangle r = getBounds();
+        if (r == null) {
+            return null;
+        }
+        rv.setBounds(r);
+        return rv;
+    }
+
     /**
      * Returns a list of handles associated with the figure. Handles allow users to
      * manipulate the figure, such as resizing or rotating. If the figure does not
@@ -113,6 +134,17 @@ public interface Figure extends Serializable {
      */
     void removeFigureListener(FigureListener listener);
 
+    /**
+     * Returns the color of the single pixel which represents the figure when the
+     * drawing is zoomed out so far that the figure is smaller than a pixel. The
+     * default is black, the color of the outlines of the standard figures.
+     * 
+     * @return the color of the figure when drawn as a single pixel
+     */
+    default Color getPreviewColor() {
+        return Color.BLACK;
+    }
+
     /**
      * Creates and returns a deep copy of this figure. The cloned figure is
      * independent of the original, with its own state and listeners.
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.framework;
+
+import java.awt.Point;
+
+/**
+ * The PrimitiveFigure interface is implemented by figures which are drawn as
+ * one of the basic shapes and are fully described by two points, whatever
+ * their class. Exporters use it to write such figures without depending on a
+ * particular figure or model implementation.
+ *
+ * @see Figure
+ */
+public interface PrimitiveFigure {
+
+    /** The basic shapes. */
+    enum Kind {
+        RECTANGLE, OVAL, LINE
+    }
+
+    /**
+     * Returns the shape of the figure.
+     *
+     * @return the kind of the figure
+     */
+    Kind getKind();
+
+    /**
+     * Returns the start point of a line, the top left corner of a rectangle or
+     * of the bounds of an oval.
+     *
+     * @return the first point of the figure
+     */
+    Point getStart();
+
+    /**
+     * Returns the end point of a line, the bottom right corner of a rectangle or
+     * of the bounds of an oval.
+     *
+     * @return the second point of the figure
+     */
+    Point getEnd();
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Event for an operation of a draw command handler: adding a command to the
+ * history, undo, redo and the begin and end of a script.
+ *
+ * @see RecordingDrawCommandHandler
+ */
+@Name("jdraw.Command")
+@Label("Command")
+@Category({ "JDraw", "Commands" })
+@Description("A command was added to the history, undone or redone")
+public final class CommandEvent extends Event {
+
+    /** Operations of the command handler. */
+    public static final String ADD = "add";
+    public static final String UNDO = "undo";
+    public static final String REDO = "redo";
+    public static final String BEGIN_SCRIPT = "beginScript";
+    public static final String END_SCRIPT = "endScript";
+
+    @Label("Operation")
+    private final String operation;
+
+    @Label("Command Class")
+    @Description("Class of the added command, empty for other operations")
+    private String command;
+
+    /**
+     * Creates and begins an event for the given operation.
+     *
+     * @param operation one of the operation constants of this class
+     */
+    public CommandEvent(String operation) {
+        this.operation = operation;
+        begin();
+    }
+
+    /**
+     * Ends the event and commits it if it is recorded.
+     *
+     * @param command the command which was added, or <code>null</code>
+     */
+    public void end(Object command) {
+        if (shouldCommit()) {
+            this.command = command != null ? command.getClass().getName() : null;
+            commit();
+        }
+    }
+}
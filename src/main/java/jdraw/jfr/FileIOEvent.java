@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Event for reading or writing a drawing file, e.g. an export.
+ */
+@Name("jdraw.FileIO")
+@Label("Drawing File I/O")
+@Category({ "JDraw", "File I/O" })
+@Description("A drawing was read from or written to a file")
+public final class FileIOEvent extends Event {
+
+    /** Operations on drawing files. */
+    public static final String READ = "read";
+    public static final String WRITE = "write";
+
+    @Label("Operation")
+    private final String operation;
+
+    @Label("Path")
+    private final String path;
+
+    @Label("Format")
+    private final String format;
+
+    @Label("Figures")
+    private int figures;
+
+    @Label("Bytes")
+    @DataAmount
+    private long bytes;
+
+    @Label("Succeeded")
+    private boolean succeeded;
+
+    /**
+     * Creates and begins an event for the given file operation.
+     *
+     * @param operation one of the operation constants of this class
+     * @param path      the path of the file
+     * @param format    the format of the file, e.g. "svg"
+     */
+    public FileIOEvent(String operation, String path, String format) {
+        this.operation = operation;
+        this.path = path;
+        this.format = format;
+        begin();
+    }
+
+    /**
+     * Ends the event and commits it if it is recorded.
+     *
+     * @param figures   the number of figures read or written
+     * @param bytes     the number of bytes read or written
+     * @param succeeded whether the operation completed without an error
+     */
+    public void end(int figures, long bytes, boolean succeeded) {
+        if (shouldCommit()) {
+            this.figures = figures;
+            this.bytes = bytes;
+            this.succeeded = succeeded;
+            commit();
+        }
+    }
+}
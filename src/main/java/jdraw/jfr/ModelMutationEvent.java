@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Event for a mutation of a draw model, including the notification of the
+ * model listeners (e.g. the views invalidating their caches).
+ */
+@Name("jdraw.ModelMutation")
+@Label("Model Mutation")
+@Category({ "JDraw", "Model" })
+@Description("A figure was added, removed, changed or reordered, or the drawing was cleared")
+public final class ModelMutationEvent extends Event {
+
+    /** Operations of the model. */
+    public static final String ADD = "add";
+    public static final String ADD_ALL = "addAll";
+    public static final String REMOVE = "remove";
+    public static final String CHANGE = "change";
+    public static final String REORDER = "reorder";
+    public static final String CLEAR = "clear";
+    public static final String GROUP = "group";
+    public static final String UNGROUP = "ungroup";
+
+    private static final EventType TYPE = EventType.getEventType(ModelMutationEvent.class);
+
+    @Label("Operation")
+    private final String operation;
+
+    @Label("Figures")
+    @Description("Number of figures in the model after the mutation")
+    private int figures;
+
+    @Label("Listeners")
+    @Description("Number of model listeners notified")
+    private int listeners;
+
+    /**
+     * Returns whether the events are currently recorded. Models check this
+     * before creating an event, so that mutations allocate nothing without an
+     * active recording.
+     *
+     * @return <code>true</code> if a recording has enabled this event
+     */
+    public static boolean isRecorded() {
+        return TYPE.isEnabled();
+    }
+
+    /**
+     * Creates and begins an event for the given operation.
+     *
+     * @param operation one of the operation constants of this class
+     */
+    public ModelMutationEvent(String operation) {
+        this.operation = operation;
+        begin();
+    }
+
+    /**
+     * Ends the event and commits it if it is recorded.
+     *
+     * @param figures   the number of figures in the model after the mutation
+     * @param listeners the number of listeners notified
+     */
+    public void end(int figures, int listeners) {
+        if (shouldCommit()) {
+            this.figures = figures;
+            this.listeners = listeners;
+            commit();
+        }
+    }
+}
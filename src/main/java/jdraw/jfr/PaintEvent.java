@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.jfr;
+
+import java.awt.Rectangle;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Event for a paint pass of a draw view.
+ */
+@Name("jdraw.Paint")
+@Label("Paint")
+@Category({ "JDraw", "Rendering" })
+@Description("A draw view painted its figures and handles")
+public final class PaintEvent extends Event {
+
+    private static final EventType TYPE = EventType.getEventType(PaintEvent.class);
+
+    @Label("Clip Width")
+    private int clipWidth;
+
+    @Label("Clip Height")
+    private int clipHeight;
+
+    @Label("Zoom")
+    private double zoom;
+
+    @Label("Tiles Rendered")
+    @Description("Number of tiles which were not cached and had to be rendered")
+    private int tilesRendered;
+
+    @Label("Handles")
+    private int handles;
+
+    /**
+     * Returns whether the events are currently recorded. Views check this before
+     * creating an event, so that painting allocates nothing without an active
+     * recording.
+     *
+     * @return <code>true</code> if a recording has enabled this event
+     */
+    public static boolean isRecorded() {
+        return TYPE.isEnabled();
+    }
+
+    /** Creates and begins a paint event. */
+    public PaintEvent() {
+        begin();
+    }
+
+    /**
+     * Ends the event and commits it if it is recorded.
+     *
+     * @param clip          the painted area in pixels, or <code>null</code>
+     * @param zoom          the zoom of the view
+     * @param tilesRendered the number of tiles rendered
+     * @param handles       the number of handles drawn
+     */
+    public void end(Rectangle clip, double zoom, int tilesRendered, int handles) {
+        if (shouldCommit()) {
+            if (clip != null) {
+                this.clipWidth = clip.width;
+                this.clipHeight = clip.height;
+            }
+            this.zoom = zoom;
+            this.tilesRendered = tilesRendered;
+            this.handles = handles;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.jfr;
+
+import jdraw.framework.DrawCommand;
+import jdraw.framework.DrawCommandHandler;
+
+/**
+ * A decorator of a draw command handler which emits a {@link CommandEvent} for
+ * every command added to the history, every undo and redo and the begin and
+ * end of every script. All operations are delegated to the decorated handler.
+ */
+public final class RecordingDrawCommandHandler implements DrawCommandHandler {
+
+    /** The decorated command handler. */
+    private final DrawCommandHandler handler;
+
+    /**
+     * Creates a recording decorator of the given command handler.
+     *
+     * @param handler the command handler to which all operations are delegated
+     */
+    public RecordingDrawCommandHandler(DrawCommandHandler handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public void addCommand(DrawCommand cmd) {
+        CommandEvent event = new CommandEvent(CommandEvent.ADD);
+        handler.addCommand(cmd);
+        event.end(cmd);
+    }
+
+    @Override
+    public void undo() {
+        CommandEvent event = new CommandEvent(CommandEvent.UNDO);
+        try {
+            handler.undo();
+        } finally {
+            event.end(null);
+        }
+    }
+
+    @Override
+    public void redo() {
+        CommandEvent event = new CommandEvent(CommandEvent.REDO);
+        try {
+            handler.redo();
+        } finally {
+            event.end(null);
+        }
+    }
+
+    @Override
+    public boolean undoPossible() {
+        return handler.undoPossible();
+    }
+
+    @Override
+    public boolean redoPossible() {
+        return handler.redoPossible();
+    }
+
+    @Override
+    public void beginScript() {
+        CommandEvent event = new CommandEvent(CommandEvent.BEGIN_SCRIPT);
+        handler.beginScript();
+        event.end(null);
+    }
+
+    @Override
+    public void endScript() {
+        CommandEvent event = new CommandEvent(CommandEvent.END_SCRIPT);
+        handler.endScript();
+        event.end(null);
+    }
+
+    @Override
+    public void clearHistory() {
+        handler.clearHistory();
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import jdraw.framework.DrawView;
+
+/**
+ * Event for a mouse interaction handled by a draw tool (mouse down, drag or
+ * up), including all model changes caused by the tool.
+ */
+@Name("jdraw.Tool")
+@Label("Tool Interaction")
+@Category({ "JDraw", "Tools" })
+@Description("A draw tool handled a mouse down, drag or up")
+public final class ToolEvent extends Event {
+
+    /** Phases of a tool interaction. */
+    public static final String MOUSE_DOWN = "mouseDown";
+    public static final String MOUSE_DRAG = "mouseDrag";
+    public static final String MOUSE_UP = "mouseUp";
+
+    private static final EventType TYPE = EventType.getEventType(ToolEvent.class);
+
+    @Label("Tool")
+    private final String tool;
+
+    @Label("Phase")
+    private final String phase;
+
+    @Label("X")
+    private final int x;
+
+    @Label("Y")
+    private final int y;
+
+    @Label("Figures")
+    @Description("Number of figures in the model after the interaction")
+    private int figures;
+
+    @Label("Selection")
+    @Description("Number of selected figures after the interaction")
+    private int selection;
+
+    /**
+     * Returns whether the events are currently recorded. Tools check this before
+     * creating an event, so that mouse drags allocate nothing without an active
+     * recording.
+     *
+     * @return <code>true</code> if a recording has enabled this event
+     */
+    public static boolean isRecorded() {
+        return TYPE.isEnabled();
+    }
+
+    /**
+     * Creates and begins an event for the given interaction.
+     *
+     * @param tool  the name of the tool
+     * @param phase one of the phase constants of this class
+     * @param x     the x-coordinate of the mouse in drawing coordinates
+     * @param y     the y-coordinate of the mouse in drawing coordinates
+     */
+    public ToolEvent(String tool, String phase, int x, int y) {
+        this.tool = tool;
+        this.phase = phase;
+        this.x = x;
+        this.y = y;
+        begin();
+    }
+
+    /**
+     * Ends the event and commits it if it is recorded.
+     *
+     * @param view the view the tool works on
+     */
+    public void end(DrawView view) {
+        if (shouldCommit()) {
+            this.figures = (int) view.getModel().getFigures().count();
+            this.selection = view.getSelection().size();
+            commit();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+/**
+ * This package contains the Java Flight Recorder events emitted by the JDraw
+ * editor. They mark the operations which run on the event dispatch thread
+ * (model mutations, commands, tool interactions, paints and file I/O), so a
+ * recording shows which operation was running when the user interface stalled.
+ *
+ * All events are in the category "JDraw" and carry the duration of the
+ * operation. Recording is started as usual, e.g. with
+ * <code>java -XX:StartFlightRecording=filename=jdraw.jfr jdraw.JDraw</code>;
+ * without an active recording the events are not committed and cost next to
+ * nothing.
+ */
+package jdraw.jfr;
@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.net;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import jdraw.figures.Line;
+import jdraw.figures.Oval;
+import jdraw.figures.Rect;
+import jdraw.framework.Figure;
+
+/**
+ * A ChangeRecord describes a single change of a shared drawing. Records are
+ * sent by the clients to the {@link DrawingServer}, which applies them to the
+ * authoritative model in the order in which they arrive, assigns them a
+ * position in the change log and sends them to all clients.
+ *
+ * Figures are identified by a number which is unique within the shared
+ * drawing; the upper 32 bits are the number of the client which created the
+ * figure. Only rectangles, ovals and lines can be shared. A record has a fixed
+ * size of {@link #SIZE} bytes on the wire.
+ */
+public final class ChangeRecord {
+
+    /** The kind of change. */
+    public enum Op {
+        /** Sent by the server to a new client; the client field is its number. */
+        HELLO,
+        /** A figure has been added on top of the drawing. */
+        ADD,
+        /** The geometry of a figure has changed. */
+        CHANGE,
+        /** A figure has been removed. */
+        REMOVE,
+        /** A figure has been moved to the index given by the first coordinate. */
+        REORDER,
+        /** All figures have been removed. */
+        CLEAR
+    }
+
+    /** Number of bytes of a record on the wire. */
+    public static final int SIZE = 1 + 4 + 8 + 8 + 8 + 1 + 4 * 4;
+
+    /** Kinds of the figures which can be shared. */
+    static final byte NONE = 0;
+    static final byte RECT = 1;
+    static final byte OVAL = 2;
+    static final byte LINE = 3;
+
+    private static final Op[] OPS = Op.values();
+
+    private final Op op;
+    private final int client;
+    private final long sequence;
+    private final long position;
+    private final long figure;
+    private final byte kind;
+    private final int x1;
+    private final int y1;
+    private final int x2;
+    private final int y2;
+
+    ChangeRecord(Op op, int client, long sequence, long position, long figure, byte kind, int x1, int y1, int x2,
+            int y2) {
+        this.op = op;
+        this.client = client;
+        this.sequence = sequence;
+        this.position = position;
+        this.figure = figure;
+        this.kind = kind;
+        this.x1 = x1;
+        this.y1 = y1;
+        this.x2 = x2;
+        this.y2 = y2;
+    }
+
+    /**
+     * Creates a record without a figure (HELLO, CLEAR) or referring to a figure
+     * by its number only (REMOVE, REORDER).
+     */
+    static ChangeRecord of(Op op, int client, long sequence, long figure, int index) {
+        return new ChangeRecord(op, client, sequence, 0, figure, NONE, index, 0, 0, 0);
+    }
+
+    /**
+     * Creates an ADD or CHANGE record carrying the geometry of a figure.
+     *
+     * @return the record, or <code>null</code> if the figure cannot be shared
+     */
+    static ChangeRecord of(Op op, int client, long sequence, long id, Figure f) {
+        byte kind = kindOf(f);
+        if (kind == NONE) {
+            return null;
+        }
+        if (kind == LINE) {
+            Line line = (Line) f;
+            Point start = line.getStart();
+            Point end = line.getEnd();
+            return new ChangeRecord(op, client, sequence, 0, id, kind, start.x, start.y, end.x, end.y);
+        }
+        Rectangle r = f.getBounds();
+        return new ChangeRecord(op, client, sequence, 0, id, kind, r.x, r.y, r.x + r.width, r.y + r.height);
+    }
+
+    /**
+     * Returns the kind of a figure, or NONE if figures of its class are not
+     * shared. Subclasses are not shared as they may carry additional state.
+     */
+    static byte kindOf(Figure f) {
+        if (f.getClass() == Rect.class) {
+            return RECT;
+        } else if (f.getClass() == Oval.class) {
+            return OVAL;
+        } else if (f.getClass() == Line.class) {
+            return LINE;
+        }
+        return NONE;
+    }
+
+    /** Returns a copy of this record at the given position of the change log. */
+    ChangeRecord at(long position) {
+        return new ChangeRecord(op, client, sequence, position, figure, kind, x1, y1, x2, y2);
+    }
+
+    /**
+     * Creates the figure described by an ADD record.
+     *
+     * @return a new figure
+     */
+    Figure createFigure() {
+        Figure f;
+        switch (kind) {
+        case RECT:
+            f = new Rect(x1, y1, x2 - x1, y2 - y1);
+            break;
+        case OVAL:
+            f = new Oval(x1, y1, x2 - x1, y2 - y1);
+            break;
+        case LINE:
+            f = new Line(x1, y1);
+            break;
+        default:
+            throw new IllegalStateException("no figure in " + op + " record");
+        }
+        applyTo(f);
+        return f;
+    }
+
+    /**
+     * Sets the geometry of a figure to the one described by this record.
+     *
+     * @param f the figure, of the kind of this record
+     */
+    void applyTo(Figure f) {
+        f.setBounds(new Point(x1, y1), new Point(x2, y2));
+    }
+
+    /**
+     * Writes the record.
+     *
+     * @param out the output
+     * @throws IOException if the record cannot be written
+     */
+    void write(DataOutput out) throws IOException {
+        out.writeByte(op.ordinal());
+        out.writeInt(client);
+        out.writeLong(sequence);
+        out.writeLong(position);
+        out.writeLong(figure);
+        out.writeByte(kind);
+        out.writeInt(x1);
+        out.writeInt(y1);
+        out.writeInt(x2);
+        out.writeInt(y2);
+    }
+
+    /**
+     * Reads a record written by {@link #write(DataOutput)}.
+     *
+     * @param in the input
+     * @return the record
+     * @throws IOException if the record cannot be read or is malformed
+     */
+    static ChangeRecord read(DataInput in) throws IOException {
+        int op = in.readUnsignedByte();
+        if (op >= OPS.length) {
+            throw new IOException("unknown operation " + op);
+        }
+        return new ChangeRecord(OPS[op], in.readInt(), in.readLong(), in.readLong(), in.readLong(), in.readByte(),
+                in.readInt(), in.readInt(), in.readInt(), in.readInt());
+    }
+
+    public Op getOp() {
+        return op;
+    }
+
+    /**
+     * Returns the number of the client which made the change, 0 for records
+     * created by the server.
+     *
+     * @return the number of the client
+     */
+    public int getClient() {
+        return client;
+    }
+
+    /**
+     * Returns the sequence number of the operation, counted per client.
+     *
+     * @return the sequence number
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the position of the record in the change log of the server, 0 for
+     * records which have not been applied by the server yet.
+     *
+     * @return the position in the change log
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns the number of the figure the record refers to.
+     *
+     * @return the number of the figure
+     */
+    public long getFigure() {
+        return figure;
+    }
+
+    /**
+     * Returns the index of a REORDER record.
+     *
+     * @return the new index of the figure
+     */
+    public int getIndex() {
+        return x1;
+    }
+
+    @Override
+    public String toString() {
+        return op + "[client=" + client + ", seq=" + sequence + ", pos=" + position + ", figure="
+                + Long.toHexString(figure) + "]";
+    }
+}
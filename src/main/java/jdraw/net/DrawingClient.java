@@ -0,0 +1,606 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.net;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import jdraw.framework.DrawModel;
+import jdraw.framework.DrawModelEvent;
+import jdraw.framework.DrawModelListener;
+import jdraw.framework.Figure;
+import jdraw.framework.FigureGroup;
+import jdraw.net.ChangeRecord.Op;
+
+import org.apache.log4j.Logger;
+
+/**
+ * The DrawingClient shares a local model with the other clients of a
+ * {@link DrawingServer}. Local changes of the model are sent to the server as
+ * {@link ChangeRecord}s, numbered by a sequence number per client; the changes
+ * of the other clients are received from the server and applied to the local
+ * model.
+ *
+ * The model is only accessed through the executor passed to the client, which
+ * has to be the thread modifying the model (the event dispatch thread for the
+ * model of the editor). Received changes are collected by a reader thread and
+ * applied in batches: a batch contains all changes received since the previous
+ * batch was applied, and consecutive additions are added with a single
+ * {@link DrawModel#addFigures(java.util.Collection)}.
+ *
+ * The server decides the order of the changes. A remote change of a figure
+ * which has a local change not yet confirmed by the server is not applied, as
+ * the local change has been applied after it by the server. The figures of the
+ * local model at the time of the connection are sent to the server, i.e. they
+ * are added to the shared drawing. Figures other than rectangles, ovals and
+ * lines (e.g. groups) are not shared. Shared figures cannot be grouped, as the
+ * other editors would lose them; the editor therefore disables its Group
+ * action while the drawing is shared, and a group containing shared figures
+ * is replaced by its parts again.
+ *
+ * <PRE>
+ * DrawingClient client = new DrawingClient(model, SwingUtilities::invokeLater);
+ * client.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), DrawingServer.DEFAULT_PORT));
+ * </PRE>
+ */
+public class DrawingClient {
+
+    private static final Logger LOGGER = Logger.getLogger(DrawingClient.class);
+
+    private final DrawModel model;
+    private final Executor executor;
+    private final DrawModelListener listener = this::modelChanged;
+
+    /** The shared figures of the local model, only accessed through the executor. */
+    private final Map<Long, Figure> figures = new HashMap<>();
+    private final Map<Figure, Long> ids = new IdentityHashMap<>();
+
+    /**
+     * The sequence numbers of the last local change per figure, until the server
+     * has sent the change back; only accessed through the executor.
+     */
+    private final Map<Long, Long> unconfirmed = new HashMap<>();
+
+    /**
+     * Number of figures of the local model after the last event, the figures
+     * added by a {@link DrawModelEvent.Type#FIGURES_ADDED} event follow them;
+     * only accessed through the executor.
+     */
+    private int size;
+
+    /** Whether received changes are being applied; only accessed through the executor. */
+    private boolean applying;
+
+    /** Number of local figures whose addition the server has not sent back yet. */
+    private int unconfirmedAdds;
+    /**
+     * Whether figures of other clients have been added while local additions
+     * were unconfirmed, i.e. the local z-order may differ from the one of the
+     * server.
+     */
+    private boolean interleaved;
+
+    /** Records received but not applied yet, guarded by this. */
+    private List<ChangeRecord> received = new ArrayList<>();
+    /** Whether a batch has been passed to the executor, guarded by this. */
+    private boolean scheduled;
+
+    private final BlockingQueue<ChangeRecord> outgoing = new LinkedBlockingQueue<>();
+
+    private Socket socket;
+    private Thread writer;
+    private int id;
+    /** Number of the figures created by this client. */
+    private int created;
+    /** Sequence number of the last local change. */
+    private long sequence;
+
+    /** Sequence number of the last local change sent back by the server, guarded by this. */
+    private long confirmed;
+    /** Position of the last record applied, guarded by this. */
+    private long applied;
+    /** Number of batches applied, guarded by this. */
+    private long batches;
+    private volatile boolean connected;
+
+    /**
+     * Creates a client for a local model.
+     *
+     * @param model    the local model
+     * @param executor the executor on which the model is accessed
+     */
+    public DrawingClient(DrawModel model, Executor executor) {
+        this.model = model;
+        this.executor = executor;
+    }
+
+    /**
+     * Connects to a server. The client starts to listen to the model through the
+     * executor.
+     *
+     * @param address the address of the server
+     * @throws IOException if the connection fails
+     */
+    public synchronized void connect(InetSocketAddress address) throws IOException {
+        if (socket != null) {
+            throw new IllegalStateException("already connected");
+        }
+        socket = new Socket();
+        socket.setTcpNoDelay(true);
+        socket.connect(address);
+        DataInputStream in = new DataInputStream(
+                new BufferedInputStream(socket.getInputStream(), DrawingServer.BUFFER_SIZE));
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(socket.getOutputStream(), DrawingServer.BUFFER_SIZE));
+        ChangeRecord hello = ChangeRecord.read(in);
+        if (hello.getOp() != Op.HELLO) {
+            socket.close();
+            throw new IOException("unexpected record " + hello);
+        }
+        id = hello.getClient();
+        applied = hello.getPosition();
+        connected = true;
+
+        // runs before the first batch, the executor keeps the order
+        executor.execute(this::attach);
+        Thread reader = new Thread(() -> read(in), "drawing client " + id + " reader");
+        reader.setDaemon(true);
+        reader.start();
+        writer = new Thread(() -> write(out), "drawing client " + id + " writer");
+        writer.setDaemon(true);
+        writer.start();
+        LOGGER.info("connected to " + address + " as client " + id);
+    }
+
+    /** Stops sharing the model and closes the connection. */
+    public void close() {
+        connected = false;
+        executor.execute(() -> model.removeModelChangeListener(listener));
+        Socket s;
+        synchronized (this) {
+            s = socket;
+        }
+        if (s != null) {
+            writer.interrupt();
+            try {
+                s.close();
+            } catch (IOException e) {
+                LOGGER.warn("socket could not be closed", e);
+            }
+        }
+    }
+
+    /**
+     * Returns whether the client is connected to the server.
+     *
+     * @return true while the connection is open
+     */
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * Returns the number the server has assigned to this client.
+     *
+     * @return the client number
+     */
+    public synchronized int getClientId() {
+        return id;
+    }
+
+    /**
+     * Returns the sequence number of the last local change. Must be called
+     * through the executor.
+     *
+     * @return the sequence number of the last change sent
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the sequence number of the last local change which the server has
+     * applied and sent back.
+     *
+     * @return the last confirmed sequence number
+     */
+    public synchronized long getConfirmedSequence() {
+        return confirmed;
+    }
+
+    /**
+     * Returns the position in the change log of the server up to which the
+     * changes have been applied to the local model.
+     *
+     * @return the position of the last applied record
+     */
+    public synchronized long getAppliedPosition() {
+        return applied;
+    }
+
+    /**
+     * Returns the number of batches of received changes applied so far.
+     *
+     * @return the number of batches
+     */
+    public synchronized long getBatchCount() {
+        return batches;
+    }
+
+    /**
+     * Waits until the server has sent back the local change with the given
+     * sequence number.
+     *
+     * @param seq     the sequence number
+     * @param timeout the maximal time to wait in milliseconds
+     * @return true if the change has been confirmed in time
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public synchronized boolean awaitConfirmed(long seq, long timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        while (confirmed < seq && connected) {
+            long rest = deadline - System.currentTimeMillis();
+            if (rest <= 0) {
+                return false;
+            }
+            wait(rest);
+        }
+        return confirmed >= seq;
+    }
+
+    /**
+     * Waits until the changes up to the given position of the change log have
+     * been applied to the local model.
+     *
+     * @param position the position in the change log
+     * @param timeout  the maximal time to wait in milliseconds
+     * @return true if the changes have been applied in time
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public synchronized boolean awaitApplied(long position, long timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        while (applied < position && connected) {
+            long rest = deadline - System.currentTimeMillis();
+            if (rest <= 0) {
+                return false;
+            }
+            wait(rest);
+        }
+        return applied >= position;
+    }
+
+    /** Registers the listener and shares the figures of the local model; runs on the executor. */
+    private void attach() {
+        model.addModelChangeListener(listener);
+        model.getFigures().forEachOrdered(this::share);
+        size = (int) model.getFigures().count();
+    }
+
+    /** Sends a local change to the server; runs on the executor. */
+    private void modelChanged(DrawModelEvent e) {
+        int before = size;
+        updateSize(e);
+        if (applying) {
+            return;
+        }
+        Figure f = e.getFigure();
+        Long figure = f != null ? ids.get(f) : null;
+        switch (e.getType()) {
+        case FIGURE_ADDED:
+            share(f);
+            break;
+        case FIGURES_ADDED:
+            // the figures have been added on top of the ones known before
+            model.getFigures().skip(before).forEachOrdered(g -> {
+                if (!ids.containsKey(g)) {
+                    share(g);
+                }
+            });
+            break;
+        case FIGURE_CHANGED:
+            if (figure != null) {
+                send(ChangeRecord.of(Op.CHANGE, id, ++sequence, figure, f));
+                unconfirmed.put(figure, sequence);
+            }
+            break;
+        case FIGURE_REMOVED:
+            if (figure != null) {
+                forget(figure);
+                send(ChangeRecord.of(Op.REMOVE, id, ++sequence, figure, 0));
+            }
+            break;
+        case DRAWING_CHANGED:
+            if (figure != null) {
+                send(ChangeRecord.of(Op.REORDER, id, ++sequence, figure, indexOf(f)));
+            } else if (f == null) {
+                // several figures have been moved
+                sendOrder();
+            }
+            break;
+        case FIGURES_GROUPED:
+            // groups are not shared, so the editor disables grouping; a group
+            // made otherwise is replaced by its parts after this event, which
+            // remain shared meanwhile
+            if (((FigureGroup) f).getFigureParts().anyMatch(ids::containsKey)) {
+                LOGGER.warn("shared figures cannot be grouped");
+                executor.execute(() -> refuse(f));
+            }
+            break;
+        case FIGURES_UNGROUPED:
+            ((FigureGroup) f).getFigureParts().forEach(p -> {
+                if (!ids.containsKey(p)) {
+                    share(p);
+                }
+            });
+            // the parts have taken the place of the group
+            sendOrder();
+            break;
+        case DRAWING_CLEARED:
+            figures.clear();
+            ids.clear();
+            unconfirmed.clear();
+            send(ChangeRecord.of(Op.CLEAR, id, ++sequence, 0, 0));
+            break;
+        default:
+            break;
+        }
+    }
+
+    /** Updates the number of figures of the local model after an event; runs on the executor. */
+    private void updateSize(DrawModelEvent e) {
+        switch (e.getType()) {
+        case FIGURE_ADDED:
+            size++;
+            break;
+        case FIGURE_REMOVED:
+            size--;
+            break;
+        case DRAWING_CLEARED:
+            size = 0;
+            break;
+        case FIGURES_ADDED:
+        case FIGURES_GROUPED:
+        case FIGURES_UNGROUPED:
+            size = (int) model.getFigures().count();
+            break;
+        default:
+            break;
+        }
+    }
+
+    /** Replaces a group of shared figures by its parts again; runs on the executor. */
+    private void refuse(Figure group) {
+        if (model.getFigures().anyMatch(g -> g == group)) {
+            model.ungroupFigure(group);
+        }
+    }
+
+    /** Adds a local figure to the shared drawing; runs on the executor. */
+    private void share(Figure f) {
+        long figure = ((long) id << 32) | (++created & 0xFFFFFFFFL);
+        ChangeRecord r = ChangeRecord.of(Op.ADD, id, sequence + 1, figure, f);
+        if (r == null) {
+            LOGGER.debug("figure not shared: " + f.getClass().getName());
+            return;
+        }
+        sequence++;
+        unconfirmedAdds++;
+        figures.put(figure, f);
+        ids.put(f, figure);
+        send(r);
+    }
+
+    /**
+     * Sends the index of every shared figure, from the back to the front such
+     * that each one ends up at its index; runs on the executor.
+     */
+    private void sendOrder() {
+        int[] index = { 0 };
+        model.getFigures().forEachOrdered(g -> {
+            Long shared = ids.get(g);
+            if (shared != null) {
+                send(ChangeRecord.of(Op.REORDER, id, ++sequence, shared, index[0]));
+            }
+            index[0]++;
+        });
+    }
+
+    private void forget(long figure) {
+        Figure f = figures.remove(figure);
+        if (f != null) {
+            ids.remove(f);
+        }
+        unconfirmed.remove(figure);
+    }
+
+    private int indexOf(Figure f) {
+        int index = 0;
+        for (Iterator<? extends Figure> it = model.getFigures().iterator(); it.hasNext(); index++) {
+            if (it.next() == f) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private void send(ChangeRecord r) {
+        if (connected) {
+            outgoing.add(r);
+        }
+    }
+
+    /** Receives the records of the server; runs on the reader thread. */
+    private void read(DataInputStream in) {
+        try {
+            while (true) {
+                ChangeRecord r = ChangeRecord.read(in);
+                boolean schedule;
+                synchronized (this) {
+                    received.add(r);
+                    schedule = !scheduled;
+                    scheduled = true;
+                }
+                if (schedule) {
+                    executor.execute(this::applyBatch);
+                }
+            }
+        } catch (EOFException | SocketException e) {
+            // the connection has been closed
+        } catch (IOException e) {
+            LOGGER.warn("connection failed", e);
+        }
+        connected = false;
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+
+    /** Sends the local changes in batches; runs on the writer thread. */
+    private void write(DataOutputStream out) {
+        List<ChangeRecord> batch = new ArrayList<>();
+        try {
+            while (true) {
+                batch.add(outgoing.take());
+                outgoing.drainTo(batch);
+                for (ChangeRecord r : batch) {
+                    r.write(out);
+                }
+                out.flush();
+                batch.clear();
+            }
+        } catch (IOException e) {
+            LOGGER.warn("connection failed", e);
+            connected = false;
+        } catch (InterruptedException e) {
+            // the client has been closed
+        }
+    }
+
+    /** Applies all records received so far; runs on the executor. */
+    private void applyBatch() {
+        List<ChangeRecord> batch;
+        synchronized (this) {
+            batch = received;
+            received = new ArrayList<>();
+            scheduled = false;
+        }
+        long mine = 0;
+        List<Figure> added = new ArrayList<>();
+        applying = true;
+        try {
+            for (ChangeRecord r : batch) {
+                if (r.getClient() == id) {
+                    mine = r.getSequence();
+                    Long last = unconfirmed.get(r.getFigure());
+                    if (last != null && last == mine) {
+                        unconfirmed.remove(r.getFigure());
+                    }
+                    if (r.getOp() == Op.ADD) {
+                        flush(added);
+                        confirmAdd(r);
+                    }
+                    continue;
+                }
+                if (r.getOp() != Op.ADD) {
+                    flush(added);
+                }
+                apply(r, added);
+            }
+            flush(added);
+        } finally {
+            applying = false;
+        }
+        synchronized (this) {
+            if (!batch.isEmpty()) {
+                applied = Math.max(applied, batch.get(batch.size() - 1).getPosition());
+            }
+            confirmed = Math.max(confirmed, mine);
+            batches++;
+            notifyAll();
+        }
+    }
+
+    private void flush(List<Figure> added) {
+        if (!added.isEmpty()) {
+            model.addFigures(added);
+            added.clear();
+        }
+    }
+
+    /**
+     * Moves a local figure sent back by the server to the top, if figures of
+     * other clients have been put above it in the meantime. Done for all local
+     * additions in the order of the server, this restores its z-order.
+     */
+    private void confirmAdd(ChangeRecord r) {
+        Figure f = figures.get(r.getFigure());
+        if (interleaved && f != null) {
+            model.setFigureIndex(f, (int) model.getFigures().count() - 1);
+        }
+        if (--unconfirmedAdds <= 0) {
+            unconfirmedAdds = 0;
+            interleaved = false;
+        }
+    }
+
+    /** Applies a change of another client; runs on the executor. */
+    private void apply(ChangeRecord r, List<Figure> added) {
+        Figure f = figures.get(r.getFigure());
+        switch (r.getOp()) {
+        case ADD:
+            if (f == null) {
+                f = r.createFigure();
+                figures.put(r.getFigure(), f);
+                ids.put(f, r.getFigure());
+                added.add(f);
+                interleaved |= unconfirmedAdds > 0;
+            }
+            break;
+        case CHANGE:
+            // a local change not yet confirmed has been applied after this one
+            if (f != null && !unconfirmed.containsKey(r.getFigure())) {
+                r.applyTo(f);
+            }
+            break;
+        case REMOVE:
+            if (f != null) {
+                forget(r.getFigure());
+                model.removeFigure(f);
+            }
+            break;
+        case REORDER:
+            if (f != null) {
+                int size = (int) model.getFigures().count();
+                model.setFigureIndex(f, Math.max(0, Math.min(r.getIndex(), size - 1)));
+            }
+            break;
+        case CLEAR:
+            figures.clear();
+            ids.clear();
+            unconfirmed.clear();
+            model.removeAllFigures();
+            break;
+        default:
+            break;
+        }
+    }
+}
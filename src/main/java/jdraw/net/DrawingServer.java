@@ -0,0 +1,373 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.net;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import jdraw.framework.DrawModel;
+import jdraw.framework.Figure;
+import jdraw.net.ChangeRecord.Op;
+
+import org.apache.log4j.Logger;
+
+/**
+ * The DrawingServer holds the authoritative model of a drawing shared by
+ * several editors, see {@link DrawingClient}. It listens on the loopback
+ * interface only.
+ *
+ * All changes pass through a single sequencer thread, which applies them to
+ * the model and appends them to the change log, i.e. gives them the next
+ * position. Every applied change is sent to all clients, including the one
+ * which made it, so all clients see the changes in the same order. A change
+ * referring to a figure which no longer exists is dropped. A new client first
+ * receives the current figures of the model, then the changes made after it
+ * has connected.
+ *
+ * Each client has its own writer thread, which sends all records queued since
+ * its last write with a single flush. A slow client therefore receives larger
+ * batches instead of slowing down the others; its queue is not bounded.
+ *
+ * <PRE>
+ * DrawingServer server = new DrawingServer(new StdDrawModel());
+ * server.start(DrawingServer.DEFAULT_PORT);
+ * </PRE>
+ */
+public class DrawingServer {
+
+    /** The port used if none is given. */
+    public static final int DEFAULT_PORT = 7431;
+
+    private static final Logger LOGGER = Logger.getLogger(DrawingServer.class);
+
+    /** Size of the socket buffers. */
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    /** The authoritative model, only accessed by the sequencer. */
+    private final DrawModel model;
+
+    /** The figures of the model by number and the numbers by figure, only accessed by the sequencer. */
+    private final Map<Long, Figure> figures = new HashMap<>();
+    private final Map<Figure, Long> ids = new IdentityHashMap<>();
+
+    /** The connected clients, only accessed by the sequencer. */
+    private final List<Connection> connections = new ArrayList<>();
+
+    private final ExecutorService sequencer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "drawing sequencer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private ServerSocket socket;
+
+    /** Position of the last record in the change log, written by the sequencer. */
+    private volatile long position;
+
+    /** Number assigned to the next client. */
+    private int nextClient = 1;
+
+    /**
+     * Creates a server for the given model. The model must not be modified by
+     * other threads after the server has been started.
+     *
+     * @param model the authoritative model
+     */
+    public DrawingServer(DrawModel model) {
+        this.model = model;
+        // figures already contained in the model belong to the server (client 0)
+        model.getFigures().forEachOrdered(f -> {
+            if (ChangeRecord.kindOf(f) != ChangeRecord.NONE) {
+                long id = ids.size() + 1;
+                figures.put(id, f);
+                ids.put(f, id);
+            }
+        });
+    }
+
+    /**
+     * Starts to accept clients on the loopback interface.
+     *
+     * @param port the port, or 0 for any free port
+     * @throws IOException if the port cannot be opened
+     */
+    public synchronized void start(int port) throws IOException {
+        if (socket != null) {
+            throw new IllegalStateException("server already started");
+        }
+        socket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::accept, "drawing server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        LOGGER.info("drawing server listening on " + socket.getLocalSocketAddress());
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return the port, or -1 if the server has not been started
+     */
+    public synchronized int getPort() {
+        return socket != null ? socket.getLocalPort() : -1;
+    }
+
+    /**
+     * Returns the position of the last record in the change log.
+     *
+     * @return the number of changes applied so far
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns the number of connected clients.
+     *
+     * @return the number of clients
+     */
+    public int getClientCount() {
+        return call(connections::size);
+    }
+
+    /**
+     * Runs a task on the sequencer, i.e. while no change is applied to the model.
+     * This is the only way to read the model of a running server.
+     *
+     * @param task the task
+     */
+    public void inspect(Runnable task) {
+        call(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /** Closes all connections and stops accepting clients. */
+    public void close() {
+        synchronized (this) {
+            if (socket != null) {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    LOGGER.warn("server socket could not be closed", e);
+                }
+            }
+        }
+        sequencer.execute(() -> {
+            for (Connection c : new ArrayList<>(connections)) {
+                c.close();
+            }
+        });
+        sequencer.shutdown();
+        try {
+            sequencer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private <T> T call(Callable<T> task) {
+        try {
+            return sequencer.submit(task).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void accept() {
+        while (true) {
+            Socket s;
+            try {
+                s = socket.accept();
+            } catch (IOException e) {
+                // the socket has been closed
+                return;
+            }
+            try {
+                s.setTcpNoDelay(true);
+                Connection c = new Connection(s);
+                sequencer.execute(() -> join(c));
+            } catch (IOException e) {
+                LOGGER.warn("client could not be connected", e);
+            }
+        }
+    }
+
+    /** Sends the current figures to a new client and starts its threads; runs on the sequencer. */
+    private void join(Connection c) {
+        c.id = nextClient++;
+        c.queue.add(ChangeRecord.of(Op.HELLO, c.id, 0, 0, 0).at(position));
+        model.getFigures().forEachOrdered(f -> {
+            Long id = ids.get(f);
+            if (id != null) {
+                c.queue.add(ChangeRecord.of(Op.ADD, 0, 0, id, f).at(position));
+            }
+        });
+        connections.add(c);
+        c.start();
+        LOGGER.info("client " + c.id + " connected");
+    }
+
+    /** Applies a change and sends it to all clients; runs on the sequencer. */
+    private void apply(ChangeRecord r) {
+        Figure f = figures.get(r.getFigure());
+        switch (r.getOp()) {
+        case ADD:
+            if (f != null) {
+                return;
+            }
+            f = r.createFigure();
+            figures.put(r.getFigure(), f);
+            ids.put(f, r.getFigure());
+            model.addFigure(f);
+            break;
+        case CHANGE:
+            if (f == null) {
+                return;
+            }
+            r.applyTo(f);
+            break;
+        case REMOVE:
+            if (f == null) {
+                return;
+            }
+            figures.remove(r.getFigure());
+            ids.remove(f);
+            model.removeFigure(f);
+            break;
+        case REORDER:
+            if (f == null) {
+                return;
+            }
+            // the model may contain figures which are not shared
+            int size = (int) model.getFigures().count();
+            model.setFigureIndex(f, Math.max(0, Math.min(r.getIndex(), size - 1)));
+            break;
+        case CLEAR:
+            figures.clear();
+            ids.clear();
+            model.removeAllFigures();
+            break;
+        default:
+            return;
+        }
+        ChangeRecord logged = r.at(++position);
+        for (Connection c : connections) {
+            c.queue.add(logged);
+        }
+    }
+
+    /** Removes a client; runs on the sequencer. */
+    private void leave(Connection c) {
+        if (connections.remove(c)) {
+            c.close();
+            LOGGER.info("client " + c.id + " disconnected");
+        }
+    }
+
+    /** A connected client with its reader and writer thread. */
+    private final class Connection {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private final BlockingQueue<ChangeRecord> queue = new LinkedBlockingQueue<>();
+        private int id;
+        private Thread writer;
+
+        Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE));
+        }
+
+        void start() {
+            Thread reader = new Thread(this::read, "drawing client " + id + " reader");
+            reader.setDaemon(true);
+            reader.start();
+            writer = new Thread(this::write, "drawing client " + id + " writer");
+            writer.setDaemon(true);
+            writer.start();
+        }
+
+        private void read() {
+            try {
+                while (true) {
+                    ChangeRecord r = ChangeRecord.read(in);
+                    if (r.getClient() != id || r.getOp() == Op.HELLO) {
+                        throw new IOException("unexpected record " + r);
+                    }
+                    sequencer.execute(() -> apply(r));
+                }
+            } catch (EOFException | SocketException e) {
+                // the client has disconnected
+            } catch (IOException e) {
+                LOGGER.warn("client " + id + " failed", e);
+            } catch (RejectedExecutionException e) {
+                // the server is closed
+                return;
+            }
+            try {
+                sequencer.execute(() -> leave(this));
+            } catch (RejectedExecutionException e) {
+                // the server is closed
+            }
+        }
+
+        private void write() {
+            List<ChangeRecord> batch = new ArrayList<>();
+            try {
+                while (true) {
+                    batch.add(queue.take());
+                    queue.drainTo(batch);
+                    for (ChangeRecord r : batch) {
+                        r.write(out);
+                    }
+                    out.flush();
+                    batch.clear();
+                }
+            } catch (IOException e) {
+                close();
+            } catch (InterruptedException e) {
+                // the connection has been closed
+            }
+        }
+
+        void close() {
+            if (writer != null) {
+                writer.interrupt();
+            }
+            try {
+                socket.close();
+            } catch (IOException e) {
+                LOGGER.warn("client socket could not be closed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+/**
+ * This package contains the sharing of a drawing between several editors. A
+ * {@link jdraw.net.DrawingServer} holds the authoritative model and a change
+ * log; each editor connects its model with a {@link jdraw.net.DrawingClient}.
+ * Changes are exchanged as fixed size {@link jdraw.net.ChangeRecord}s over TCP
+ * on the loopback interface.
+ */
+package jdraw.net;
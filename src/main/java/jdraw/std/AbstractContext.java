@@ -43,6 +43,8 @@ import jdraw.framework.DrawTool;
 import jdraw.framework.DrawToolFactory;
 import jdraw.framework.DrawView;
 
+import org.apache.log4j.Logger;
+
 /**
  * Standard implementation of interface DrawContext. This implementation uses a
  * JFrame as container element. It provides common initialization and behaviour
@@ -56,6 +58,8 @@ import jdraw.framework.DrawView;
 @SuppressWarnings("serial")
 public abstract class AbstractContext extends JFrame implements DrawContext {
 
+    private static final Logger LOGGER = Logger.getLogger(AbstractContext.class);
+
     /** Default width of view. */
     private static final int DEFAULT_WIDTH = 300;
     /** Default height of view. */
@@ -64,6 +68,9 @@ public abstract class AbstractContext extends JFrame implements DrawContext {
     /** The view contains the drawing shown in this editor. */
     private DrawView view;
 
+    /** Thumbnail of the whole drawing used to navigate the view. */
+    private OverviewPanel overview;
+
     /**
      * This field is used to assert that the initGUI method is called exactly once.
      */
@@ -159,8 +166,13 @@ public abstract class AbstractContext extends JFrame implements DrawContext {
             this.setTitle("<" + this.getTitle() + ":" + windowNr + ">");
         }
 
+        overview = new OverviewPanel(view, scrollPane.getViewport());
+        final JPanel overviewPanel = new JPanel(new BorderLayout());
+        overviewPanel.add(overview, BorderLayout.NORTH);
+
         content.add(toolBar, BorderLayout.NORTH);
         content.add(scrollPane, BorderLayout.CENTER);
+        content.add(overviewPanel, BorderLayout.EAST);
         this.getContentPane().add(content, BorderLayout.CENTER);
         this.getContentPane().add(statusField, BorderLayout.SOUTH);
 
@@ -260,6 +272,13 @@ public abstract class AbstractContext extends JFrame implements DrawContext {
         newWindow.addActionListener(e -> {
             JDraw.getContext().showView();
         });
+        JMenuItem listeners = new JMenuItem("Listener Report");
+        windowMenu.add(listeners);
+        listeners.addActionListener(e -> {
+            List<String> report = WeakModelListener.report();
+            report.forEach(LOGGER::info);
+            showStatusText(report.isEmpty() ? "no model listeners" : String.join("; ", report));
+        });
         return windowMenu;
     }
 
@@ -377,6 +396,7 @@ public abstract class AbstractContext extends JFrame implements DrawContext {
      */
     private void close() {
         view.close();
+        overview.close();
         if (windowNr == 0) {
             System.exit(0);
         } else {
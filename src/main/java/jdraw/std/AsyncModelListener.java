@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.std;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import jdraw.framework.DrawModelEvent;
+import jdraw.framework.DrawModelEvent.Type;
+import jdraw.framework.DrawModelListener;
+import jdraw.framework.Figure;
+
+import org.apache.log4j.Logger;
+
+/**
+ * The AsyncModelListener decouples a slow model listener (e.g. an autosave, an
+ * index or a second view) from the thread which modifies the model. It is
+ * registered with the model instead of the listener it wraps; the events are
+ * put into a bounded queue and delivered to the wrapped listener by its own
+ * executor, one at a time and in the order of the mutations. An edit therefore
+ * only costs the time to enqueue the event.
+ *
+ * <PRE>
+ * model.addModelChangeListener(new AsyncModelListener(index, indexExecutor, 1024, BackPressure.COALESCE));
+ * </PRE>
+ *
+ * If the queue is full, the {@link BackPressure} policy of the listener
+ * decides whether the model waits, the event is dropped or the pending events
+ * are coalesced. The wrapped listener is called on the executor, so it has to
+ * be thread-safe with respect to the model; a Swing view should use the event
+ * dispatch thread as executor.
+ */
+public final class AsyncModelListener implements DrawModelListener {
+
+    /** What happens to an event if the queue of the listener is full. */
+    public enum BackPressure {
+        /**
+         * The modifying thread waits until the listener has taken an event. Must not
+         * be used if the executor runs on the modifying thread (e.g. the event
+         * dispatch thread for a model edited in the editor).
+         */
+        BLOCK,
+        /** The event is dropped; the listener may miss changes. */
+        DROP,
+        /**
+         * A change of a figure which has a pending change is not queued again. If the
+         * queue is full nevertheless, all pending events are replaced by a
+         * {@link Type#DRAWING_CLEARED} event followed by a {@link Type#FIGURES_ADDED}
+         * event, i.e. the listener is told to rebuild its state from the model.
+         */
+        COALESCE
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(AsyncModelListener.class);
+
+    private final DrawModelListener listener;
+    private final Executor executor;
+    private final int capacity;
+    private final BackPressure policy;
+
+    /** Pending events, guarded by this. */
+    private final ArrayDeque<DrawModelEvent> queue = new ArrayDeque<>();
+
+    /** Figures with a pending change event, for coalescing; guarded by this. */
+    private final Set<Figure> pendingChanges = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /** Whether a drain task has been passed to the executor; guarded by this. */
+    private boolean draining;
+
+    /** Statistics, guarded by this. */
+    private long delivered;
+    private long dropped;
+    private long coalesced;
+
+    /**
+     * Creates an asynchronous listener.
+     *
+     * @param listener the listener the events are delivered to
+     * @param executor the executor delivering the events
+     * @param capacity the maximal number of pending events, at least 2
+     * @param policy   the policy applied if the queue is full
+     */
+    public AsyncModelListener(DrawModelListener listener, Executor executor, int capacity, BackPressure policy) {
+        if (listener == null || executor == null || policy == null) {
+            throw new IllegalArgumentException("listener, executor and policy must not be null");
+        }
+        if (capacity < 2) {
+            throw new IllegalArgumentException("capacity must be at least 2");
+        }
+        this.listener = listener;
+        this.executor = executor;
+        this.capacity = capacity;
+        this.policy = policy;
+    }
+
+    /**
+     * Returns the listener the events are delivered to.
+     *
+     * @return the wrapped listener
+     */
+    public DrawModelListener getListener() {
+        return listener;
+    }
+
+    /** Enqueues the event; called by the model. */
+    @Override
+    public void modelChanged(DrawModelEvent event) {
+        boolean schedule;
+        synchronized (this) {
+            if (!enqueue(event)) {
+                return;
+            }
+            schedule = !draining;
+            draining = true;
+        }
+        if (schedule) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private boolean enqueue(DrawModelEvent event) {
+        boolean change = event.getType() == Type.FIGURE_CHANGED;
+        if (policy == BackPressure.COALESCE && change && pendingChanges.contains(event.getFigure())) {
+            coalesced++;
+            return false;
+        }
+        if (queue.size() >= capacity) {
+            switch (policy) {
+            case BLOCK:
+                while (queue.size() >= capacity) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        dropped++;
+                        return false;
+                    }
+                }
+                break;
+            case DROP:
+                dropped++;
+                return false;
+            default:
+                // the pending events and the new one are replaced by two events
+                coalesced += queue.size() - 1;
+                queue.clear();
+                pendingChanges.clear();
+                queue.add(new DrawModelEvent(event.getModel(), null, Type.DRAWING_CLEARED));
+                queue.add(new DrawModelEvent(event.getModel(), null, Type.FIGURES_ADDED));
+                return true;
+            }
+        }
+        queue.add(event);
+        if (change && policy == BackPressure.COALESCE) {
+            pendingChanges.add(event.getFigure());
+        }
+        return true;
+    }
+
+    /** Delivers the pending events; runs on the executor. */
+    private void drain() {
+        while (true) {
+            DrawModelEvent event;
+            synchronized (this) {
+                event = queue.poll();
+                if (event == null) {
+                    draining = false;
+                    return;
+                }
+                if (event.getType() == Type.FIGURE_CHANGED) {
+                    pendingChanges.remove(event.getFigure());
+                }
+                delivered++;
+                notifyAll();
+            }
+            try {
+                listener.modelChanged(event);
+            } catch (RuntimeException e) {
+                // a failing listener must not stop the delivery of later events
+                LOGGER.error("model listener failed", e);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of events waiting to be delivered.
+     *
+     * @return the number of pending events
+     */
+    public synchronized int getPendingEvents() {
+        return queue.size();
+    }
+
+    /**
+     * Returns the number of events delivered to the listener so far.
+     *
+     * @return the number of delivered events
+     */
+    public synchronized long getDeliveredEvents() {
+        return delivered;
+    }
+
+    /**
+     * Returns the number of events dropped because the queue was full.
+     *
+     * @return the number of dropped events
+     */
+    public synchronized long getDroppedEvents() {
+        return dropped;
+    }
+
+    /**
+     * Returns the number of events merged into other events.
+     *
+     * @return the number of coalesced events
+     */
+    public synchronized long getCoalescedEvents() {
+        return coalesced;
+    }
+}
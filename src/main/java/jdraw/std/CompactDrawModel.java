@@ -0,0 +1,894 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.std;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.geom.Line2D;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import jdraw.figures.Line;
+import jdraw.figures.Oval;
+import jdraw.figures.Rect;
+import jdraw.figures.handles.EState;
+import jdraw.figures.handles.Handle;
+import jdraw.figures.handles.NEState;
+import jdraw.figures.handles.NState;
+import jdraw.figures.handles.NWState;
+import jdraw.figures.handles.SEState;
+import jdraw.figures.handles.SState;
+import jdraw.figures.handles.SWState;
+import jdraw.figures.handles.SwappableFigure;
+import jdraw.figures.handles.WState;
+import jdraw.framework.DrawCommandHandler;
+import jdraw.framework.DrawModel;
+import jdraw.framework.DrawModelEvent;
+import jdraw.framework.DrawModelEvent.Type;
+import jdraw.framework.DrawModelListener;
+import jdraw.framework.DrawingSnapshot;
+import jdraw.framework.Figure;
+import jdraw.framework.FigureEvent;
+import jdraw.framework.FigureGroup;
+import jdraw.framework.FigureHandle;
+import jdraw.framework.FigureListener;
+import jdraw.framework.PrimitiveFigure;
+import jdraw.jfr.ModelMutationEvent;
+import jdraw.jfr.RecordingDrawCommandHandler;
+
+/**
+ * The CompactDrawModel is a draw model for very large drawings. Rectangles,
+ * ovals and lines are not stored as objects but as a type and four coordinates
+ * in primitive arrays (a struct of arrays), which takes about 25 bytes per
+ * figure instead of several hundred bytes for a {@link Rect} with its bounds,
+ * handles and listener list.
+ *
+ * The figures of a compact slot are handed out as {@link CompactFigure}s:
+ * lightweight views which are materialised on demand, e.g. by
+ * {@link #getFigures()}, and read and modify the arrays of the model. Views of
+ * the same figure are equal, so they can be used for the selection and as keys
+ * of hash maps, and they can be edited with the usual tools and handles.
+ *
+ * A figure passed to {@link #addFigure(Figure)} is kept as an object first,
+ * so that it can still be modified by its creator (e.g. while a draw tool
+ * drags it to its size); it is moved into the arrays when the tool reports it
+ * with {@link #figureEdited(Figure)}. Rectangles, ovals and lines passed to
+ * {@link #addFigures(Collection)} are stored in the arrays right away, and
+ * {@link #compact()} moves all rectangles, ovals and lines still kept as
+ * objects into the arrays. Other figures (e.g. groups) are always kept as
+ * objects. Like every
+ * {@link DrawModel}, every mutation is reported to the Java Flight Recorder as
+ * a {@link ModelMutationEvent}.
+ *
+ * @see StdDrawModel
+ */
+public class CompactDrawModel implements DrawModel, FigureListener {
+
+    /** Kinds of the slots. The coordinates of a line are its end points. */
+    private static final byte RECT = 0;
+    private static final byte OVAL = 1;
+    private static final byte LINE = 2;
+    /** The figure is kept as an object in {@link #objects}. */
+    private static final byte OBJECT = 3;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** Number of coordinates per slot. */
+    private static final int COORDS = 4;
+
+    /** Number of figures in the model. */
+    private int size;
+
+    /** Kind, id and coordinates of the figures, in z-order. */
+    private byte[] kinds = new byte[INITIAL_CAPACITY];
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private int[] coords = new int[INITIAL_CAPACITY * COORDS];
+
+    /**
+     * Slot of the figure with a given id, -1 if the figure is not in the model.
+     * Ids are never reused, so that stale views cannot refer to another figure.
+     */
+    private int[] slots = new int[INITIAL_CAPACITY];
+    private int nextId;
+
+    /** The figures kept as objects by id, and the ids of these figures. */
+    private Map<Integer, Figure> objects = new HashMap<>();
+    private Map<Figure, Integer> objectIds = new HashMap<>();
+
+    /**
+     * Coordinates of removed figures by id, as long as a view of the figure
+     * refers to them. Removed figures may be added again by an undo.
+     */
+    private final Map<Integer, Detached> detached = new HashMap<>();
+    private final ReferenceQueue<int[]> released = new ReferenceQueue<>();
+
+    /** Listeners registered with views, by id of the figure. */
+    private final Map<Integer, List<FigureListener>> figureListeners = new HashMap<>();
+
+    private final List<DrawModelListener> listeners = new ArrayList<>();
+
+    /** The last {@link Type#FIGURE_CHANGED} event, reused for the same figure. */
+    private DrawModelEvent lastChange;
+
+    /** Version of the drawing, advanced by every mutation. */
+    private long version;
+
+    /** The last snapshot taken, returned again while the drawing is unchanged and the snapshot in use. */
+    private WeakReference<Snapshot> lastSnapshot = new WeakReference<>(null);
+
+    private final DrawCommandHandler handler = new RecordingDrawCommandHandler(new EmptyDrawCommandHandler());
+
+    @Override
+    public void addFigure(Figure f) {
+        ModelMutationEvent event = ModelMutationEvent.isRecorded()
+                ? new ModelMutationEvent(ModelMutationEvent.ADD) : null;
+        if (f != null && slotOf(f) < 0) {
+            append(f);
+            notifyListeners(f, Type.FIGURE_ADDED);
+        }
+        if (event != null) {
+            event.end(size, listeners.size());
+        }
+    }
+
+    /**
+     * Adds the given figures and notifies the listeners with a single
+     * {@link Type#FIGURES_ADDED} event. Rectangles, ovals and lines are stored
+     * in the arrays, i.e. the given objects are not part of the model afterwards
+     * but views with the same geometry; use {@link #getFigures()} to access
+     * them.
+     */
+    @Override
+    public void addFigures(Collection<? extends Figure> figures) {
+        ModelMutationEvent event = ModelMutationEvent.isRecorded()
+                ? new ModelMutationEvent(ModelMutationEvent.ADD_ALL) : null;
+        if (addAll(figures, true)) {
+            notifyListeners(null, Type.FIGURES_ADDED);
+        }
+        if (event != null) {
+            event.end(size, listeners.size());
+        }
+    }
+
+    /**
+     * Replaces the group by its parts, see {@link DrawModel#ungroupFigure(Figure)}.
+     * The parts are kept as objects, as they are referenced by the group.
+     */
+    @Override
+    public void ungroupFigure(Figure group) {
+        if (!(group instanceof FigureGroup)) {
+            throw new IllegalArgumentException();
+        }
+        List<Figure> parts = ((FigureGroup) group).getFigureParts().collect(Collectors.toList());
+        int index = slotOf(group);
+        if (index < 0 || parts.stream().anyMatch(f -> slotOf(f) >= 0)) {
+            throw new IllegalArgumentException();
+        }
+        removeFigure(group);
+        if (addAll(parts, false)) {
+            notifyListeners(null, Type.FIGURES_ADDED);
+        }
+        moveFigures(parts, index);
+    }
+
+    /**
+     * Moves a rectangle, oval or line kept as an object into the arrays. The
+     * listeners are notified with a {@link Type#FIGURE_REMOVED} event for the
+     * object followed by a {@link Type#FIGURE_ADDED} event for its view, which
+     * keeps the position of the figure.
+     */
+    @Override
+    public void figureEdited(Figure f) {
+        Integer id = f instanceof CompactFigure ? null : objectIds.get(f);
+        if (id == null) {
+            return;
+        }
+        ModelMutationEvent event = ModelMutationEvent.isRecorded()
+                ? new ModelMutationEvent(ModelMutationEvent.CHANGE) : null;
+        int slot = slots[id];
+        if (pack(slot, f)) {
+            release(f);
+            notifyListeners(f, Type.FIGURE_REMOVED);
+            notifyListeners(figureAt(slot), Type.FIGURE_ADDED);
+        }
+        if (event != null) {
+            event.end(size, listeners.size());
+        }
+    }
+
+    @Override
+    public void removeFigure(Figure f) {
+        ModelMutationEvent event = ModelMutationEvent.isRecorded()
+                ? new ModelMutationEvent(ModelMutationEvent.REMOVE) : null;
+        int slot = slotOf(f);
+        if (slot >= 0) {
+            int id = ids[slot];
+            if (kinds[slot] == OBJECT) {
+                objects.remove(id);
+                objectIds.remove(f);
+                f.removeFigureListener(this);
+            } else {
+                // the removed figure keeps its coordinates, e.g. to be added again
+                // by an undo; all views of the figure refer to the same copy
+                purgeDetached();
+                int[] c = Arrays.copyOfRange(coords, slot * COORDS, (slot + 1) * COORDS);
+                ((CompactFigure) f).retained = c;
+                detached.put(id, new Detached(id, c, released));
+            }
+            slots[id] = -1;
+            if (lastChange != null && lastChange.getFigure().equals(f)) {
+                lastChange = null;
+            }
+            shift(slot + 1, slot, size - slot - 1);
+            size--;
+            notifyListeners(f, Type.FIGURE_REMOVED);
+        }
+        if (event != null) {
+            event.end(size, listeners.size());
+        }
+    }
+
+    @Override
+    public void removeAllFigures() {
+        ModelMutationEvent event = ModelMutationEvent.isRecorded()
+                ? new ModelMutationEvent(ModelMutationEvent.CLEAR) : null;
+        for (Figure f : objects.values()) {
+            f.removeFigureListener(this);
+        }
+        objects.clear();
+        objectIds.clear();
+        for (int i = 0; i < size; i++) {
+            slots[ids[i]] = -1;
+        }
+        size = 0;
+        kinds = new byte[INITIAL_CAPACITY];
+        ids = new int[INITIAL_CAPACITY];
+        coords = new int[INITIAL_CAPACITY * COORDS];
+        lastChange = null;
+        notifyListeners(null, Type.DRAWING_CLEARED);
+        if (event != null) {
+            event.end(0, listeners.size());
+        }
+    }
+
+    /**
+     * Returns the figures of the model. Rectangles, ovals and lines stored in the
+     * arrays are returned as new views.
+     */
+    @Override
+    public Stream<Figure> getFigures() {
+        return IntStream.range(0, size).mapToObj(this::figureAt);
+    }
+
+    @Override
+    public void addModelChangeListener(DrawModelListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeModelChangeListener(DrawModelListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public DrawCommandHandler getDrawCommandHandler() {
+        return handler;
+    }
+
+    @Override
+    public void setFigureIndex(Figure f, int index) {
+        int slot = slotOf(f);
+        if (slot < 0) {
+            throw new IllegalArgumentException();
+        } else if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        ModelMutationEvent event = ModelMutationEvent.isRecorded()
+                ? new ModelMutationEvent(ModelMutationEvent.REORDER) : null;
+        if (slot != index) {
+            byte kind = kinds[slot];
+            int id = ids[slot];
+            int[] c = Arrays.copyOfRange(coords, slot * COORDS, (slot + 1) * COORDS);
+            if (slot < index) {
+                shift(slot + 1, slot, index - slot);
+            } else {
+                shift(index, index + 1, slot - index);
+            }
+            kinds[index] = kind;
+            ids[index] = id;
+            System.arraycopy(c, 0, coords, index * COORDS, COORDS);
+            slots[id] = index;
+            notifyListeners(f, Type.DRAWING_CHANGED);
+        }
+        if (event != null) {
+            event.end(size, listeners.size());
+        }
+    }
+
+    /**
+     * Moves the rectangles, ovals and lines kept as objects into the arrays and
+     * releases the spare capacity of the arrays. The figure objects are
+     * released; from now on the model hands out views for them. As the figures
+     * of the model are replaced, the listeners are notified with a {@link Type#DRAWING_CLEARED} event followed by a
+     * {@link Type#FIGURES_ADDED} event.
+     *
+     * Only figures of the classes {@link Rect}, {@link Oval} and {@link Line}
+     * are compacted; subclasses may carry additional state.
+     *
+     * @return the number of compacted figures
+     */
+    public int compact() {
+        ModelMutationEvent event = ModelMutationEvent.isRecorded()
+                ? new ModelMutationEvent(ModelMutationEvent.CHANGE) : null;
+        int compacted = 0;
+        for (int i = 0; i < size; i++) {
+            if (kinds[i] == OBJECT) {
+                Figure f = objects.get(ids[i]);
+                if (pack(i, f)) {
+                    release(f);
+                    compacted++;
+                }
+            }
+        }
+        // release the spare capacity of the arrays
+        int capacity = Math.max(size, INITIAL_CAPACITY);
+        kinds = Arrays.copyOf(kinds, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        coords = Arrays.copyOf(coords, capacity * COORDS);
+        objects = new HashMap<>(objects);
+        objectIds = new HashMap<>(objectIds);
+        if (compacted > 0) {
+            lastChange = null;
+            notifyListeners(null, Type.DRAWING_CLEARED);
+            notifyListeners(null, Type.FIGURES_ADDED);
+        }
+        if (event != null) {
+            event.end(size, listeners.size());
+        }
+        return compacted;
+    }
+
+    /**
+     * Returns a snapshot of the drawing. The kinds and coordinates of the
+     * figures stored in the arrays are copied, so a snapshot takes about the
+     * same memory per figure as the model; its figures are created as
+     * {@link Rect}s, {@link Oval}s and {@link Line}s while it is traversed.
+     * Figures kept as objects are cloned.
+     */
+    @Override
+    public DrawingSnapshot snapshot() {
+        Snapshot last = lastSnapshot.get();
+        if (last != null && last.version == version) {
+            return last;
+        }
+        Map<Integer, Figure> copies = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            if (kinds[i] == OBJECT) {
+                Figure f = objects.get(ids[i]);
+                Figure copy = f.clone();
+                copies.put(i, copy != null ? copy : f);
+            }
+        }
+        last = new Snapshot(version, Arrays.copyOf(kinds, size), Arrays.copyOf(coords, size * COORDS), copies);
+        lastSnapshot = new WeakReference<>(last);
+        return last;
+    }
+
+    /** Called by the figures kept as objects. */
+    @Override
+    public void figureChanged(FigureEvent e) {
+        changed(e.getFigure());
+    }
+
+    /** Called by a view which has been modified. */
+    private void viewChanged(CompactFigure f) {
+        List<FigureListener> l = figureListeners.isEmpty() ? null : figureListeners.get(f.id);
+        if (l != null) {
+            FigureEvent e = new FigureEvent(f);
+            for (FigureListener listener : l) {
+                listener.figureChanged(e);
+            }
+        }
+        if (slots[f.id] >= 0) {
+            changed(f);
+        }
+    }
+
+    /**
+     * Notifies the listeners of a changed figure. As in the {@link StdDrawModel}
+     * the event is reused while the same figure keeps changing.
+     */
+    private void changed(Figure f) {
+        ModelMutationEvent event = ModelMutationEvent.isRecorded()
+                ? new ModelMutationEvent(ModelMutationEvent.CHANGE) : null;
+        DrawModelEvent change = lastChange;
+        if (change == null || !change.getFigure().equals(f)) {
+            change = new DrawModelEvent(this, f, Type.FIGURE_CHANGED);
+            lastChange = change;
+        }
+        notifyListeners(change);
+        if (event != null) {
+            event.end(size, listeners.size());
+        }
+    }
+
+    private void notifyListeners(Figure f, Type t) {
+        notifyListeners(new DrawModelEvent(this, f, t));
+    }
+
+    /** Passes the same event to all listeners. Every mutation is notified, so it advances the version. */
+    private void notifyListeners(DrawModelEvent e) {
+        version++;
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).modelChanged(e);
+        }
+    }
+
+    /** Returns the slot of the given figure, or -1 if it is not in this model. */
+    private int slotOf(Figure f) {
+        if (f instanceof CompactFigure && ((CompactFigure) f).owner == this) {
+            return ((CompactFigure) f).slot();
+        }
+        Integer id = objectIds.get(f);
+        return id != null ? slots[id] : -1;
+    }
+
+    private Figure figureAt(int slot) {
+        int id = ids[slot];
+        return kinds[slot] == OBJECT ? objects.get(id) : new CompactFigure(this, id, kinds[slot]);
+    }
+
+    private void append(Figure f) {
+        append(f, false);
+    }
+
+    /**
+     * Appends a figure. If <code>pack</code> is set, rectangles, ovals and
+     * lines are stored in the arrays instead of as objects.
+     */
+    private void append(Figure f, boolean pack) {
+        ensureCapacity(size + 1);
+        int id;
+        if (f instanceof CompactFigure && ((CompactFigure) f).owner == this) {
+            CompactFigure v = (CompactFigure) f;
+            id = v.id;
+            kinds[size] = v.kind;
+            System.arraycopy(v.data(), v.offset(), coords, size * COORDS, COORDS);
+            detached.remove(id);
+        } else if (pack && pack(size, f)) {
+            id = newId();
+        } else {
+            id = newId();
+            kinds[size] = OBJECT;
+            objects.put(id, f);
+            objectIds.put(f, id);
+            f.addFigureListener(this);
+        }
+        ids[size] = id;
+        slots[id] = size;
+        size++;
+    }
+
+    /** Appends the figures not yet in the model; returns whether any figure has been added. */
+    private boolean addAll(Collection<? extends Figure> figures, boolean pack) {
+        int oldSize = size;
+        ensureCapacity(size + figures.size());
+        for (Figure f : figures) {
+            if (f != null && slotOf(f) < 0) {
+                append(f, pack);
+            }
+        }
+        return size > oldSize;
+    }
+
+    /**
+     * Stores the kind and coordinates of a rectangle, oval or line in the given
+     * slot. Only figures of the classes {@link Rect}, {@link Oval} and
+     * {@link Line} are stored, subclasses may carry additional state.
+     *
+     * @return false if the figure has to be kept as an object
+     */
+    private boolean pack(int slot, Figure f) {
+        int o = slot * COORDS;
+        if (f.getClass() == Rect.class || f.getClass() == Oval.class) {
+            Rectangle r = f.getBounds();
+            kinds[slot] = f.getClass() == Rect.class ? RECT : OVAL;
+            coords[o] = r.x;
+            coords[o + 1] = r.y;
+            coords[o + 2] = r.width;
+            coords[o + 3] = r.height;
+        } else if (f.getClass() == Line.class) {
+            Point p1 = ((Line) f).getStart();
+            Point p2 = ((Line) f).getEnd();
+            kinds[slot] = LINE;
+            coords[o] = p1.x;
+            coords[o + 1] = p1.y;
+            coords[o + 2] = p2.x;
+            coords[o + 3] = p2.y;
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /** Forgets a figure kept as an object whose slot has been packed. */
+    private void release(Figure f) {
+        objects.remove(objectIds.remove(f));
+        f.removeFigureListener(this);
+        if (lastChange != null && lastChange.getFigure() == f) {
+            lastChange = null;
+        }
+    }
+
+    /** Creates a figure object from the kind and the coordinates of a slot. */
+    private static Figure toFigure(byte kind, int[] c, int o) {
+        if (kind == LINE) {
+            Line line = new Line(c[o], c[o + 1]);
+            line.setBounds(new Point(c[o], c[o + 1]), new Point(c[o + 2], c[o + 3]));
+            return line;
+        } else if (kind == OVAL) {
+            return new Oval(c[o], c[o + 1], c[o + 2], c[o + 3]);
+        } else {
+            return new Rect(c[o], c[o + 1], c[o + 2], c[o + 3]);
+        }
+    }
+
+    /** Returns the coordinates of a removed figure, or null if they are unknown. */
+    private int[] detachedCoords(int id) {
+        Detached d = detached.get(id);
+        return d != null ? d.get() : null;
+    }
+
+    /** Drops the coordinates of removed figures which are no longer referenced. */
+    private void purgeDetached() {
+        for (Reference<? extends int[]> r; (r = released.poll()) != null;) {
+            detached.remove(((Detached) r).id, r);
+        }
+    }
+
+    private int newId() {
+        if (nextId == slots.length) {
+            slots = Arrays.copyOf(slots, slots.length * 2);
+        }
+        slots[nextId] = -1;
+        return nextId++;
+    }
+
+    /** Moves <code>length</code> slots from <code>from</code> to <code>to</code>. */
+    private void shift(int from, int to, int length) {
+        System.arraycopy(kinds, from, kinds, to, length);
+        System.arraycopy(ids, from, ids, to, length);
+        System.arraycopy(coords, from * COORDS, coords, to * COORDS, length * COORDS);
+        for (int i = to; i < to + length; i++) {
+            slots[ids[i]] = i;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > kinds.length) {
+            int n = Math.max(capacity, kinds.length + (kinds.length >> 1));
+            kinds = Arrays.copyOf(kinds, n);
+            ids = Arrays.copyOf(ids, n);
+            coords = Arrays.copyOf(coords, n * COORDS);
+        }
+    }
+
+    /** A snapshot with copies of the arrays and of the figures kept as objects, by slot. */
+    private static final class Snapshot implements DrawingSnapshot {
+        private final long version;
+        private final byte[] kinds;
+        private final int[] coords;
+        private final Map<Integer, Figure> objects;
+
+        Snapshot(long version, byte[] kinds, int[] coords, Map<Integer, Figure> objects) {
+            this.version = version;
+            this.kinds = kinds;
+            this.coords = coords;
+            this.objects = objects;
+        }
+
+        @Override
+        public long getVersion() {
+            return version;
+        }
+
+        @Override
+        public int getFigureCount() {
+            return kinds.length;
+        }
+
+        @Override
+        public Stream<Figure> getFigures() {
+            return IntStream.range(0, kinds.length)
+                    .mapToObj(i -> kinds[i] == OBJECT ? objects.get(i) : toFigure(kinds[i], coords, i * COORDS));
+        }
+    }
+
+    /** The coordinates of a removed figure, kept while views refer to them. */
+    private static final class Detached extends WeakReference<int[]> {
+        private final int id;
+
+        Detached(int id, int[] coords, ReferenceQueue<int[]> queue) {
+            super(coords, queue);
+            this.id = id;
+        }
+    }
+
+    /**
+     * A rectangle, oval or line stored in the arrays of a
+     * {@link CompactDrawModel}. A view does not hold the coordinates itself but
+     * reads and writes them in the model. Views of the same figure are equal.
+     *
+     * When the figure is removed from the model, the model keeps its coordinates
+     * as long as a view of the figure exists; all views keep working and any of
+     * them can be added to the model again. A copy made by {@link #clone()} is a
+     * plain {@link Rect}, {@link Oval} or {@link Line}. Listeners registered
+     * with a view are kept by the model and notified for all views of the
+     * figure.
+     */
+    public static final class CompactFigure implements SwappableFigure, PrimitiveFigure {
+
+        private static final long serialVersionUID = -4530861212389217036L;
+
+        private final CompactDrawModel owner;
+        private final int id;
+        private final byte kind;
+
+        /**
+         * The coordinates of the figure once it has been removed, referenced such
+         * that the model keeps them while this view exists.
+         */
+        private int[] retained;
+
+        /** The handles, created when they are requested for the first time. */
+        private List<FigureHandle> handles;
+
+        private CompactFigure(CompactDrawModel owner, int id, byte kind) {
+            this.owner = owner;
+            this.id = id;
+            this.kind = kind;
+        }
+
+        @Override
+        public Kind getKind() {
+            return kind == RECT ? Kind.RECTANGLE : kind == OVAL ? Kind.OVAL : Kind.LINE;
+        }
+
+        @Override
+        public Point getStart() {
+            int o = offset();
+            int[] c = data();
+            return new Point(c[o], c[o + 1]);
+        }
+
+        @Override
+        public Point getEnd() {
+            int o = offset();
+            int[] c = data();
+            return kind == LINE ? new Point(c[o + 2], c[o + 3]) : new Point(c[o] + c[o + 2], c[o + 1] + c[o + 3]);
+        }
+
+        @Override
+        public void draw(Graphics g) {
+            int o = offset();
+            int[] c = data();
+            if (kind == LINE) {
+                g.setColor(Color.BLACK);
+                g.drawLine(c[o], c[o + 1], c[o + 2], c[o + 3]);
+            } else if (kind == OVAL) {
+                g.setColor(Color.WHITE);
+                g.fillOval(c[o], c[o + 1], c[o + 2], c[o + 3]);
+                g.setColor(Color.BLACK);
+                g.drawOval(c[o], c[o + 1], c[o + 2], c[o + 3]);
+            } else {
+                g.setColor(Color.WHITE);
+                g.fillRect(c[o], c[o + 1], c[o + 2], c[o + 3]);
+                g.setColor(Color.BLACK);
+                g.drawRect(c[o], c[o + 1], c[o + 2], c[o + 3]);
+            }
+        }
+
+        @Override
+        public void move(int dx, int dy) {
+            if (dx != 0 || dy != 0) {
+                int o = offset();
+                int[] c = data();
+                c[o] += dx;
+                c[o + 1] += dy;
+                if (kind == LINE) {
+                    c[o + 2] += dx;
+                    c[o + 3] += dy;
+                }
+                owner.viewChanged(this);
+            }
+        }
+
+        @Override
+        public boolean contains(int x, int y) {
+            int o = offset();
+            int[] c = data();
+            if (kind == LINE) {
+                return Line2D.ptLineDistSq(c[o], c[o + 1], c[o + 2], c[o + 3], x, y) < 16;
+            }
+            int w = c[o + 2];
+            int h = c[o + 3];
+            if (w <= 0 || h <= 0) {
+                return false;
+            }
+            if (kind == OVAL) {
+                double nx = (double) (x - c[o]) / w - 0.5;
+                double ny = (double) (y - c[o + 1]) / h - 0.5;
+                return nx * nx + ny * ny < 0.25;
+            }
+            return x >= c[o] && y >= c[o + 1] && x < c[o] + w && y < c[o + 1] + h;
+        }
+
+        @Override
+        public void setBounds(Point origin, Point corner) {
+            int o = offset();
+            int[] c = data();
+            int x0;
+            int y0;
+            int x1;
+            int y1;
+            if (kind == LINE) {
+                x0 = origin.x;
+                y0 = origin.y;
+                x1 = corner.x;
+                y1 = corner.y;
+            } else {
+                x0 = Math.min(origin.x, corner.x);
+                y0 = Math.min(origin.y, corner.y);
+                x1 = Math.abs(corner.x - origin.x);
+                y1 = Math.abs(corner.y - origin.y);
+            }
+            if (c[o] != x0 || c[o + 1] != y0 || c[o + 2] != x1 || c[o + 3] != y1) {
+                c[o] = x0;
+                c[o + 1] = y0;
+                c[o + 2] = x1;
+                c[o + 3] = y1;
+                owner.viewChanged(this);
+            }
+        }
+
+        @Override
+        public Rectangle getBounds() {
+            int o = offset();
+            int[] c = data();
+            if (kind == LINE) {
+                return new Rectangle(Math.min(c[o], c[o + 2]), Math.min(c[o + 1], c[o + 3]),
+                        Math.abs(c[o + 2] - c[o]), Math.abs(c[o + 3] - c[o + 1]));
+            }
+            return new Rectangle(c[o], c[o + 1], c[o + 2], c[o + 3]);
+        }
+
+        @Override
+        public Rectangle getBounds(Rectangle rv) {
+            int o = offset();
+            int[] c = data();
+            if (kind == LINE) {
+                rv.setBounds(Math.min(c[o], c[o + 2]), Math.min(c[o + 1], c[o + 3]),
+                        Math.abs(c[o + 2] - c[o]), Math.abs(c[o + 3] - c[o + 1]));
+            } else {
+                rv.setBounds(c[o], c[o + 1], c[o + 2], c[o + 3]);
+            }
+            return rv;
+        }
+
+        @Override
+        public List<? extends FigureHandle> getHandles() {
+            if (handles == null) {
+                handles = List.of(new Handle(new SWState(this)), new Handle(new SEState(this)),
+                        new Handle(new NWState(this)), new Handle(new NEState(this)), new Handle(new NState(this)),
+                        new Handle(new EState(this)), new Handle(new SState(this)), new Handle(new WState(this)));
+            }
+            return handles;
+        }
+
+        @Override
+        public void swapVertical() {
+            for (FigureHandle figureHandle : getHandles()) {
+                Handle handle = (Handle) figureHandle;
+                handle.setState(handle.getState().swapVertical());
+            }
+        }
+
+        @Override
+        public void swapHorizontal() {
+            for (FigureHandle figureHandle : getHandles()) {
+                Handle handle = (Handle) figureHandle;
+                handle.setState(handle.getState().swapHorizontal());
+            }
+        }
+
+        @Override
+        public void addFigureListener(FigureListener listener) {
+            if (listener != null) {
+                List<FigureListener> l = owner.figureListeners.computeIfAbsent(id,
+                        k -> new CopyOnWriteArrayList<>());
+                if (!l.contains(listener)) {
+                    l.add(listener);
+                }
+            }
+        }
+
+        @Override
+        public void removeFigureListener(FigureListener listener) {
+            List<FigureListener> l = owner.figureListeners.get(id);
+            if (l != null && l.remove(listener) && l.isEmpty()) {
+                owner.figureListeners.remove(id);
+            }
+        }
+
+        /**
+         * Returns a copy as a figure object, which does not take a slot or an id
+         * of the model until it is added and compacted.
+         */
+        @Override
+        public Figure clone() {
+            return toFigure(kind, data(), offset());
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof CompactFigure && ((CompactFigure) obj).owner == owner
+                    && ((CompactFigure) obj).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return id;
+        }
+
+        @Override
+        public String toString() {
+            return "CompactFigure[" + getKind() + " #" + id + "]";
+        }
+
+        /** Returns the slot of the figure, -1 if it is not in the model. */
+        private int slot() {
+            return owner.slots[id];
+        }
+
+        /** Returns the offset of the coordinates in {@link #data()}. */
+        private int offset() {
+            int slot = owner.slots[id];
+            if (slot >= 0) {
+                return slot * COORDS;
+            }
+            data();
+            return 0;
+        }
+
+        /** Returns the array holding the coordinates. */
+        private int[] data() {
+            if (owner.slots[id] >= 0) {
+                return owner.coords;
+            }
+            // another view may have been removed and added again meanwhile
+            int[] c = owner.detachedCoords(id);
+            if (c == null) {
+                throw new IllegalStateException("the figure has been removed from the model");
+            }
+            retained = c;
+            return c;
+        }
+    }
+}
@@ -0,0 +1,439 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.std;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import javax.swing.SwingUtilities;
+
+import org.apache.log4j.Logger;
+
+import jdraw.framework.DrawCommandHandler;
+import jdraw.framework.DrawModel;
+import jdraw.framework.DrawModelEvent;
+import jdraw.framework.DrawModelEvent.Type;
+import jdraw.framework.DrawModelListener;
+import jdraw.framework.DrawingSnapshot;
+import jdraw.framework.Figure;
+import jdraw.framework.FigureEvent;
+import jdraw.framework.FigureListener;
+import jdraw.jfr.ModelMutationEvent;
+import jdraw.jfr.RecordingDrawCommandHandler;
+
+/**
+ * The ConcurrentDrawModel is a thread-safe implementation of the DrawModel
+ * interface. Figures may be added, removed and reordered from any thread, e.g.
+ * by a background import or a simulation, while the editor displays the
+ * drawing.
+ *
+ * Mutations are serialised by the write lock of a read-write lock. Readers do
+ * not take a lock in the common case: {@link #getFigures()} streams an
+ * immutable snapshot of the figures, which is created once after every
+ * mutation. A stream therefore always shows a consistent state of the drawing,
+ * no matter which mutations happen while it is consumed. {@link #snapshot()}
+ * in addition copies the figures, sharing the copies of unchanged figures
+ * with the previous snapshot.
+ *
+ * The listeners are notified through an executor, outside of the lock. Events
+ * are put into a queue in the order of the mutations while the write lock is
+ * held; the queue is drained by a single task at a time, so the events are
+ * delivered in this order whatever thread mutates the model. By default the
+ * events are delivered on the event dispatch thread with
+ * {@link SwingUtilities#invokeLater(Runnable)}, also for mutations made on the
+ * event dispatch thread itself. Swing views can thus be registered as
+ * listeners without further synchronisation. Note that an event delivered
+ * later may describe a state which has already changed again.
+ *
+ * Only the model is thread-safe; the figures themselves are not, so a figure
+ * must not be modified by several threads at the same time.
+ *
+ * @see StdDrawModel
+ */
+public class ConcurrentDrawModel implements DrawModel, FigureListener {
+
+    private static final Logger LOGGER = Logger.getLogger(ConcurrentDrawModel.class);
+
+    /** Delivers events on the event dispatch thread, after the pending events. */
+    private static final Executor EDT = SwingUtilities::invokeLater;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** The figures in z-order and the same figures as a set, guarded by the lock. */
+    private final List<Figure> figures = new ArrayList<>();
+    private final Set<Figure> members = new HashSet<>();
+
+    /** Immutable copy of the figures, or null if it has to be created again. */
+    private volatile Figure[] snapshot = new Figure[0];
+
+    /** Version of the drawing, advanced by every mutation; guarded by the lock. */
+    private long version;
+
+    /**
+     * The last snapshot returned by {@link #snapshot()}, guarded by the lock. It
+     * holds the copies of the figures, which are shared with the next snapshot;
+     * as it is only weakly referenced, the copies are released as soon as no
+     * snapshot is in use any more.
+     */
+    private WeakReference<Snapshot> lastSnapshot = new WeakReference<>(null);
+
+    private final List<DrawModelListener> listeners = new CopyOnWriteArrayList<>();
+
+    /** The executor notifying the listeners. */
+    private volatile Executor delivery = EDT;
+
+    /** Events not delivered yet, in the order of the mutations. */
+    private final Queue<DrawModelEvent> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Number of requests to deliver the pending events since the running drain
+     * task started; no drain task is scheduled or running while it is 0.
+     */
+    private final AtomicInteger drainRequests = new AtomicInteger();
+
+    private final DrawCommandHandler handler = new RecordingDrawCommandHandler(new EmptyDrawCommandHandler());
+
+    /**
+     * Sets the executor which notifies the listeners. The executor must run the
+     * notifications in the order in which they are passed; e.g.
+     * <code>Runnable::run</code> notifies the listeners on the mutating thread.
+     *
+     * @param executor the executor, by default the event dispatch thread
+     */
+    public void setListenerExecutor(Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor must not be null");
+        }
+        this.delivery = executor;
+    }
+
+    @Override
+    public void addFigure(Figure f) {
+        if (f == null) {
+            return;
+        }
+        ModelMutationEvent event = ModelMutationEvent.isRecorded()
+                ? new ModelMutationEvent(ModelMutationEvent.ADD) : null;
+        int size;
+        lock.writeLock().lock();
+        try {
+            if (members.add(f)) {
+                figures.add(f);
+                snapshot = null;
+                version++;
+                f.addFigureListener(this);
+                enqueue(f, Type.FIGURE_ADDED);
+            }
+            size = figures.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        deliver();
+        if (event != null) {
+            event.end(size, listeners.size());
+        }
+    }
+
+    @Override
+    public void addFigures(Collection<? extends Figure> newFigures) {
+        ModelMutationEvent event = ModelMutationEvent.isRecorded()
+                ? new ModelMutationEvent(ModelMutationEvent.ADD_ALL) : null;
+        int size;
+        lock.writeLock().lock();
+        try {
+            size = figures.size();
+            for (Figure f : newFigures) {
+                if (f != null && members.add(f)) {
+                    figures.add(f);
+                    f.addFigureListener(this);
+                }
+            }
+            if (figures.size() > size) {
+                snapshot = null;
+                version++;
+                enqueue(null, Type.FIGURES_ADDED);
+            }
+            size = figures.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        deliver();
+        if (event != null) {
+            event.end(size, listeners.size());
+        }
+    }
+
+    @Override
+    public void removeFigure(Figure f) {
+        ModelMutationEvent event = ModelMutationEvent.isRecorded()
+                ? new ModelMutationEvent(ModelMutationEvent.REMOVE) : null;
+        int size;
+        lock.writeLock().lock();
+        try {
+            if (members.remove(f)) {
+                figures.remove(f);
+                snapshot = null;
+                version++;
+                forgetCopy(f);
+                f.removeFigureListener(this);
+                enqueue(f, Type.FIGURE_REMOVED);
+            }
+            size = figures.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        deliver();
+        if (event != null) {
+            event.end(size, listeners.size());
+        }
+    }
+
+    @Override
+    public void removeAllFigures() {
+        ModelMutationEvent event = ModelMutationEvent.isRecorded()
+                ? new ModelMutationEvent(ModelMutationEvent.CLEAR) : null;
+        lock.writeLock().lock();
+        try {
+            for (Figure f : figures) {
+                f.removeFigureListener(this);
+            }
+            figures.clear();
+            members.clear();
+            snapshot = null;
+            version++;
+            lastSnapshot.clear();
+            enqueue(null, Type.DRAWING_CLEARED);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        deliver();
+        if (event != null) {
+            event.end(0, listeners.size());
+        }
+    }
+
+    /**
+     * Returns a stream over a snapshot of the figures. Mutations made while the
+     * stream is consumed are not visible to the stream.
+     */
+    @Override
+    public Stream<Figure> getFigures() {
+        return Arrays.stream(currentFigures());
+    }
+
+    @Override
+    public void addModelChangeListener(DrawModelListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeModelChangeListener(DrawModelListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public DrawCommandHandler getDrawCommandHandler() {
+        return handler;
+    }
+
+    @Override
+    public void setFigureIndex(Figure f, int index) {
+        ModelMutationEvent event;
+        int size;
+        lock.writeLock().lock();
+        try {
+            if (!members.contains(f)) {
+                throw new IllegalArgumentException();
+            } else if (index < 0 || index >= figures.size()) {
+                throw new IndexOutOfBoundsException();
+            }
+
+            event = ModelMutationEvent.isRecorded() ? new ModelMutationEvent(ModelMutationEvent.REORDER) : null;
+            int currentIndex = figures.indexOf(f);
+            if (currentIndex != index) {
+                figures.remove(currentIndex);
+                figures.add(index, f);
+                snapshot = null;
+                version++;
+                enqueue(f, Type.DRAWING_CHANGED);
+            }
+            size = figures.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        deliver();
+        if (event != null) {
+            event.end(size, listeners.size());
+        }
+    }
+
+    /**
+     * Forwards a change of a figure. Figures may change on any thread; the event
+     * is delivered like all other events.
+     */
+    @Override
+    public void figureChanged(FigureEvent e) {
+        ModelMutationEvent event = ModelMutationEvent.isRecorded()
+                ? new ModelMutationEvent(ModelMutationEvent.CHANGE) : null;
+        // the lock orders the event with the mutations of the model
+        lock.writeLock().lock();
+        try {
+            version++;
+            forgetCopy(e.getFigure());
+            enqueue(e.getFigure(), Type.FIGURE_CHANGED);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        deliver();
+        if (event != null) {
+            event.end(currentFigures().length, listeners.size());
+        }
+    }
+
+    /**
+     * Returns a snapshot of the drawing. Copies of unchanged figures are shared
+     * with the previous snapshot, so only the figures changed since then are
+     * copied. The figures are copied while holding the write lock.
+     */
+    @Override
+    public DrawingSnapshot snapshot() {
+        lock.writeLock().lock();
+        try {
+            Snapshot last = lastSnapshot.get();
+            if (last != null && last.version == version) {
+                return last;
+            }
+            Map<Figure, Figure> copies = last != null ? last.copies : new IdentityHashMap<>();
+            List<Figure> list = new ArrayList<>(figures.size());
+            for (Figure f : figures) {
+                Figure copy = copies.get(f);
+                if (copy == null) {
+                    copy = f.clone();
+                    if (copy == null) {
+                        // the figure cannot be cloned, the snapshot refers to it directly
+                        copy = f;
+                    }
+                    copies.put(f, copy);
+                }
+                list.add(copy);
+            }
+            last = new Snapshot(version, Collections.unmodifiableList(list), copies);
+            lastSnapshot = new WeakReference<>(last);
+            return last;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Drops the copy of a changed or removed figure; called while holding the write lock. */
+    private void forgetCopy(Figure f) {
+        Snapshot last = lastSnapshot.get();
+        if (last != null) {
+            last.copies.remove(f);
+        }
+    }
+
+    /** Returns the current snapshot of the figures, creating it if necessary. */
+    private Figure[] currentFigures() {
+        Figure[] s = snapshot;
+        if (s == null) {
+            lock.readLock().lock();
+            try {
+                s = snapshot;
+                if (s == null) {
+                    // concurrent readers may create equal snapshots, but only
+                    // while no writer holds the lock
+                    s = figures.toArray(new Figure[0]);
+                    snapshot = s;
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        return s;
+    }
+
+    /** Queues an event for the listeners; called while holding the write lock. */
+    private void enqueue(Figure f, Type t) {
+        if (!listeners.isEmpty()) {
+            pending.add(new DrawModelEvent(this, f, t));
+        }
+    }
+
+    /**
+     * Delivers the pending events; called after releasing the lock. A drain task
+     * is only scheduled if none is running, otherwise the running task delivers
+     * the new events as well. Only one task delivers events at any time, which
+     * keeps them in order even if the executor runs tasks on several threads.
+     */
+    private void deliver() {
+        if (!pending.isEmpty() && drainRequests.getAndIncrement() == 0) {
+            delivery.execute(this::drain);
+        }
+    }
+
+    /** Notifies the listeners of all pending events. */
+    private void drain() {
+        int requests = 1;
+        do {
+            for (DrawModelEvent e; (e = pending.poll()) != null;) {
+                for (DrawModelListener listener : listeners) {
+                    try {
+                        listener.modelChanged(e);
+                    } catch (RuntimeException ex) {
+                        // the other listeners and the following events must still be delivered
+                        LOGGER.error("model listener failed", ex);
+                    }
+                }
+            }
+            requests = drainRequests.addAndGet(-requests);
+        } while (requests != 0);
+    }
+
+    /** A snapshot of the drawing; the copies of the figures are shared with the next snapshot. */
+    private static final class Snapshot implements DrawingSnapshot {
+        private final long version;
+        private final List<Figure> figures;
+        private final Map<Figure, Figure> copies;
+
+        Snapshot(long version, List<Figure> figures, Map<Figure, Figure> copies) {
+            this.version = version;
+            this.figures = figures;
+            this.copies = copies;
+        }
+
+        @Override
+        public long getVersion() {
+            return version;
+        }
+
+        @Override
+        public int getFigureCount() {
+            return figures.size();
+        }
+
+        @Override
+        public Stream<Figure> getFigures() {
+            return figures.stream();
+        }
+    }
+}
@@ -0,0 +1,612 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.std;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import jdraw.figures.Line;
+import jdraw.framework.DrawCommandHandler;
+import jdraw.framework.DrawModel;
+import jdraw.framework.DrawModelEvent;
+import jdraw.framework.DrawModelEvent.Type;
+import jdraw.framework.DrawModelListener;
+import jdraw.framework.Figure;
+import jdraw.framework.FigureEvent;
+import jdraw.framework.FigureListener;
+import jdraw.jfr.ModelMutationEvent;
+import jdraw.jfr.RecordingDrawCommandHandler;
+
+/**
+ * The CrdtDrawModel is a replica of a drawing which can be edited
+ * independently of the other replicas of the same drawing. Every local
+ * mutation is recorded as an {@link Operation}; the operations of one replica
+ * are merged into the others with {@link #merge(Collection)}, in any order and
+ * as often as needed. Replicas which have merged the same operations show the
+ * same drawing, no locking or coordination is needed.
+ *
+ * The drawing is a conflict-free replicated data type:
+ * <ul>
+ * <li>the geometry of a figure is a last-writer-wins register: of two
+ * concurrent changes, the one with the later Lamport timestamp wins, ties are
+ * broken by the number of the replica;</li>
+ * <li>the z-order is a sequence: every figure has a {@link Position} from a
+ * dense order, and {@link #setFigureIndex(Figure, int)} assigns a new position
+ * between the positions of the new neighbours, again as a last-writer-wins
+ * register;</li>
+ * <li>removals win over concurrent changes, and removed figures are kept as
+ * tombstones such that late operations on them are ignored.</li>
+ * </ul>
+ *
+ * The geometry is exchanged as the two points passed to
+ * {@link Figure#setBounds(Point, Point)}, i.e. other attributes of a figure are
+ * not replicated. An added figure is recreated in the other replicas from a
+ * clone; a figure which cannot be cloned is shared by reference. Like
+ * {@link StdDrawModel}, a replica must only be used by one thread.
+ */
+public class CrdtDrawModel implements DrawModel, FigureListener {
+
+    private final int replica;
+
+    /** Lamport clock of the replica. */
+    private long clock;
+    /** Number of figures added by this replica. */
+    private int created;
+
+    /** All elements by number, including the tombstones of removed figures. */
+    private final Map<Long, Element> elements = new HashMap<>();
+    /** The visible elements in z-order. */
+    private final TreeMap<Position, Element> order = new TreeMap<>();
+    /** The visible elements by figure. */
+    private final Map<Figure, Element> byFigure = new IdentityHashMap<>();
+
+    /** Local operations not yet taken by {@link #takeOperations()}. */
+    private List<Operation> outgoing = new ArrayList<>();
+
+    /** Whether operations of other replicas are being merged. */
+    private boolean merging;
+    /** Figures added by the current merge which have not been announced yet. */
+    private final Set<Figure> unannounced = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private final List<DrawModelListener> listeners = new ArrayList<>();
+
+    private final DrawCommandHandler handler = new RecordingDrawCommandHandler(new EmptyDrawCommandHandler());
+
+    /**
+     * Creates an empty replica.
+     *
+     * @param replica the number of the replica, unique among the replicas of the
+     *                drawing
+     */
+    public CrdtDrawModel(int replica) {
+        this.replica = replica;
+    }
+
+    public int getReplica() {
+        return replica;
+    }
+
+    /**
+     * Returns the operations recorded since the last call, to be merged into the
+     * other replicas.
+     *
+     * @return the local operations in the order they have been made
+     */
+    public List<Operation> takeOperations() {
+        List<Operation> result = outgoing;
+        outgoing = new ArrayList<>();
+        return result;
+    }
+
+    /**
+     * Merges operations of other replicas (or of this replica) into the drawing.
+     * Operations which have already been merged have no effect. The listeners are
+     * notified of the changes; figures added by the operations are announced with
+     * a single {@link Type#FIGURES_ADDED} event at the end.
+     *
+     * @param operations the operations, in any order
+     */
+    public void merge(Collection<Operation> operations) {
+        ModelMutationEvent event = ModelMutationEvent.isRecorded()
+                ? new ModelMutationEvent(ModelMutationEvent.ADD_ALL) : null;
+        merging = true;
+        try {
+            for (Operation op : operations) {
+                clock = Math.max(clock, op.time);
+                apply(op);
+            }
+        } finally {
+            merging = false;
+        }
+        if (!unannounced.isEmpty()) {
+            unannounced.clear();
+            notifyListeners(null, Type.FIGURES_ADDED);
+        }
+        if (event != null) {
+            event.end(order.size(), listeners.size());
+        }
+    }
+
+    @Override
+    public void addFigure(Figure f) {
+        ModelMutationEvent event = ModelMutationEvent.isRecorded()
+                ? new ModelMutationEvent(ModelMutationEvent.ADD) : null;
+        if (f != null && !byFigure.containsKey(f)) {
+            add(f);
+            notifyListeners(f, Type.FIGURE_ADDED);
+        }
+        if (event != null) {
+            event.end(order.size(), listeners.size());
+        }
+    }
+
+    @Override
+    public void addFigures(Collection<? extends Figure> figures) {
+        ModelMutationEvent event = ModelMutationEvent.isRecorded()
+                ? new ModelMutationEvent(ModelMutationEvent.ADD_ALL) : null;
+        int size = order.size();
+        for (Figure f : figures) {
+            if (f != null && !byFigure.containsKey(f)) {
+                add(f);
+            }
+        }
+        if (order.size() > size) {
+            notifyListeners(null, Type.FIGURES_ADDED);
+        }
+        if (event != null) {
+            event.end(order.size(), listeners.size());
+        }
+    }
+
+    private void add(Figure f) {
+        long id = ((long) replica << 32) | (++created & 0xFFFFFFFFL);
+        Position last = order.isEmpty() ? null : order.lastKey();
+        Position position = Position.between(last, null, id);
+        Figure prototype = f.clone();
+        Operation op = new Operation(Operation.Kind.ADD, id, ++clock, replica, prototype != null ? prototype : f,
+                geometryOf(f), position);
+        Element e = new Element(id);
+        elements.put(id, e);
+        e.figure = f;
+        e.update(op);
+        show(e);
+        outgoing.add(op);
+    }
+
+    @Override
+    public void removeFigure(Figure f) {
+        ModelMutationEvent event = ModelMutationEvent.isRecorded()
+                ? new ModelMutationEvent(ModelMutationEvent.REMOVE) : null;
+        Element e = byFigure.get(f);
+        if (e != null) {
+            e.removed = true;
+            hide(e);
+            outgoing.add(new Operation(Operation.Kind.REMOVE, e.id, ++clock, replica, null, null, null));
+            notifyListeners(f, Type.FIGURE_REMOVED);
+        }
+        if (event != null) {
+            event.end(order.size(), listeners.size());
+        }
+    }
+
+    @Override
+    public void removeAllFigures() {
+        ModelMutationEvent event = ModelMutationEvent.isRecorded()
+                ? new ModelMutationEvent(ModelMutationEvent.CLEAR) : null;
+        // only the figures seen by this replica are removed
+        for (Element e : new ArrayList<>(order.values())) {
+            e.removed = true;
+            hide(e);
+            outgoing.add(new Operation(Operation.Kind.REMOVE, e.id, ++clock, replica, null, null, null));
+        }
+        notifyListeners(null, Type.DRAWING_CLEARED);
+        if (event != null) {
+            event.end(0, listeners.size());
+        }
+    }
+
+    @Override
+    public Stream<Figure> getFigures() {
+        return order.values().stream().map(e -> e.figure);
+    }
+
+    @Override
+    public void addModelChangeListener(DrawModelListener listener) {
+        if (listener != null && !listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+    }
+
+    @Override
+    public void removeModelChangeListener(DrawModelListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public DrawCommandHandler getDrawCommandHandler() {
+        return handler;
+    }
+
+    /**
+     * Moves the figure to the given index by giving it a position between its new
+     * neighbours. Concurrent moves of the same figure are resolved by the later
+     * timestamp; concurrent moves of different figures to the same index keep
+     * both figures, in the order of their replicas.
+     */
+    @Override
+    public void setFigureIndex(Figure f, int index) {
+        Element e = byFigure.get(f);
+        if (e == null) {
+            throw new IllegalArgumentException();
+        } else if (index < 0 || index >= order.size()) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        ModelMutationEvent event = ModelMutationEvent.isRecorded()
+                ? new ModelMutationEvent(ModelMutationEvent.REORDER) : null;
+        // the neighbours at the new index, without the figure itself
+        Position before = null;
+        Position after = null;
+        int i = 0;
+        int current = -1;
+        for (Iterator<Position> it = order.keySet().iterator(); it.hasNext();) {
+            Position p = it.next();
+            if (p == e.position) {
+                current = i;
+                continue;
+            }
+            if (i < index) {
+                before = p;
+            } else if (after == null) {
+                after = p;
+            }
+            i++;
+        }
+        if (current != index) {
+            Operation op = new Operation(Operation.Kind.ORDER, e.id, ++clock, replica, null, null,
+                    Position.between(before, after, e.id));
+            hide(e);
+            e.update(op);
+            show(e);
+            outgoing.add(op);
+            notifyListeners(f, Type.DRAWING_CHANGED);
+        }
+        if (event != null) {
+            event.end(order.size(), listeners.size());
+        }
+    }
+
+    /** Records a local change as an operation, or forwards a merged one. */
+    @Override
+    public void figureChanged(FigureEvent fe) {
+        Figure f = fe.getFigure();
+        if (merging) {
+            if (!unannounced.contains(f)) {
+                notifyListeners(f, Type.FIGURE_CHANGED);
+            }
+            return;
+        }
+        ModelMutationEvent event = ModelMutationEvent.isRecorded()
+                ? new ModelMutationEvent(ModelMutationEvent.CHANGE) : null;
+        Element e = byFigure.get(f);
+        int[] geometry = geometryOf(f);
+        if (e != null && geometry != null) {
+            Operation op = new Operation(Operation.Kind.BOUNDS, e.id, ++clock, replica, null, geometry, null);
+            e.update(op);
+            outgoing.add(op);
+        }
+        notifyListeners(f, Type.FIGURE_CHANGED);
+        if (event != null) {
+            event.end(order.size(), listeners.size());
+        }
+    }
+
+    /** Applies an operation of any replica; runs while merging. */
+    private void apply(Operation op) {
+        Element e = elements.computeIfAbsent(op.element, Element::new);
+        boolean visible = e.isVisible();
+        switch (op.kind) {
+        case ADD:
+            if (e.figure == null) {
+                Figure f = op.prototype.clone();
+                e.figure = f != null ? f : op.prototype;
+                e.update(op);
+                if (!e.removed) {
+                    show(e);
+                    setGeometry(e);
+                    unannounced.add(e.figure);
+                }
+            }
+            break;
+        case BOUNDS:
+            if (e.update(op) && visible) {
+                setGeometry(e);
+            }
+            break;
+        case ORDER:
+            if (visible) {
+                hide(e);
+            }
+            boolean moved = e.update(op);
+            if (visible) {
+                show(e);
+                if (moved && !unannounced.contains(e.figure)) {
+                    notifyListeners(e.figure, Type.DRAWING_CHANGED);
+                }
+            }
+            break;
+        case REMOVE:
+        default:
+            if (!e.removed) {
+                e.removed = true;
+                if (visible) {
+                    hide(e);
+                    if (!unannounced.remove(e.figure)) {
+                        notifyListeners(e.figure, Type.FIGURE_REMOVED);
+                    }
+                }
+            }
+            break;
+        }
+    }
+
+    /** Adds the figure of an element to the z-order and listens to it. */
+    private void show(Element e) {
+        order.put(e.position, e);
+        if (byFigure.put(e.figure, e) == null) {
+            e.figure.addFigureListener(this);
+        }
+    }
+
+    /** Removes the figure of an element from the z-order. */
+    private void hide(Element e) {
+        order.remove(e.position);
+        if (e.removed) {
+            byFigure.remove(e.figure);
+            e.figure.removeFigureListener(this);
+        }
+    }
+
+    /** Sets the geometry of the figure of an element to the value of its register. */
+    private static void setGeometry(Element e) {
+        int[] g = e.geometry;
+        if (g != null) {
+            e.figure.setBounds(new Point(g[0], g[1]), new Point(g[2], g[3]));
+        }
+    }
+
+    /**
+     * Returns the two points describing the geometry of a figure, or null if the
+     * figure has no bounds.
+     */
+    private static int[] geometryOf(Figure f) {
+        if (f instanceof Line) {
+            Point start = ((Line) f).getStart();
+            Point end = ((Line) f).getEnd();
+            return new int[] {start.x, start.y, end.x, end.y};
+        }
+        Rectangle r = f.getBounds();
+        return r != null ? new int[] {r.x, r.y, r.x + r.width, r.y + r.height} : null;
+    }
+
+    private void notifyListeners(Figure f, Type type) {
+        DrawModelEvent event = new DrawModelEvent(this, f, type);
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).modelChanged(event);
+        }
+    }
+
+    /** The replicated state of a figure. */
+    private static final class Element {
+        private final long id;
+        /** The figure, null until the ADD operation has been merged. */
+        private Figure figure;
+        private boolean removed;
+
+        /** Register of the geometry and its timestamp. */
+        private int[] geometry;
+        private long geometryTime;
+        private int geometryReplica;
+
+        /** Register of the position in the z-order and its timestamp. */
+        private Position position;
+        private long positionTime;
+        private int positionReplica;
+
+        Element(long id) {
+            this.id = id;
+        }
+
+        boolean isVisible() {
+            return figure != null && !removed;
+        }
+
+        /**
+         * Updates the registers with the values of the operation if it is newer.
+         *
+         * @return true if a register has changed
+         */
+        boolean update(Operation op) {
+            boolean changed = false;
+            if (op.geometry != null && newer(op, geometryTime, geometryReplica)) {
+                geometry = op.geometry;
+                geometryTime = op.time;
+                geometryReplica = op.replica;
+                changed = true;
+            }
+            if (op.position != null && newer(op, positionTime, positionReplica)) {
+                position = op.position;
+                positionTime = op.time;
+                positionReplica = op.replica;
+                changed = true;
+            }
+            return changed;
+        }
+
+        private static boolean newer(Operation op, long time, int replica) {
+            return op.time > time || (op.time == time && op.replica > replica);
+        }
+    }
+
+    /**
+     * An operation of a replica. Operations are immutable and may be passed to
+     * other replicas on any thread.
+     */
+    public static final class Operation {
+
+        /** The kind of operation. */
+        public enum Kind {
+            /** A figure has been added. */
+            ADD,
+            /** The geometry of a figure has changed. */
+            BOUNDS,
+            /** A figure has been moved to another position in the z-order. */
+            ORDER,
+            /** A figure has been removed. */
+            REMOVE
+        }
+
+        private final Kind kind;
+        private final long element;
+        private final long time;
+        private final int replica;
+        private final Figure prototype;
+        private final int[] geometry;
+        private final Position position;
+
+        Operation(Kind kind, long element, long time, int replica, Figure prototype, int[] geometry,
+                Position position) {
+            this.kind = kind;
+            this.element = element;
+            this.time = time;
+            this.replica = replica;
+            this.prototype = prototype;
+            this.geometry = geometry;
+            this.position = position;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * Returns the number of the figure the operation refers to; the upper 32
+         * bits are the replica which added the figure.
+         *
+         * @return the number of the figure
+         */
+        public long getElement() {
+            return element;
+        }
+
+        /**
+         * Returns the Lamport timestamp of the operation.
+         *
+         * @return the timestamp
+         */
+        public long getTime() {
+            return time;
+        }
+
+        public int getReplica() {
+            return replica;
+        }
+
+        @Override
+        public String toString() {
+            return kind + "[" + Long.toHexString(element) + "@" + time + "." + replica + "]";
+        }
+    }
+
+    /**
+     * A position in the z-order. Positions are dense: between any two positions
+     * there is another one. A position is a sequence of digits, compared
+     * lexicographically, whose last digit is the number of its figure; positions
+     * created concurrently by different replicas are therefore distinct.
+     */
+    public static final class Position implements Comparable<Position> {
+
+        /** Maximal distance of a new digit from its lower neighbour. */
+        private static final long STEP = 1 << 16;
+
+        private final long[] digits;
+
+        private Position(long[] digits) {
+            this.digits = digits;
+        }
+
+        /**
+         * Creates a position between two positions. The new digit is placed close
+         * to the lower neighbour, such that appending figures rarely needs
+         * another digit.
+         *
+         * @param lo      the lower neighbour, or null for the start
+         * @param hi      the upper neighbour, or null for the end
+         * @param element the number of the figure, at least 1
+         * @return a position between the neighbours
+         */
+        static Position between(Position lo, Position hi, long element) {
+            long[] low = lo != null ? lo.digits : new long[0];
+            long[] high = hi != null ? hi.digits : null;
+            long[] result = new long[low.length + 2];
+            for (int d = 0;; d++) {
+                long l = d < low.length ? low[d] : 0;
+                long h = high != null && d < high.length ? high[d] : Long.MAX_VALUE;
+                if (d + 2 > result.length) {
+                    result = Arrays.copyOf(result, d + 2);
+                }
+                if (h - l > 1) {
+                    result[d] = l + Math.max(1, Math.min(STEP, (h - l) / 2));
+                    result[d + 1] = element;
+                    return new Position(Arrays.copyOf(result, d + 2));
+                }
+                result[d] = l;
+                if (h > l) {
+                    // every continuation is below the upper neighbour
+                    high = null;
+                }
+            }
+        }
+
+        @Override
+        public int compareTo(Position other) {
+            int n = Math.min(digits.length, other.digits.length);
+            for (int i = 0; i < n; i++) {
+                if (digits[i] != other.digits[i]) {
+                    return Long.compare(digits[i], other.digits[i]);
+                }
+            }
+            return Integer.compare(digits.length, other.digits.length);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Position && Arrays.equals(digits, ((Position) obj).digits);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(digits);
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(digits);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.std;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+import org.apache.log4j.Logger;
+
+/**
+ * The EdtWatchdog detects stalls of the event dispatch thread (EDT). A daemon
+ * thread regularly posts a probe to the event queue; if the probe has not been
+ * processed within the threshold, the EDT is considered stalled. While the
+ * stall lasts, the stack of the EDT is sampled. When the EDT processes the
+ * probe again, the stall is logged together with the most frequently sampled
+ * frames:
+ * <ul>
+ * <li>hot frames: the frames on top of the stack, i.e. where the time is
+ * spent,</li>
+ * <li>application frames: the topmost frames of JDraw classes, i.e. which part
+ * of the editor caused the stall.</li>
+ * </ul>
+ *
+ * The number of stalls and their durations are accumulated and logged as a
+ * summary when the watchdog is stopped.
+ */
+public final class EdtWatchdog {
+
+    /** Default time after which the EDT is considered stalled, in milliseconds. */
+    public static final long DEFAULT_THRESHOLD = 200;
+
+    /** Default interval at which the EDT is probed and sampled, in milliseconds. */
+    public static final long DEFAULT_SAMPLE_INTERVAL = 20;
+
+    /** Number of frames of each kind which are logged for a stall. */
+    private static final int HOT_FRAMES = 5;
+
+    /** Prefix of the classes which count as application frames. */
+    private static final String APPLICATION_PACKAGE = "jdraw.";
+
+    private static final Logger LOGGER = Logger.getLogger(EdtWatchdog.class);
+
+    private final long thresholdNanos;
+    private final long sampleInterval;
+
+    private ScheduledExecutorService timer;
+
+    /** The event dispatch thread, known after the first probe. */
+    private volatile Thread edt;
+
+    /** Time at which the pending probe was posted, or 0 if no probe is pending. */
+    private volatile long pendingSince;
+
+    /** Whether the current stall has been reported as started. */
+    private boolean stalled;
+
+    /** Number of samples per top frame and per application frame of the stall. */
+    private final Map<String, Integer> hotFrames = new HashMap<>();
+    private final Map<String, Integer> applicationFrames = new HashMap<>();
+    private int samples;
+
+    /** Summary of all stalls. */
+    private long stallCount;
+    private long totalStallNanos;
+    private long maxStallNanos;
+
+    /** Creates a watchdog with the default threshold and sample interval. */
+    public EdtWatchdog() {
+        this(DEFAULT_THRESHOLD, DEFAULT_SAMPLE_INTERVAL);
+    }
+
+    /**
+     * Creates a watchdog.
+     *
+     * @param threshold      time in milliseconds after which the EDT is considered
+     *                       stalled
+     * @param sampleInterval interval in milliseconds at which the EDT is probed
+     *                       and its stack is sampled during a stall
+     */
+    public EdtWatchdog(long threshold, long sampleInterval) {
+        if (threshold <= 0 || sampleInterval <= 0) {
+            throw new IllegalArgumentException("threshold and sample interval must be positive");
+        }
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(threshold);
+        this.sampleInterval = sampleInterval;
+    }
+
+    /** Starts watching the EDT. */
+    public synchronized void start() {
+        if (timer == null) {
+            timer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "EDT watchdog");
+                t.setDaemon(true);
+                return t;
+            });
+            timer.scheduleWithFixedDelay(this::tick, sampleInterval, sampleInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** Stops watching the EDT and logs the summary of all stalls. */
+    public synchronized void stop() {
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+            LOGGER.info(getSummary());
+        }
+    }
+
+    /**
+     * Returns the number of stalls detected so far.
+     *
+     * @return the number of stalls
+     */
+    public synchronized long getStallCount() {
+        return stallCount;
+    }
+
+    /**
+     * Returns the total duration of all stalls detected so far.
+     *
+     * @return the total stall duration in milliseconds
+     */
+    public synchronized long getTotalStallMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(totalStallNanos);
+    }
+
+    /**
+     * Returns the duration of the longest stall detected so far.
+     *
+     * @return the longest stall duration in milliseconds
+     */
+    public synchronized long getMaxStallMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxStallNanos);
+    }
+
+    /**
+     * Returns a one line summary of the stalls detected so far.
+     *
+     * @return the summary
+     */
+    public synchronized String getSummary() {
+        return String.format("EDT stalls: %d, total %d ms, longest %d ms, mean %d ms", stallCount,
+                getTotalStallMillis(), getMaxStallMillis(),
+                stallCount == 0 ? 0 : getTotalStallMillis() / stallCount);
+    }
+
+    /** Runs on the watchdog thread: posts a probe or samples a stalled EDT. */
+    private synchronized void tick() {
+        long posted = pendingSince;
+        if (posted == 0) {
+            pendingSince = System.nanoTime();
+            SwingUtilities.invokeLater(this::probe);
+        } else if (System.nanoTime() - posted >= thresholdNanos && edt != null) {
+            if (!stalled) {
+                stalled = true;
+                LOGGER.warn("EDT has not processed events for more than "
+                        + TimeUnit.NANOSECONDS.toMillis(thresholdNanos) + " ms");
+            }
+            sample(edt.getStackTrace());
+        }
+    }
+
+    /** Runs on the EDT: the event queue is processed again. */
+    private void probe() {
+        edt = Thread.currentThread();
+        synchronized (this) {
+            long duration = System.nanoTime() - pendingSince;
+            pendingSince = 0;
+            if (stalled) {
+                stalled = false;
+                stallCount++;
+                totalStallNanos += duration;
+                maxStallNanos = Math.max(maxStallNanos, duration);
+                LOGGER.warn(report(duration));
+                hotFrames.clear();
+                applicationFrames.clear();
+                samples = 0;
+            }
+        }
+    }
+
+    private void sample(StackTraceElement[] stack) {
+        if (stack.length == 0) {
+            return;
+        }
+        samples++;
+        hotFrames.merge(stack[0].toString(), 1, Integer::sum);
+        for (StackTraceElement frame : stack) {
+            if (frame.getClassName().startsWith(APPLICATION_PACKAGE)) {
+                applicationFrames.merge(frame.toString(), 1, Integer::sum);
+                break;
+            }
+        }
+    }
+
+    private String report(long duration) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("EDT stalled for ").append(TimeUnit.NANOSECONDS.toMillis(duration)).append(" ms, ")
+                .append(samples).append(" stack samples");
+        appendFrames(sb, "hot frames", hotFrames);
+        appendFrames(sb, "application frames", applicationFrames);
+        return sb.toString();
+    }
+
+    private void appendFrames(StringBuilder sb, String title, Map<String, Integer> frames) {
+        if (frames.isEmpty()) {
+            return;
+        }
+        sb.append(System.lineSeparator()).append("  ").append(title).append(':');
+        frames.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()))
+                .limit(HOT_FRAMES)
+                .forEach(e -> sb.append(System.lineSeparator()).append(String.format("    %4d x %s",
+                        e.getValue(), e.getKey())));
+    }
+}
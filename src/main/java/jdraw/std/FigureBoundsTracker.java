@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.std;
+
+import java.awt.Rectangle;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jdraw.export.FigureRenderer;
+import jdraw.framework.DrawModel;
+import jdraw.framework.DrawModelEvent;
+import jdraw.framework.Figure;
+import jdraw.framework.FigureGroup;
+
+/**
+ * The FigureBoundsTracker remembers the last known bounds of every figure in a
+ * draw model. A model event only refers to the figure that changed, i.e. after a
+ * move the model can no longer tell where the figure has been before. Caches
+ * which depend on the area covered by a figure (e.g. rendered tiles) need both
+ * the old and the new area in order to invalidate exactly the affected regions.
+ *
+ * The tracker has to be fed with every event of the model it was created for,
+ * in the order in which the events are delivered.
+ *
+ * @see TileCache
+ */
+final class FigureBoundsTracker {
+
+    /**
+     * Last known (padded) bounds of the figures in the model. Like the models,
+     * the tracker identifies figures by equality, since some models hand out a
+     * new but equal view of a figure on every call.
+     */
+    private final Map<Figure, Rectangle> bounds = new HashMap<>();
+
+    /**
+     * Creates a tracker and records the bounds of all figures which are already
+     * contained in the given model.
+     *
+     * @param model the model whose figures are tracked
+     */
+    FigureBoundsTracker(DrawModel model) {
+        model.getFigures().forEachOrdered(f -> bounds.put(f, FigureRenderer.paddedBounds(f)));
+    }
+
+    /**
+     * Returns the number of tracked figures, i.e. the number of figures in the
+     * model after the last event fed to this tracker.
+     *
+     * @return the number of figures
+     */
+    int size() {
+        return bounds.size();
+    }
+
+    /**
+     * Updates the recorded bounds according to the given model event and returns
+     * the regions of the drawing which have to be redrawn as a consequence.
+     *
+     * @param e the event delivered by the model
+     * @return the affected regions in model coordinates, or <code>null</code> if
+     *         the whole drawing is affected
+     */
+    List<Rectangle> update(DrawModelEvent e) {
+        Figure f = e.getFigure();
+        switch (e.getType()) {
+        case FIGURE_ADDED: {
+            // a figure without bounds may be drawn anywhere
+            Rectangle r = FigureRenderer.paddedBounds(f);
+            bounds.put(f, r);
+            return r != null ? List.of(r) : null;
+        }
+        case FIGURES_ADDED:
+            // the event does not tell which figures were added
+            e.getModel().getFigures().forEachOrdered(g -> {
+                if (!bounds.containsKey(g)) {
+                    bounds.put(g, FigureRenderer.paddedBounds(g));
+                }
+            });
+            return null;
+        case FIGURE_REMOVED: {
+            Rectangle old = bounds.remove(f);
+            return old != null ? List.of(old) : null;
+        }
+        case FIGURE_CHANGED: {
+            Rectangle r = FigureRenderer.paddedBounds(f);
+            Rectangle old = bounds.put(f, r);
+            return old != null && r != null ? List.of(old, r) : null;
+        }
+        case FIGURES_GROUPED: {
+            // the parts are drawn by the group now, possibly in another order
+            ((FigureGroup) f).getFigureParts().forEach(bounds::remove);
+            Rectangle r = FigureRenderer.paddedBounds(f);
+            bounds.put(f, r);
+            return r != null ? List.of(r) : null;
+        }
+        case FIGURES_UNGROUPED: {
+            Rectangle old = bounds.remove(f);
+            ((FigureGroup) f).getFigureParts().forEach(p -> bounds.put(p, FigureRenderer.paddedBounds(p)));
+            return old != null ? List.of(old) : null;
+        }
+        case DRAWING_CHANGED: {
+            // a figure changed its position in the z-order: only pixels covered by
+            // this figure may look different afterwards
+            Rectangle r = f != null ? bounds.get(f) : null;
+            return r != null ? List.of(r) : null;
+        }
+        case DRAWING_CLEARED:
+        default:
+            bounds.clear();
+            return null;
+        }
+    }
+}
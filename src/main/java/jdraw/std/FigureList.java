@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.std;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import jdraw.framework.Figure;
+
+/**
+ * The FigureList holds the figures of a model in z-order. Unlike an
+ * {@link java.util.ArrayList}, inserting and removing a figure at any index and
+ * looking up the index of a figure take O(log n), and {@link #contains(Object)}
+ * takes O(1). Moving k figures to another place in the z-order therefore takes
+ * O(k log n).
+ *
+ * The figures are stored in a treap ordered by index, i.e. a binary tree which
+ * is balanced by random priorities, where every node knows the size of its
+ * subtree and its parent. A figure may be contained only once.
+ */
+final class FigureList extends AbstractList<Figure> {
+
+    private Node root;
+    private final Map<Figure, Node> nodes = new HashMap<>();
+
+    /** State of the pseudo-random priorities (xorshift). */
+    private int seed = 0x2545F491;
+
+    /** Results of {@link #split(Node, int)}. */
+    private Node splitLeft;
+    private Node splitRight;
+
+    @Override
+    public int size() {
+        return nodes.size();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return nodes.containsKey(o);
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        Node n = nodes.get(o);
+        if (n == null) {
+            return -1;
+        }
+        int index = size(n.left);
+        for (; n.parent != null; n = n.parent) {
+            if (n == n.parent.right) {
+                index += size(n.parent.left) + 1;
+            }
+        }
+        return index;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return indexOf(o);
+    }
+
+    @Override
+    public Figure get(int index) {
+        checkIndex(index, size());
+        Node n = root;
+        while (true) {
+            int left = size(n.left);
+            if (index < left) {
+                n = n.left;
+            } else if (index == left) {
+                return n.figure;
+            } else {
+                index -= left + 1;
+                n = n.right;
+            }
+        }
+    }
+
+    @Override
+    public void add(int index, Figure f) {
+        checkIndex(index, size() + 1);
+        if (f == null || nodes.containsKey(f)) {
+            throw new IllegalArgumentException("figure is null or already contained");
+        }
+        Node n = new Node(f, nextPriority());
+        nodes.put(f, n);
+        split(root, index);
+        Node right = splitRight;
+        root = merge(merge(splitLeft, n), right);
+        root.parent = null;
+        modCount++;
+    }
+
+    @Override
+    public Figure remove(int index) {
+        checkIndex(index, size());
+        split(root, index);
+        Node left = splitLeft;
+        split(splitRight, 1);
+        Node n = splitLeft;
+        root = merge(left, splitRight);
+        if (root != null) {
+            root.parent = null;
+        }
+        nodes.remove(n.figure);
+        modCount++;
+        return n.figure;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int index = indexOf(o);
+        if (index < 0) {
+            return false;
+        }
+        remove(index);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        root = null;
+        nodes.clear();
+        modCount++;
+    }
+
+    /** Iterates in order without looking up every index from the root. */
+    @Override
+    public Iterator<Figure> iterator() {
+        return iterator(0);
+    }
+
+    /**
+     * Returns an iterator over the figures from the given index on. Positioning
+     * the iterator takes O(log n), every step takes O(1) on average.
+     *
+     * @param index the index of the first figure returned
+     * @return an iterator over the figures from <code>index</code> to the end
+     */
+    Iterator<Figure> iterator(int index) {
+        checkIndex(index, size() + 1);
+        return new Iterator<Figure>() {
+            private final Deque<Node> path = new ArrayDeque<>();
+            private final int expectedModCount = modCount;
+
+            {
+                // push the nodes which follow the node at the index, up to the root
+                int k = index;
+                for (Node n = root; n != null;) {
+                    int left = size(n.left);
+                    if (k < left) {
+                        path.push(n);
+                        n = n.left;
+                    } else if (k == left) {
+                        path.push(n);
+                        break;
+                    } else {
+                        k -= left + 1;
+                        n = n.right;
+                    }
+                }
+            }
+
+            private void descend(Node n) {
+                for (; n != null; n = n.left) {
+                    path.push(n);
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !path.isEmpty();
+            }
+
+            @Override
+            public Figure next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (path.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                Node n = path.pop();
+                descend(n.right);
+                return n.figure;
+            }
+        };
+    }
+
+    /**
+     * Splits a tree into the first <code>index</code> nodes and the others, which
+     * are left in {@link #splitLeft} and {@link #splitRight}.
+     */
+    private void split(Node n, int index) {
+        if (n == null) {
+            splitLeft = null;
+            splitRight = null;
+        } else if (size(n.left) < index) {
+            split(n.right, index - size(n.left) - 1);
+            n.right = splitLeft;
+            update(n);
+            splitLeft = n;
+            n.parent = null;
+        } else {
+            split(n.left, index);
+            n.left = splitRight;
+            update(n);
+            splitRight = n;
+            n.parent = null;
+        }
+    }
+
+    /** Joins two trees where all nodes of the first one come first. */
+    private static Node merge(Node a, Node b) {
+        if (a == null) {
+            return b;
+        } else if (b == null) {
+            return a;
+        } else if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            update(a);
+            return a;
+        } else {
+            b.left = merge(a, b.left);
+            update(b);
+            return b;
+        }
+    }
+
+    /** Recomputes the size of a node and sets the parent of its children. */
+    private static void update(Node n) {
+        n.size = 1 + size(n.left) + size(n.right);
+        if (n.left != null) {
+            n.left.parent = n;
+        }
+        if (n.right != null) {
+            n.right.parent = n;
+        }
+    }
+
+    private static int size(Node n) {
+        return n != null ? n.size : 0;
+    }
+
+    private int nextPriority() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index);
+        }
+    }
+
+    private static final class Node {
+        private final Figure figure;
+        private final int priority;
+        private int size = 1;
+        private Node left;
+        private Node right;
+        private Node parent;
+
+        Node(Figure figure, int priority) {
+            this.figure = figure;
+            this.priority = priority;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.std;
+
+import java.awt.Rectangle;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.swing.JComponent;
+import javax.swing.Timer;
+
+/**
+ * The FrameScheduler limits the rate at which a component is repainted. Repaint
+ * requests are not passed to Swing immediately; the requested regions are
+ * collected and flushed as a single repaint at the next frame boundary. Mouse
+ * drags which deliver events faster than the display refreshes therefore cause
+ * at most one paint per frame.
+ *
+ * Before the repaint is issued, an optional frame action is run. It can be used
+ * to perform other work which only needs to happen once per frame, such as
+ * updating the preferred size of the component.
+ *
+ * The scheduler counts the requested repaints and the paints actually executed
+ * by the component. All methods except the statistics accessors must be called
+ * on the event dispatch thread.
+ *
+ * @see StdDrawView
+ */
+final class FrameScheduler {
+
+    /** Default number of frames per second. */
+    static final int DEFAULT_FPS = 60;
+
+    /** The component which is repainted. */
+    private final JComponent component;
+
+    /** Work to be done once per frame before the repaint, or null. */
+    private final Runnable frameAction;
+
+    /** Timer which flushes the collected requests at the next frame boundary. */
+    private final Timer timer;
+
+    /** The requested number of frames per second. */
+    private int fps;
+
+    /** Duration of a frame in milliseconds. */
+    private int period;
+
+    /** Start of the last flushed frame, in milliseconds. */
+    private long lastFrame;
+
+    /** Union of the regions requested since the last frame, or null. */
+    private Rectangle dirty;
+
+    /** Whether the whole component has to be repainted. */
+    private boolean full;
+
+    /** Number of repaint requests received. */
+    private final AtomicLong requested = new AtomicLong();
+
+    /** Number of repaints passed to Swing. */
+    private final AtomicLong flushed = new AtomicLong();
+
+    /** Number of paints executed by the component. */
+    private final AtomicLong painted = new AtomicLong();
+
+    /**
+     * Creates a frame scheduler for the given component.
+     *
+     * @param component   the component to be repainted
+     * @param frameAction work to be done once per frame before the repaint, may be
+     *                    <code>null</code>
+     */
+    FrameScheduler(JComponent component, Runnable frameAction) {
+        this.component = component;
+        this.frameAction = frameAction;
+        this.timer = new Timer(0, e -> flush());
+        this.timer.setRepeats(false);
+        setTargetFps(DEFAULT_FPS);
+    }
+
+    /**
+     * Sets the maximal number of frames per second.
+     *
+     * @param fps the target frame rate
+     */
+    void setTargetFps(int fps) {
+        if (fps <= 0) {
+            throw new IllegalArgumentException("fps must be positive");
+        }
+        this.fps = fps;
+        this.period = Math.max(1, 1000 / fps);
+    }
+
+    /**
+     * Returns the maximal number of frames per second.
+     *
+     * @return the target frame rate
+     */
+    int getTargetFps() {
+        return fps;
+    }
+
+    /**
+     * Requests a repaint of the given region at the next frame.
+     *
+     * @param r the region to be repainted in component coordinates, or
+     *          <code>null</code> to repaint the whole component
+     */
+    void request(Rectangle r) {
+        requested.incrementAndGet();
+        if (r == null) {
+            full = true;
+        } else if (!full) {
+            if (dirty == null) {
+                dirty = new Rectangle(r);
+            } else {
+                dirty.add(r);
+            }
+        }
+        schedule();
+    }
+
+    /**
+     * Requests that the frame action is run at the next frame, without repainting
+     * anything unless other requests are received.
+     */
+    void requestFrame() {
+        schedule();
+    }
+
+    private void schedule() {
+        if (!timer.isRunning()) {
+            long wait = lastFrame + period - System.currentTimeMillis();
+            timer.setInitialDelay((int) Math.max(0, Math.min(wait, period)));
+            timer.start();
+        }
+    }
+
+    /** Passes the collected requests as a single repaint to Swing. */
+    private void flush() {
+        lastFrame = System.currentTimeMillis();
+        if (frameAction != null) {
+            frameAction.run();
+        }
+        if (full) {
+            component.repaint(0, 0, 0, component.getWidth(), component.getHeight());
+            flushed.incrementAndGet();
+        } else if (dirty != null) {
+            component.repaint(0, dirty.x, dirty.y, dirty.width, dirty.height);
+            flushed.incrementAndGet();
+        }
+        full = false;
+        dirty = null;
+    }
+
+    /** Records that the component has been painted. */
+    void painted() {
+        painted.incrementAndGet();
+    }
+
+    /** Stops pending repaints. */
+    void stop() {
+        timer.stop();
+        full = false;
+        dirty = null;
+    }
+
+    /**
+     * Returns the number of repaint requests received so far.
+     *
+     * @return the number of requested repaints
+     */
+    long getRequestedRepaints() {
+        return requested.get();
+    }
+
+    /**
+     * Returns the number of (coalesced) repaints passed to Swing so far.
+     *
+     * @return the number of scheduled frames
+     */
+    long getScheduledRepaints() {
+        return flushed.get();
+    }
+
+    /**
+     * Returns the number of paints executed by the component so far.
+     *
+     * @return the number of executed paints
+     */
+    long getExecutedRepaints() {
+        return painted.get();
+    }
+}
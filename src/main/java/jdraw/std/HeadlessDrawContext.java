@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.std;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.swing.JMenu;
+
+import jdraw.figures.LineTool;
+import jdraw.figures.OvalTool;
+import jdraw.figures.RectTool;
+import jdraw.framework.DrawContext;
+import jdraw.framework.DrawModel;
+import jdraw.framework.DrawTool;
+import jdraw.framework.DrawView;
+
+/**
+ * A draw context without a window. It offers the same tools as the
+ * {@link StdContext} (selection, rectangle, oval and line), but has no menus,
+ * no tool bar and no status line, so it can be used where no display is
+ * available, e.g. to replay recorded input.
+ *
+ * @see InputReplayer
+ */
+final class HeadlessDrawContext implements DrawContext {
+
+    private final DrawView view;
+
+    /** The registered tools by name, in registration order. */
+    private final Map<String, DrawTool> tools = new LinkedHashMap<>();
+
+    private final DrawTool defaultTool;
+    private DrawTool currentTool;
+
+    /**
+     * Creates a context for the given view and registers the standard tools.
+     *
+     * @param view the view of this context
+     */
+    HeadlessDrawContext(DrawView view) {
+        this.view = view;
+        view.setDrawContext(this);
+        defaultTool = new StdSelectionTool(view, this);
+        addTool(defaultTool);
+        addTool(new RectTool(this));
+        addTool(new OvalTool(this));
+        addTool(new LineTool(this));
+        setDefaultTool();
+    }
+
+    @Override
+    public DrawView getView() {
+        return view;
+    }
+
+    @Override
+    public DrawModel getModel() {
+        return view.getModel();
+    }
+
+    @Override
+    public void showStatusText(String msg) {
+        // no status line
+    }
+
+    @Override
+    public void addMenu(JMenu menu) {
+        // no menu bar
+    }
+
+    @Override
+    public void removeMenu(JMenu menu) {
+        // no menu bar
+    }
+
+    @Override
+    public void addTool(DrawTool tool) {
+        if (tool != null) {
+            tools.put(tool.getName(), tool);
+        }
+    }
+
+    /**
+     * Returns the registered tool with the given name.
+     *
+     * @param name the name of the tool
+     * @return the tool, or <code>null</code> if no such tool is registered
+     */
+    DrawTool getTool(String name) {
+        return tools.get(name);
+    }
+
+    @Override
+    public DrawTool getTool() {
+        return currentTool;
+    }
+
+    @Override
+    public void setTool(DrawTool tool) {
+        if (tool == null) {
+            throw new IllegalArgumentException("DrawTool must not be null");
+        }
+        if (currentTool != tool) {
+            if (currentTool != null) {
+                currentTool.deactivate();
+            }
+            currentTool = tool;
+            tool.activate();
+            view.clearSelection();
+        }
+    }
+
+    @Override
+    public void setDefaultTool() {
+        setTool(defaultTool);
+    }
+
+    @Override
+    public void showView() {
+        throw new UnsupportedOperationException("a headless context cannot be shown");
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.std;
+
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The InputRecorder writes the mouse and key events received by a
+ * {@link StdDrawView} to a text file, together with the tool which was active
+ * when the event was received. A recorded session can be replayed without a
+ * display by an {@link InputReplayer}.
+ *
+ * The file starts with a header line, followed by one line per event:
+ *
+ * <PRE>
+ * when id x y modifiers button clickCount keyCode keyChar wheelRotation tool
+ * </PRE>
+ *
+ * where <code>when</code> is the time of the event in milliseconds since the
+ * first recorded event, <code>x</code> and <code>y</code> are pixel
+ * coordinates of the view and <code>tool</code> is the name of the active tool
+ * (the rest of the line). Recording is done on the event dispatch thread; the
+ * events are buffered and written when the buffer is full or the recorder is
+ * closed.
+ *
+ * @see StdDrawView#setInputRecorder(InputRecorder)
+ */
+public final class InputRecorder implements Closeable {
+
+    /** First line of a recording. */
+    static final String HEADER = "# JDraw input recording 1";
+
+    private final BufferedWriter out;
+
+    /** Time of the first recorded event, or -1 before the first event. */
+    private long start = -1;
+
+    /** Whether the recorder has been closed. */
+    private boolean closed;
+
+    /**
+     * Creates a recorder writing to the given writer.
+     *
+     * @param out the writer to write to; it is closed with this recorder
+     * @throws IOException if the header cannot be written
+     */
+    public InputRecorder(Writer out) throws IOException {
+        this.out = out instanceof BufferedWriter ? (BufferedWriter) out : new BufferedWriter(out);
+        this.out.write(HEADER);
+        this.out.newLine();
+    }
+
+    /**
+     * Records an event.
+     *
+     * @param e    the event as received by the view
+     * @param tool the name of the active tool, or <code>null</code>
+     */
+    synchronized void record(InputEvent e, String tool) {
+        if (closed) {
+            return;
+        }
+        if (start < 0) {
+            start = e.getWhen();
+        }
+        Entry entry = new Entry();
+        entry.when = e.getWhen() - start;
+        entry.id = e.getID();
+        entry.modifiers = e.getModifiersEx();
+        entry.tool = tool != null ? tool : "";
+        if (e instanceof MouseEvent) {
+            MouseEvent me = (MouseEvent) e;
+            entry.x = me.getX();
+            entry.y = me.getY();
+            entry.button = me.getButton();
+            entry.clickCount = me.getClickCount();
+        }
+        if (e instanceof MouseWheelEvent) {
+            entry.wheelRotation = ((MouseWheelEvent) e).getPreciseWheelRotation();
+        }
+        if (e instanceof KeyEvent) {
+            entry.keyCode = ((KeyEvent) e).getKeyCode();
+            entry.keyChar = ((KeyEvent) e).getKeyChar();
+        }
+        try {
+            out.write(entry.toString());
+            out.newLine();
+        } catch (IOException ex) {
+            // recording must never interfere with the editor
+            closed = true;
+        }
+    }
+
+    /**
+     * Stops recording and closes the underlying writer.
+     *
+     * @throws IOException if the writer cannot be flushed or closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        out.close();
+    }
+
+    /**
+     * Reads a recording.
+     *
+     * @param in the reader to read from; it is not closed
+     * @return the recorded events in the order in which they were recorded
+     * @throws IOException if reading fails or the input is not a recording
+     */
+    public static List<Entry> read(Reader in) throws IOException {
+        BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        if (!HEADER.equals(reader.readLine())) {
+            throw new IOException("not a JDraw input recording");
+        }
+        List<Entry> entries = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.isEmpty()) {
+                entries.add(Entry.parse(line));
+            }
+        }
+        return entries;
+    }
+
+    /** A recorded event. */
+    public static final class Entry {
+        /** Time in milliseconds since the first recorded event. */
+        long when;
+        /** Event id, e.g. {@link MouseEvent#MOUSE_PRESSED}. */
+        int id;
+        int x;
+        int y;
+        /** Extended modifiers, see {@link InputEvent#getModifiersEx()}. */
+        int modifiers;
+        int button;
+        int clickCount;
+        int keyCode;
+        char keyChar = KeyEvent.CHAR_UNDEFINED;
+        double wheelRotation;
+        /** Name of the active tool. */
+        String tool;
+
+        /**
+         * Returns the time of the event relative to the first recorded event.
+         *
+         * @return the time in milliseconds
+         */
+        public long getWhen() {
+            return when;
+        }
+
+        /**
+         * Returns the id of the event, e.g. {@link MouseEvent#MOUSE_PRESSED}.
+         *
+         * @return the event id
+         */
+        public int getId() {
+            return id;
+        }
+
+        /**
+         * Returns the name of the tool which was active when the event was
+         * received.
+         *
+         * @return the tool name
+         */
+        public String getTool() {
+            return tool;
+        }
+
+        static Entry parse(String line) throws IOException {
+            String[] f = line.split(" ", 11);
+            if (f.length < 10) {
+                throw new IOException("invalid event: " + line);
+            }
+            try {
+                Entry e = new Entry();
+                e.when = Long.parseLong(f[0]);
+                e.id = Integer.parseInt(f[1]);
+                e.x = Integer.parseInt(f[2]);
+                e.y = Integer.parseInt(f[3]);
+                e.modifiers = Integer.parseInt(f[4]);
+                e.button = Integer.parseInt(f[5]);
+                e.clickCount = Integer.parseInt(f[6]);
+                e.keyCode = Integer.parseInt(f[7]);
+                e.keyChar = (char) Integer.parseInt(f[8]);
+                e.wheelRotation = Double.parseDouble(f[9]);
+                e.tool = f.length > 10 ? f[10] : "";
+                return e;
+            } catch (NumberFormatException ex) {
+                throw new IOException("invalid event: " + line, ex);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return when + " " + id + " " + x + " " + y + " " + modifiers + " " + button + " " + clickCount + " "
+                    + keyCode + " " + (int) keyChar + " " + wheelRotation + " " + tool;
+        }
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.std;
+
+import java.awt.Graphics2D;
+import java.awt.event.KeyEvent;
+import java.awt.event.KeyListener;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseListener;
+import java.awt.event.MouseMotionListener;
+import java.awt.event.MouseWheelEvent;
+import java.awt.event.MouseWheelListener;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.swing.SwingUtilities;
+
+import jdraw.framework.DrawModel;
+import jdraw.framework.DrawTool;
+
+/**
+ * The InputReplayer replays a session recorded by an {@link InputRecorder}
+ * against a draw model, without a window and as fast as possible. The recorded
+ * events are passed to the input handler of a {@link StdDrawView}, which in
+ * turn drives the selection tool and the draw tools exactly as in the recorded
+ * session.
+ *
+ * For every event the time until the event has been handled and the number of
+ * bytes allocated meanwhile are measured. The result is a {@link Report} with
+ * the total time and the latency percentiles. Optionally the view is painted
+ * into an offscreen image after every event, such that rendering is included
+ * in the measurements.
+ *
+ * The replay runs on the event dispatch thread, as the editor itself would.
+ *
+ * @see jdraw.JDrawReplay
+ */
+public final class InputReplayer {
+
+    /** Size of the view if it is painted, in pixels. */
+    private static final int VIEW_WIDTH = 1280;
+    private static final int VIEW_HEIGHT = 800;
+
+    private final DrawModel model;
+
+    /** Whether the view is painted after every event. */
+    private boolean paint = false;
+
+    /**
+     * Creates a replayer which replays sessions against the given model.
+     *
+     * @param model the model the tools work on
+     */
+    public InputReplayer(DrawModel model) {
+        this.model = model;
+    }
+
+    /**
+     * Sets whether the view is painted after every event.
+     *
+     * @param paint <code>true</code> to include painting in the measurements
+     */
+    public void setPaint(boolean paint) {
+        this.paint = paint;
+    }
+
+    /**
+     * Replays the given events. The model is not cleared before.
+     *
+     * @param entries the recorded events
+     * @return the measurements of the replay
+     * @throws IllegalArgumentException if an event refers to an unknown tool
+     */
+    public Report replay(List<InputRecorder.Entry> entries) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            return doReplay(entries);
+        }
+        Report[] report = new Report[1];
+        try {
+            SwingUtilities.invokeAndWait(() -> report[0] = doReplay(entries));
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        return report[0];
+    }
+
+    private Report doReplay(List<InputRecorder.Entry> entries) {
+        StdDrawView view = new StdDrawView(model);
+        HeadlessDrawContext context = new HeadlessDrawContext(view);
+        BufferedImage image = null;
+        Graphics2D g = null;
+        if (paint) {
+            view.setSize(VIEW_WIDTH, VIEW_HEIGHT);
+            image = new BufferedImage(VIEW_WIDTH, VIEW_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+            g = image.createGraphics();
+            g.setClip(0, 0, VIEW_WIDTH, VIEW_HEIGHT);
+        }
+
+        long[] latencies = new long[entries.size()];
+        long allocated = 0;
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < latencies.length; i++) {
+                InputRecorder.Entry entry = entries.get(i);
+                DrawTool tool = context.getTool(entry.tool);
+                if (tool == null) {
+                    throw new IllegalArgumentException("unknown tool: " + entry.tool);
+                }
+                context.setTool(tool);
+
+                long bytes = allocatedBytes();
+                long t = System.nanoTime();
+                dispatch(view, entry);
+                if (g != null) {
+                    view.paintComponent(g);
+                }
+                latencies[i] = System.nanoTime() - t;
+                allocated += allocatedBytes() - bytes;
+            }
+        } finally {
+            if (g != null) {
+                g.dispose();
+            }
+            view.close();
+        }
+        long total = System.nanoTime() - start;
+        long recorded = entries.isEmpty() ? 0 : entries.get(entries.size() - 1).when;
+        return new Report(latencies, total, recorded, allocated);
+    }
+
+    /** Passes a recorded event to the listeners of the view. */
+    private static void dispatch(StdDrawView view, InputRecorder.Entry e) {
+        switch (e.id) {
+        case MouseEvent.MOUSE_PRESSED:
+        case MouseEvent.MOUSE_RELEASED: {
+            MouseEvent me = mouseEvent(view, e);
+            for (MouseListener l : view.getMouseListeners()) {
+                if (e.id == MouseEvent.MOUSE_PRESSED) {
+                    l.mousePressed(me);
+                } else {
+                    l.mouseReleased(me);
+                }
+            }
+            break;
+        }
+        case MouseEvent.MOUSE_DRAGGED:
+        case MouseEvent.MOUSE_MOVED: {
+            MouseEvent me = mouseEvent(view, e);
+            for (MouseMotionListener l : view.getMouseMotionListeners()) {
+                if (e.id == MouseEvent.MOUSE_DRAGGED) {
+                    l.mouseDragged(me);
+                } else {
+                    l.mouseMoved(me);
+                }
+            }
+            break;
+        }
+        case MouseEvent.MOUSE_WHEEL: {
+            MouseWheelEvent we = new MouseWheelEvent(view, e.id, e.when, e.modifiers, e.x, e.y, 0, 0,
+                    e.clickCount, false, MouseWheelEvent.WHEEL_UNIT_SCROLL, 1, (int) e.wheelRotation,
+                    e.wheelRotation);
+            for (MouseWheelListener l : view.getMouseWheelListeners()) {
+                l.mouseWheelMoved(we);
+            }
+            break;
+        }
+        case KeyEvent.KEY_PRESSED: {
+            KeyEvent ke = new KeyEvent(view, e.id, e.when, e.modifiers, e.keyCode, e.keyChar);
+            for (KeyListener l : view.getKeyListeners()) {
+                l.keyPressed(ke);
+            }
+            break;
+        }
+        default:
+            // other events are not handled by the view
+        }
+    }
+
+    private static MouseEvent mouseEvent(StdDrawView view, InputRecorder.Entry e) {
+        return new MouseEvent(view, e.id, e.when, e.modifiers, e.x, e.y, e.clickCount, false, e.button);
+    }
+
+    /**
+     * Returns the number of bytes allocated by the current thread so far, or 0 if
+     * the JVM does not measure allocations.
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getCurrentThreadAllocatedBytes();
+        }
+        return 0;
+    }
+
+    /** The measurements of a replay. */
+    public static final class Report {
+        /** Latencies of the events in nanoseconds, sorted. */
+        private final long[] latencies;
+        private final long totalNanos;
+        private final long recordedMillis;
+        private final long allocatedBytes;
+
+        Report(long[] latencies, long totalNanos, long recordedMillis, long allocatedBytes) {
+            this.latencies = latencies.clone();
+            Arrays.sort(this.latencies);
+            this.totalNanos = totalNanos;
+            this.recordedMillis = recordedMillis;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        /**
+         * Returns the number of replayed events.
+         *
+         * @return the number of events
+         */
+        public int getEvents() {
+            return latencies.length;
+        }
+
+        /**
+         * Returns the time needed for the whole replay.
+         *
+         * @return the total time in nanoseconds
+         */
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        /**
+         * Returns the duration of the recorded session.
+         *
+         * @return the time between the first and the last event in milliseconds
+         */
+        public long getRecordedMillis() {
+            return recordedMillis;
+        }
+
+        /**
+         * Returns the number of bytes allocated while the events were handled.
+         *
+         * @return the allocated bytes, 0 if the JVM does not measure allocations
+         */
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        /**
+         * Returns the given percentile of the event latencies.
+         *
+         * @param p the percentile, between 0 and 100
+         * @return the latency in nanoseconds
+         */
+        public long getLatencyPercentile(double p) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int i = (int) Math.ceil(p / 100 * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(latencies.length - 1, i))];
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "%d events in %.1f ms (recorded %d ms), latency p50 %.3f ms, p90 %.3f ms, p99 %.3f ms, "
+                            + "max %.3f ms, allocated %d bytes (%d per event)",
+                    getEvents(), totalNanos / 1e6, recordedMillis, getLatencyPercentile(50) / 1e6,
+                    getLatencyPercentile(90) / 1e6, getLatencyPercentile(99) / 1e6,
+                    getLatencyPercentile(100) / 1e6, allocatedBytes,
+                    latencies.length == 0 ? 0 : allocatedBytes / latencies.length);
+        }
+    }
+}
@@ -0,0 +1,353 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.std;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.swing.JComponent;
+import javax.swing.JViewport;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.event.ChangeListener;
+
+import jdraw.export.FigureRenderer;
+import jdraw.framework.DrawModel;
+import jdraw.framework.DrawModelListener;
+import jdraw.framework.DrawView;
+import jdraw.framework.DrawingSnapshot;
+
+/**
+ * The OverviewPanel shows a downsampled thumbnail of the whole drawing together
+ * with a rectangle marking the part of the drawing which is currently visible
+ * in the main view. Clicking or dragging in the overview scrolls the main view
+ * such that the selected point is centered.
+ *
+ * The thumbnail is kept up to date incrementally. Model events are collected on
+ * the event dispatch thread and turned into dirty regions (old and new bounds
+ * of the changed figures). After a short delay, a snapshot of the model is
+ * taken and the dirty regions are rasterised from the snapshot on a background
+ * thread into a patch which is then copied into the thumbnail on the event
+ * dispatch thread. Only if the drawing grows beyond the area covered by the
+ * thumbnail, the panel is resized or the drawing was cleared, the whole
+ * thumbnail is rendered again.
+ *
+ * The background thread only reads the snapshot, never the figures of the
+ * model, so it does not race with modifications on the event dispatch thread.
+ *
+ * @see StdDrawView
+ * @see AbstractContext
+ */
+@SuppressWarnings("serial")
+public final class OverviewPanel extends JComponent {
+
+    /** Default width of the panel in pixels. */
+    private static final int DEFAULT_WIDTH = 200;
+    /** Default height of the panel in pixels. */
+    private static final int DEFAULT_HEIGHT = 150;
+    /** Delay in milliseconds used to coalesce model events into one update. */
+    private static final int UPDATE_DELAY = 100;
+    /** Fraction by which the covered area is grown when the drawing outgrows it. */
+    private static final double EXTENT_SLACK = 0.25;
+    /** Color of the rectangle marking the visible part of the drawing. */
+    private static final Color VIEWPORT_COLOR = Color.RED;
+
+    /** The view whose drawing is shown and which is scrolled by this panel. */
+    private final DrawView view;
+    /** The model of the view. */
+    private final DrawModel model;
+    /** The viewport of the scroll pane containing the view. */
+    private final JViewport viewport;
+
+    /** Last known bounds of the figures, used to compute dirty regions. */
+    private final FigureBoundsTracker bounds;
+    /** Listener collecting dirty regions from model events. */
+    private final DrawModelListener ml;
+    /** Weak registration of {@link #ml}, see {@link WeakModelListener}. */
+    private final WeakModelListener registration;
+    /** Listener repainting the viewport rectangle when the view is scrolled. */
+    private final ChangeListener scrollListener = e -> repaint();
+
+    /** Timer which starts an update of the thumbnail after model events. */
+    private final Timer updateTimer;
+    /** Background thread on which figures are rasterised. */
+    private final ExecutorService renderer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "JDraw overview renderer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // The following fields are only accessed on the event dispatch thread.
+
+    /** The thumbnail of the drawing, or null if not rendered yet. */
+    private BufferedImage thumbnail;
+    /** Area of the drawing covered by the thumbnail, in drawing coordinates. */
+    private Rectangle extent;
+    /** Scale from drawing coordinates to thumbnail pixels. */
+    private double scale;
+    /** Incremented whenever the whole thumbnail is rendered anew. */
+    private int generation;
+    /** Union of all dirty regions since the last update, or null. */
+    private Rectangle dirty;
+    /** Whether the whole thumbnail has to be rendered again. */
+    private boolean fullUpdate = true;
+    /** Whether the whole thumbnail is being rendered on the background thread. */
+    private boolean rendering;
+
+    /**
+     * Creates an overview of the given view.
+     *
+     * @param view     the view whose drawing is shown
+     * @param viewport the viewport of the scroll pane containing the view
+     */
+    public OverviewPanel(DrawView view, JViewport viewport) {
+        this.view = view;
+        this.model = view.getModel();
+        this.viewport = viewport;
+        this.bounds = new FigureBoundsTracker(model);
+
+        setPreferredSize(new Dimension(DEFAULT_WIDTH, DEFAULT_HEIGHT));
+        setOpaque(true);
+
+        updateTimer = new Timer(UPDATE_DELAY, e -> update());
+        updateTimer.setRepeats(false);
+
+        ml = e -> {
+            List<Rectangle> d = bounds.update(e);
+            if (d == null) {
+                invalidateAll();
+            } else {
+                for (Rectangle r : d) {
+                    if (dirty == null) {
+                        dirty = new Rectangle(r);
+                    } else {
+                        dirty.add(r);
+                    }
+                }
+            }
+            if (!updateTimer.isRunning()) {
+                updateTimer.start();
+            }
+        };
+        registration = WeakModelListener.register(model, ml);
+        viewport.addChangeListener(scrollListener);
+
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                invalidateAll();
+                update();
+            }
+        });
+
+        MouseAdapter scroller = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                scrollTo(e.getPoint());
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                scrollTo(e.getPoint());
+            }
+        };
+        addMouseListener(scroller);
+        addMouseMotionListener(scroller);
+    }
+
+    /**
+     * Stops listening to the model and the viewport and terminates the background
+     * thread. This method should be called when the enclosing window is closed.
+     */
+    public void close() {
+        registration.unregister();
+        viewport.removeChangeListener(scrollListener);
+        updateTimer.stop();
+        renderer.shutdownNow();
+    }
+
+    /** Requests that the whole thumbnail is rendered again. */
+    private void invalidateAll() {
+        fullUpdate = true;
+        extent = null;
+        dirty = null;
+    }
+
+    /**
+     * Starts rendering the parts of the thumbnail which are out of date. A
+     * snapshot of the model is taken here, on the event dispatch thread; it is
+     * rasterised on the background thread. The area covered by a new thumbnail
+     * is computed from the snapshot on the background thread as well.
+     */
+    private void update() {
+        int w = getWidth();
+        int h = getHeight();
+        if (w <= 0 || h <= 0 || rendering) {
+            // changes made meanwhile are handled when the thumbnail is complete
+            return;
+        }
+        if (dirty != null && extent != null && !extent.contains(dirty)) {
+            fullUpdate = true;
+        }
+
+        if (fullUpdate) {
+            fullUpdate = false;
+            dirty = null;
+            rendering = true;
+            DrawingSnapshot snapshot = model.snapshot();
+            int gen = ++generation;
+            Rectangle previous = extent != null ? new Rectangle(extent) : null;
+            renderer.execute(() -> {
+                Rectangle covered = new Rectangle(0, 0, 1, 1);
+                snapshot.getFigures().forEachOrdered(f -> {
+                    Rectangle r = FigureRenderer.paddedBounds(f);
+                    if (r != null) {
+                        covered.add(r);
+                    }
+                });
+                if (previous != null) {
+                    // the drawing outgrew the thumbnail: leave some room to grow further
+                    covered.add(previous);
+                    covered.grow((int) (covered.width * EXTENT_SLACK / 2), (int) (covered.height * EXTENT_SLACK / 2));
+                }
+                double s = Math.min((double) w / covered.width, (double) h / covered.height);
+                BufferedImage image = rasterise(snapshot, covered, s, new Rectangle(0, 0, w, h));
+                SwingUtilities.invokeLater(() -> {
+                    if (gen == generation) {
+                        rendering = false;
+                        thumbnail = image;
+                        extent = covered;
+                        scale = s;
+                        repaint();
+                        if ((dirty != null || fullUpdate) && !updateTimer.isRunning()) {
+                            // changes which occurred while the thumbnail was rendered
+                            updateTimer.start();
+                        }
+                    }
+                });
+            });
+        } else if (dirty != null && thumbnail != null) {
+            Rectangle area = dirty;
+            dirty = null;
+
+            int x0 = (int) Math.floor((area.x - extent.x) * scale);
+            int y0 = (int) Math.floor((area.y - extent.y) * scale);
+            int x1 = (int) Math.ceil((area.x + area.width - extent.x) * scale);
+            int y1 = (int) Math.ceil((area.y + area.height - extent.y) * scale);
+            Rectangle region = new Rectangle(x0, y0, x1 - x0 + 1, y1 - y0 + 1)
+                    .intersection(new Rectangle(0, 0, thumbnail.getWidth(), thumbnail.getHeight()));
+            if (region.isEmpty()) {
+                return;
+            }
+
+            DrawingSnapshot snapshot = model.snapshot();
+            int gen = generation;
+            Rectangle ext = new Rectangle(extent);
+            double s = scale;
+            renderer.execute(() -> {
+                BufferedImage patch = rasterise(snapshot, ext, s, region);
+                SwingUtilities.invokeLater(() -> {
+                    if (gen == generation && thumbnail != null) {
+                        Graphics g = thumbnail.getGraphics();
+                        g.drawImage(patch, region.x, region.y, null);
+                        g.dispose();
+                        repaint(region);
+                    }
+                });
+            });
+        }
+    }
+
+    /**
+     * Rasterises the figures of the given snapshot into an image covering the
+     * given region of the thumbnail. Figures outside of the region are culled,
+     * figures smaller than a pixel are drawn as a single pixel.
+     *
+     * @param snapshot the snapshot of the model to draw
+     * @param extent   the area of the drawing covered by the thumbnail
+     * @param scale    the scale from drawing coordinates to thumbnail pixels
+     * @param region   the region of the thumbnail to render, in thumbnail pixels
+     * @return an image of the size of the region
+     */
+    private static BufferedImage rasterise(DrawingSnapshot snapshot, Rectangle extent, double scale,
+            Rectangle region) {
+        BufferedImage image = new BufferedImage(region.width, region.height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D pixels = image.createGraphics();
+        pixels.setColor(Color.WHITE);
+        pixels.fillRect(0, 0, region.width, region.height);
+        FigureRenderer renderer = new FigureRenderer(pixels, region, extent.getLocation(), scale);
+        snapshot.getFigures().forEachOrdered(renderer::draw);
+        renderer.dispose();
+        pixels.dispose();
+        return image;
+    }
+
+    /**
+     * Scrolls the main view such that the drawing point shown at the given
+     * position of the overview is centered in the viewport.
+     *
+     * @param p a position in this panel
+     */
+    private void scrollTo(Point p) {
+        if (extent == null) {
+            return;
+        }
+        Point2D drawing = new Point2D.Double(p.x / scale + extent.x, p.y / scale + extent.y);
+        Point2D target = view.getViewTransform().transform(drawing, null);
+
+        Dimension size = viewport.getExtentSize();
+        Dimension viewSize = viewport.getViewSize();
+        int x = (int) target.getX() - size.width / 2;
+        int y = (int) target.getY() - size.height / 2;
+        x = Math.max(0, Math.min(x, viewSize.width - size.width));
+        y = Math.max(0, Math.min(y, viewSize.height - size.height));
+        viewport.setViewPosition(new Point(x, y));
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, getWidth(), getHeight());
+        if (thumbnail != null) {
+            g.drawImage(thumbnail, 0, 0, null);
+        }
+        if (extent == null) {
+            return;
+        }
+
+        // visible part of the drawing, mapped from view pixels to the overview
+        Rectangle visible = viewport.getViewRect();
+        try {
+            AffineTransform toDrawing = view.getViewTransform().createInverse();
+            Point2D p0 = toDrawing.transform(new Point2D.Double(visible.x, visible.y), null);
+            Point2D p1 = toDrawing.transform(
+                    new Point2D.Double(visible.x + visible.width, visible.y + visible.height), null);
+            int x0 = (int) ((p0.getX() - extent.x) * scale);
+            int y0 = (int) ((p0.getY() - extent.y) * scale);
+            int x1 = (int) ((p1.getX() - extent.x) * scale);
+            int y1 = (int) ((p1.getY() - extent.y) * scale);
+            g.setColor(VIEWPORT_COLOR);
+            g.drawRect(x0, y0, x1 - x0 - 1, y1 - y0 - 1);
+        } catch (NoninvertibleTransformException e) {
+            // a view transform with a positive zoom is always invertible
+        }
+    }
+}
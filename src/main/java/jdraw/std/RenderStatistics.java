@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.std;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The RenderStatistics collect where the time of a {@link StdDrawView} goes:
+ * the duration of its paints, the work done for rendering tiles, the handles
+ * drawn, the repaints requested and executed and the rate of model events.
+ *
+ * The statistics are only collected while instrumentation is enabled on the
+ * view; otherwise the view holds no statistics object at all and the only
+ * overhead is a null check per paint and per model event.
+ *
+ * Values are recorded on the event dispatch thread (tile counts possibly on
+ * render threads) and may be read from any thread, e.g. by a JMX client.
+ *
+ * @see StdDrawView#setInstrumented(boolean)
+ */
+public final class RenderStatistics implements RenderStatisticsMBean {
+
+    /** Upper bounds of the buckets of the paint histogram, in milliseconds. */
+    private static final long[] BOUNDS = { 1, 2, 4, 8, 16, 33, 66, 132, 264, Long.MAX_VALUE };
+
+    /** The scheduler which counts the requested and executed repaints. */
+    private final FrameScheduler frames;
+
+    private final AtomicLongArray histogram = new AtomicLongArray(BOUNDS.length);
+    private final AtomicLong paints = new AtomicLong();
+    private final AtomicLong paintNanos = new AtomicLong();
+    private final AtomicLong maxPaintNanos = new AtomicLong();
+    /** Duration of the last paint in nanoseconds. */
+    private volatile long lastPaintNanos;
+
+    private final AtomicLong tilesRendered = new AtomicLong();
+    private final AtomicLong figuresDrawn = new AtomicLong();
+    private final AtomicLong figuresSimplified = new AtomicLong();
+    private final AtomicLong figuresCulled = new AtomicLong();
+    private final AtomicLong handlesDrawn = new AtomicLong();
+    private final AtomicLong events = new AtomicLong();
+
+    /** Repaint counters of the scheduler at the last reset. */
+    private volatile long requestedBase;
+    private volatile long executedBase;
+
+    /** Start of the current one second window for the event rate, in nanoseconds. */
+    private volatile long windowStart = System.nanoTime();
+    /** Number of events in the current window. */
+    private long windowEvents;
+    /** Event rate of the last complete window. */
+    private volatile double eventRate;
+
+    /**
+     * Creates statistics for a view whose repaints are scheduled by the given
+     * scheduler.
+     *
+     * @param frames the frame scheduler of the view
+     */
+    RenderStatistics(FrameScheduler frames) {
+        this.frames = frames;
+        this.requestedBase = frames.getRequestedRepaints();
+        this.executedBase = frames.getExecutedRepaints();
+    }
+
+    /**
+     * Records a paint of the view.
+     *
+     * @param nanos   the duration of the paint in nanoseconds
+     * @param handles the number of handles drawn
+     */
+    void paint(long nanos, int handles) {
+        lastPaintNanos = nanos;
+        paints.incrementAndGet();
+        paintNanos.addAndGet(nanos);
+        maxPaintNanos.accumulateAndGet(nanos, Math::max);
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        int i = 0;
+        while (millis >= BOUNDS[i]) {
+            i++;
+        }
+        histogram.incrementAndGet(i);
+        handlesDrawn.addAndGet(handles);
+    }
+
+    /**
+     * Records the work done for rendering a tile.
+     *
+     * @param drawn      the number of figures drawn into the tile
+     * @param simplified the number of figures simplified by the level of detail
+     * @param culled     the number of figures outside of the tile
+     */
+    void tile(int drawn, int simplified, int culled) {
+        tilesRendered.incrementAndGet();
+        figuresDrawn.addAndGet(drawn);
+        figuresSimplified.addAndGet(simplified);
+        figuresCulled.addAndGet(culled);
+    }
+
+    /** Records a model event received by the view. Called on the EDT only. */
+    void modelEvent() {
+        events.incrementAndGet();
+        long now = System.nanoTime();
+        long elapsed = now - windowStart;
+        if (elapsed >= TimeUnit.SECONDS.toNanos(1)) {
+            eventRate = windowEvents * 1e9 / elapsed;
+            windowEvents = 0;
+            windowStart = now;
+        }
+        windowEvents++;
+    }
+
+    @Override
+    public long getPaintCount() {
+        return paints.get();
+    }
+
+    @Override
+    public double getMeanPaintMillis() {
+        long n = paints.get();
+        return n == 0 ? 0 : paintNanos.get() / 1e6 / n;
+    }
+
+    @Override
+    public double getMaxPaintMillis() {
+        return maxPaintNanos.get() / 1e6;
+    }
+
+    @Override
+    public long[] getPaintHistogramBounds() {
+        return BOUNDS.clone();
+    }
+
+    @Override
+    public long[] getPaintHistogram() {
+        long[] h = new long[histogram.length()];
+        for (int i = 0; i < h.length; i++) {
+            h[i] = histogram.get(i);
+        }
+        return h;
+    }
+
+    @Override
+    public long getTilesRendered() {
+        return tilesRendered.get();
+    }
+
+    @Override
+    public long getFiguresDrawn() {
+        return figuresDrawn.get();
+    }
+
+    @Override
+    public long getFiguresSimplified() {
+        return figuresSimplified.get();
+    }
+
+    @Override
+    public long getFiguresCulled() {
+        return figuresCulled.get();
+    }
+
+    @Override
+    public long getHandlesDrawn() {
+        return handlesDrawn.get();
+    }
+
+    @Override
+    public long getRepaintsRequested() {
+        return frames.getRequestedRepaints() - requestedBase;
+    }
+
+    @Override
+    public long getRepaintsExecuted() {
+        return frames.getExecutedRepaints() - executedBase;
+    }
+
+    @Override
+    public long getModelEvents() {
+        return events.get();
+    }
+
+    @Override
+    public double getModelEventsPerSecond() {
+        // no event for more than a window: the last rate is outdated
+        if (System.nanoTime() - windowStart >= TimeUnit.SECONDS.toNanos(2)) {
+            return 0;
+        }
+        return eventRate;
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < histogram.length(); i++) {
+            histogram.set(i, 0);
+        }
+        paints.set(0);
+        paintNanos.set(0);
+        maxPaintNanos.set(0);
+        lastPaintNanos = 0;
+        tilesRendered.set(0);
+        figuresDrawn.set(0);
+        figuresSimplified.set(0);
+        figuresCulled.set(0);
+        handlesDrawn.set(0);
+        events.set(0);
+        requestedBase = frames.getRequestedRepaints();
+        executedBase = frames.getExecutedRepaints();
+        eventRate = 0;
+    }
+
+    /**
+     * Returns a short summary of the statistics, one line per entry, as shown by
+     * the overlay of the view.
+     *
+     * @return the lines of the summary
+     */
+    String[] summary() {
+        return new String[] {
+            String.format("paint %.2f ms (mean %.2f, max %.2f), %d paints", lastPaintMillis(),
+                    getMeanPaintMillis(), getMaxPaintMillis(), getPaintCount()),
+            String.format("tiles %d, figures drawn %d / simplified %d / culled %d", getTilesRendered(),
+                    getFiguresDrawn(), getFiguresSimplified(), getFiguresCulled()),
+            String.format("handles %d, repaints %d requested / %d executed", getHandlesDrawn(),
+                    getRepaintsRequested(), getRepaintsExecuted()),
+            String.format("model events %d (%.0f/s)", getModelEvents(), getModelEventsPerSecond()),
+        };
+    }
+
+    private double lastPaintMillis() {
+        return lastPaintNanos / 1e6;
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.std;
+
+/**
+ * Management interface of the render statistics of a view. The statistics are
+ * registered as a standard MBean under the name
+ * <code>jdraw:type=RenderStatistics,view=&lt;id&gt;</code> when instrumentation
+ * is enabled on a {@link StdDrawView}, and can be inspected with JConsole or
+ * any other JMX client.
+ *
+ * Figure counts refer to tiles: a figure which covers three tiles that have to
+ * be rendered is counted three times.
+ *
+ * @see RenderStatistics
+ */
+public interface RenderStatisticsMBean {
+
+    /**
+     * Returns the number of paints executed by the view.
+     *
+     * @return the number of paints
+     */
+    long getPaintCount();
+
+    /**
+     * Returns the mean duration of a paint.
+     *
+     * @return the mean paint duration in milliseconds
+     */
+    double getMeanPaintMillis();
+
+    /**
+     * Returns the longest duration of a paint.
+     *
+     * @return the maximal paint duration in milliseconds
+     */
+    double getMaxPaintMillis();
+
+    /**
+     * Returns the upper bounds of the buckets of the paint duration histogram.
+     * The last bucket has no upper bound and is reported as
+     * {@link Long#MAX_VALUE}.
+     *
+     * @return the upper bounds of the buckets in milliseconds
+     */
+    long[] getPaintHistogramBounds();
+
+    /**
+     * Returns the histogram of the paint durations. Element <code>i</code>
+     * counts the paints which took less than
+     * <code>getPaintHistogramBounds()[i]</code> milliseconds, but not less than
+     * the bound of the previous bucket.
+     *
+     * @return the number of paints per bucket
+     */
+    long[] getPaintHistogram();
+
+    /**
+     * Returns the number of tiles which have been rendered.
+     *
+     * @return the number of rendered tiles
+     */
+    long getTilesRendered();
+
+    /**
+     * Returns how many times a figure has been drawn into a tile.
+     *
+     * @return the number of figures drawn
+     */
+    long getFiguresDrawn();
+
+    /**
+     * Returns how many times a figure has been drawn as a single pixel because it
+     * was below the level of detail threshold, or skipped for that reason.
+     *
+     * @return the number of simplified figures
+     */
+    long getFiguresSimplified();
+
+    /**
+     * Returns how many times a figure has not been drawn into a tile because it
+     * did not intersect the tile.
+     *
+     * @return the number of culled figures
+     */
+    long getFiguresCulled();
+
+    /**
+     * Returns the number of selection handles drawn.
+     *
+     * @return the number of handles drawn
+     */
+    long getHandlesDrawn();
+
+    /**
+     * Returns the number of repaints requested from the view, e.g. by tools or
+     * model changes.
+     *
+     * @return the number of requested repaints
+     */
+    long getRepaintsRequested();
+
+    /**
+     * Returns the number of paints actually executed by the view. The difference
+     * to {@link #getRepaintsRequested()} is the number of coalesced requests.
+     *
+     * @return the number of executed repaints
+     */
+    long getRepaintsExecuted();
+
+    /**
+     * Returns the number of model events received by the view.
+     *
+     * @return the number of model events
+     */
+    long getModelEvents();
+
+    /**
+     * Returns the number of model events received during the last full second.
+     *
+     * @return the model event rate
+     */
+    double getModelEventsPerSecond();
+
+    /** Resets all statistics to zero. */
+    void reset();
+}
@@ -5,20 +5,29 @@
 package jdraw.std;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import java.awt.Rectangle;
 import java.awt.event.ActionListener;
+import java.awt.geom.AffineTransform;
 
+import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JFileChooser;
 import javax.swing.JMenu;
 import javax.swing.JMenuItem;
 import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
 import javax.swing.filechooser.FileFilter;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
+import jdraw.export.HeadlessRenderer;
+import jdraw.export.SvgExporter;
 import jdraw.figures.Group;
 import jdraw.figures.LineTool;
 import jdraw.figures.OvalTool;
@@ -28,9 +37,11 @@ import jdraw.framework.DrawModel;
 import jdraw.framework.DrawTool;
 import jdraw.framework.DrawToolFactory;
 import jdraw.framework.DrawView;
+import jdraw.framework.DrawingSnapshot;
 import jdraw.framework.Figure;
 import jdraw.framework.FigureGroup;
 import jdraw.grid.FixedGrid;
+import jdraw.jfr.FileIOEvent;
 
 /**
  * The StdContext class provides a standard implementation of the DrawContext
@@ -61,8 +72,20 @@ import jdraw.grid.FixedGrid;
 @SuppressWarnings("serial")
 public class StdContext extends AbstractContext {
 
+    /** Factor by which the zoom menu items change the zoom of the view. */
+    private static final double ZOOM_STEP = 1.25;
+
+    /** Tooltip of the Group menu item while grouping is disabled. */
+    private static final String GROUPING_DISABLED = "Groups cannot be shared with other editors";
+
     private List<Figure> clipboard;
 
+    /** The Group item of the edit menu, null before the menu has been created. */
+    private JMenuItem groupItem;
+
+    /** Whether figures may be grouped, see {@link #setGroupingEnabled(boolean)}. */
+    private boolean groupingEnabled = true;
+
     /**
      * Constructs a standard context with a default set of drawing tools.
      * 
@@ -85,6 +108,25 @@ public class StdContext extends AbstractContext {
         clipboard = new ArrayList<>();
     }
 
+    /**
+     * Enables or disables grouping figures, e.g. while the drawing is shared
+     * with other editors, which cannot receive groups. While grouping is
+     * disabled, the Group menu item is disabled and its tooltip tells why.
+     * 
+     * @param enabled whether figures may be grouped
+     */
+    public void setGroupingEnabled(boolean enabled) {
+        groupingEnabled = enabled;
+        updateGroupItem();
+    }
+
+    private void updateGroupItem() {
+        if (groupItem != null) {
+            groupItem.setEnabled(groupingEnabled);
+            groupItem.setToolTipText(groupingEnabled ? null : GROUPING_DISABLED);
+        }
+    }
+
     /**
      * Creates and initializes the "Edit" menu, providing options for undoing and
      * redoing actions, selecting all figures, clearing the drawing, and adjusting
@@ -171,28 +213,20 @@ public class StdContext extends AbstractContext {
         group.addActionListener(e -> {
             List<Figure> selection = getView().getSelection();
             if (selection != null && selection.size() > 1) {
-                DrawModel model = getModel();
-                Group g = new Group(model, selection);
-
-                for (Figure f : selection) {
-                    model.removeFigure(f);
-                }
-
-                model.addFigure(g);
+                Figure g = getModel().groupFigures(selection, Group::new);
                 getView().addToSelection(g);
             }
         });
         editMenu.add(group);
+        groupItem = group;
+        updateGroupItem();
 
         JMenuItem ungroup = new JMenuItem("Ungroup");
         ungroup.addActionListener(e -> {
             for (Figure g : getView().getSelection()) {
                 if (g instanceof FigureGroup) {
-                    getModel().removeFigure(g);
-                    ((FigureGroup) g).getFigureParts().forEach(f -> {
-                        getModel().addFigure(f);
-                        getView().addToSelection(f);
-                    });
+                    getModel().ungroupFigure(g);
+                    ((FigureGroup) g).getFigureParts().forEach(getView()::addToSelection);
                 }
             }
         });
@@ -269,6 +303,40 @@ public class StdContext extends AbstractContext {
         return fileMenu;
     }
 
+    /**
+     * Creates the "View" menu, providing options to zoom in and out, to reset
+     * the zoom and pan offset of the view and to show the render statistics.
+     * 
+     * @return a list containing the initialized "View" menu
+     */
+    @Override
+    protected List<JMenu> createAdditionalMenus() {
+        JMenu viewMenu = new JMenu("View");
+        viewMenu.add(createMenuItem("Zoom In", e -> getView().setZoom(getView().getZoom() * ZOOM_STEP),
+                "control EQUALS"));
+        viewMenu.add(createMenuItem("Zoom Out", e -> getView().setZoom(getView().getZoom() / ZOOM_STEP),
+                "control MINUS"));
+        viewMenu.add(createMenuItem("Actual Size", e -> {
+            DrawView view = getView();
+            view.setZoom(1.0);
+            AffineTransform t = view.getViewTransform();
+            view.pan(-(int) t.getTranslateX(), -(int) t.getTranslateY());
+        }, "control 0"));
+
+        if (getView() instanceof StdDrawView) {
+            StdDrawView view = (StdDrawView) getView();
+            viewMenu.addSeparator();
+            JCheckBoxMenuItem statistics = new JCheckBoxMenuItem("Render Statistics", view.isStatisticsOverlay());
+            statistics.addActionListener(e -> view.setStatisticsOverlay(statistics.isSelected()));
+            statistics.setAccelerator(KeyStroke.getKeyStroke("F12"));
+            viewMenu.add(statistics);
+        }
+
+        List<JMenu> menus = new ArrayList<>();
+        menus.add(viewMenu);
+        return menus;
+    }
+
     /**
      * Registers the default drawing tools available in the context, starting with
      * the
@@ -293,14 +361,7 @@ public class StdContext extends AbstractContext {
      * @param selection the figures to be moved to the front
      */
     public void bringToFront(DrawModel model, List<Figure> selection) {
-        // the figures in the selection are ordered according to the order in the model
-        List<Figure> orderedSelection = model.getFigures().filter(f -> selection.contains(f))
-                .collect(Collectors.toList());
-        Collections.reverse(orderedSelection);
-        int pos = (int) model.getFigures().count();
-        for (Figure f : orderedSelection) {
-            model.setFigureIndex(f, --pos);
-        }
+        model.bringToFront(selection);
     }
 
     /**
@@ -312,13 +373,7 @@ public class StdContext extends AbstractContext {
      * @param selection the figures to be moved to the back
      */
     public void sendToBack(DrawModel model, List<Figure> selection) {
-        // the figures in the selection are ordered according to the order in the model
-        List<Figure> orderedSelection = model.getFigures().filter(f -> selection.contains(f))
-                .collect(Collectors.toList());
-        int pos = 0;
-        for (Figure f : orderedSelection) {
-            model.setFigureIndex(f, pos++);
-        }
+        model.sendToBack(selection);
     }
 
     /**
@@ -334,6 +389,7 @@ public class StdContext extends AbstractContext {
         chooser.setFileFilter(new FileNameExtensionFilter("JDraw Graphics (*.draw)", "draw"));
         chooser.addChoosableFileFilter(new FileNameExtensionFilter("JDraw Graphics (*.xml)", "xml"));
         chooser.addChoosableFileFilter(new FileNameExtensionFilter("JDraw Graphics (*.json)", "json"));
+        chooser.addChoosableFileFilter(new FileNameExtensionFilter("Scalable Vector Graphics (*.svg)", "svg"));
 
         int res = chooser.showSaveDialog(this);
 
@@ -345,11 +401,45 @@ public class StdContext extends AbstractContext {
                 file = new File(chooser.getCurrentDirectory(),
                         file.getName() + "." + ((FileNameExtensionFilter) filter).getExtensions()[0]);
             }
-            System.out.println("save current graphic to file " + file.getName() + " using format "
-                    + ((FileNameExtensionFilter) filter).getExtensions()[0]);
+            if (file.getName().endsWith(".svg")) {
+                doExportSvg(file);
+            } else {
+                System.out.println("save current graphic to file " + file.getName() + " using format "
+                        + ((FileNameExtensionFilter) filter).getExtensions()[0]);
+            }
         }
     }
 
+    /**
+     * Writes the current drawing as an SVG document to the given file. The
+     * export works on a snapshot of the drawing and runs on a background thread,
+     * so the drawing can be edited while it is written.
+     * 
+     * @param file the file to write to
+     */
+    private void doExportSvg(File file) {
+        DrawingSnapshot snapshot = getModel().snapshot();
+        Rectangle area = new HeadlessRenderer(getModel()).getDrawingArea();
+        showStatusText("exporting drawing to " + file.getName());
+        Thread exporter = new Thread(() -> {
+            FileIOEvent event = new FileIOEvent(FileIOEvent.WRITE, file.getPath(), "svg");
+            boolean succeeded = false;
+            String status;
+            try (Writer out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+                new SvgExporter(out).write(snapshot, area);
+                succeeded = true;
+                status = "exported drawing to " + file.getName();
+            } catch (IOException e) {
+                status = "could not export drawing: " + e.getMessage();
+            } finally {
+                event.end(snapshot.getFigureCount(), file.length(), succeeded);
+            }
+            String message = status;
+            SwingUtilities.invokeLater(() -> showStatusText(message));
+        }, "SVG export");
+        exporter.start();
+    }
+
     /**
      * Handles the opening of a new drawing from a file. Opens a file chooser dialog
      * that allows the user to select a drawing file to open. Currently, this dialog
@@ -5,43 +5,162 @@
 
 package jdraw.std;
 
+import java.awt.Rectangle;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import jdraw.export.FigureRenderer;
 import jdraw.framework.DrawCommandHandler;
 import jdraw.framework.DrawModel;
 import jdraw.framework.DrawModelEvent;
 import jdraw.framework.DrawModelListener;
+import jdraw.framework.DrawingSnapshot;
 import jdraw.framework.Figure;
 import jdraw.framework.FigureEvent;
+import jdraw.framework.FigureGroup;
 import jdraw.framework.FigureListener;
 import jdraw.framework.DrawModelEvent.Type;
+import jdraw.jfr.ModelMutationEvent;
+import jdraw.jfr.RecordingDrawCommandHandler;
 
 /**
  * The StdDrawModel class provides a standard implementation of the DrawModel
- * interface for the JDraw application.
+ * interface for the JDraw application. Every mutation is reported to the Java
+ * Flight Recorder as a {@link ModelMutationEvent} and advances the version of
+ * the model.
+ *
+ * Snapshots share the copies of unchanged figures with the previous snapshot,
+ * and so do the segments of their figure lists which have not changed. Taking
+ * a snapshot therefore copies only the figures changed since the previous
+ * snapshot; the first snapshot copies all figures. The copies are only kept as
+ * long as a snapshot is in use, so a model without snapshots keeps no copies.
+ *
+ * The figures are kept in a {@link FigureList}, so looking up, inserting and
+ * removing a figure takes O(log n), and moving k figures in the z-order with
+ * {@link #moveFigures(Collection, int)} takes O(k log n).
+ *
+ * Listeners may restrict the change events they receive to an area of the
+ * drawing, see {@link #setListenerInterest(DrawModelListener, Rectangle)}. As
+ * soon as one listener does, the model keeps the bounds of all figures in order
+ * to tell whether a change touched the area before or after the change.
  */
 public class StdDrawModel implements DrawModel, FigureListener {
 
     private List<DrawModelListener> listeners = new ArrayList<DrawModelListener>();
-    private List<Figure> figures = new ArrayList<Figure>();
+    private FigureList figures = new FigureList();
+
+    /**
+     * The last {@link Type#FIGURE_CHANGED} event. Events are immutable, so while
+     * the same figure keeps changing (e.g. while it is dragged) the event is
+     * reused and notifying the listeners allocates nothing.
+     */
+    private DrawModelEvent lastChange;
+
+    /** Number of figures per segment of a snapshot. */
+    private static final int SEGMENT_SIZE = 256;
+
+    /** Version of the drawing, advanced by every mutation. */
+    private long version;
+
+    /**
+     * The last snapshot taken. It holds the copies of the figures, which are
+     * shared with the next snapshot; as it is only weakly referenced, the copies
+     * are released as soon as no snapshot is in use any more.
+     */
+    private WeakReference<Snapshot> lastSnapshot = new WeakReference<>(null);
+
+    /**
+     * Index from which on the figure list has changed since the last snapshot,
+     * e.g. because figures have been inserted or removed before; the segments
+     * from this index on are built anew by the next snapshot.
+     */
+    private int shiftedFrom = Integer.MAX_VALUE;
+
+    /** Segments containing a figure which has changed since the last snapshot. */
+    private final BitSet changedSegments = new BitSet();
+
+    /** The areas of interest of the listeners, null while no listener has one. */
+    private Map<DrawModelListener, Interest> interests;
+
+    /**
+     * Last known bounds of the figures, grown by the stroke margin; only kept
+     * while {@link #interests} is not null.
+     */
+    private Map<Figure, Rectangle> bounds;
+
+    /** Receives the bounds of a changed figure, see {@link #notifyInterestedListeners}. */
+    private final Rectangle scratch = new Rectangle();
 
     @Override
     public void addFigure(Figure f) {
+        ModelMutationEvent event = ModelMutationEvent.isRecorded()
+                ? new ModelMutationEvent(ModelMutationEvent.ADD) : null;
         if (f != null && !figures.contains(f)) {
+            shifted(figures.size());
             figures.add(f);
-            f.addFigureListener(this);
+            attach(f);
+            version++;
             notifyListeners(f, Type.FIGURE_ADDED);
         }
+        if (event != null) {
+            event.end(figures.size(), listeners.size());
+        }
+    }
+
+    /**
+     * Adds the given figures with a single pass over the figures of the model and
+     * notifies the listeners with a single {@link Type#FIGURES_ADDED} event.
+     */
+    @Override
+    public void addFigures(Collection<? extends Figure> newFigures) {
+        ModelMutationEvent event = ModelMutationEvent.isRecorded()
+                ? new ModelMutationEvent(ModelMutationEvent.ADD_ALL) : null;
+        Set<Figure> present = new HashSet<>(figures);
+        int size = figures.size();
+        shifted(size);
+        for (Figure f : newFigures) {
+            if (f != null && present.add(f)) {
+                figures.add(f);
+                attach(f);
+            }
+        }
+        if (figures.size() > size) {
+            version++;
+            notifyListeners(null, Type.FIGURES_ADDED);
+        }
+        if (event != null) {
+            event.end(figures.size(), listeners.size());
+        }
     }
 
     @Override
     public void removeFigure(Figure f) {
-        if (figures.remove(f)) {
-            f.removeFigureListener(this);
+        ModelMutationEvent event = ModelMutationEvent.isRecorded()
+                ? new ModelMutationEvent(ModelMutationEvent.REMOVE) : null;
+        int index = figures.indexOf(f);
+        if (index >= 0) {
+            shifted(index);
+            figures.remove(index);
+            detach(f);
+            version++;
             notifyListeners(f, Type.FIGURE_REMOVED);
         }
+        if (event != null) {
+            event.end(figures.size(), listeners.size());
+        }
     }
 
     @Override
@@ -57,12 +176,52 @@ public class StdDrawModel implements DrawModel, FigureListener {
     @Override
     public void removeModelChangeListener(DrawModelListener listener) {
         listeners.remove(listener);
+        if (interests != null && interests.remove(listener) != null && interests.isEmpty()) {
+            interests = null;
+            bounds = null;
+        }
+    }
+
+    @Override
+    public void setListenerInterest(DrawModelListener listener, Rectangle area) {
+        if (!listeners.contains(listener)) {
+            return;
+        }
+        Interest interest = interests != null ? interests.get(listener) : null;
+        if (area != null && interest == null) {
+            if (interests == null) {
+                interests = new IdentityHashMap<>();
+                bounds = new IdentityHashMap<>();
+                for (Figure f : figures) {
+                    bounds.put(f, FigureRenderer.paddedBounds(f));
+                }
+            }
+            interest = new Interest();
+            interests.put(listener, interest);
+        } else if (area == null && interest != null) {
+            interests.remove(listener);
+            if (interests.isEmpty()) {
+                interests = null;
+                bounds = null;
+            }
+        }
+        if (interest == null) {
+            return;
+        }
+        interest.area = area != null ? new Rectangle(area) : null;
+
+        // catch up on the changes which happened outside the previous area
+        Figure[] missed = interest.missed.toArray(new Figure[0]);
+        interest.missed.clear();
+        for (Figure f : missed) {
+            listener.modelChanged(new DrawModelEvent(this, f, Type.FIGURE_CHANGED));
+        }
     }
 
     /** The draw command handler. Initialized here with a dummy implementation. */
     // TODO: Initialize with the appropriate implementation for undo/redo
     // functionality.
-    private DrawCommandHandler handler = new EmptyDrawCommandHandler();
+    private DrawCommandHandler handler = new RecordingDrawCommandHandler(new EmptyDrawCommandHandler());
 
     /**
      * Retrieve the draw command handler in use.
@@ -82,31 +241,393 @@ public class StdDrawModel implements DrawModel, FigureListener {
             throw new IndexOutOfBoundsException();
         }
 
+        ModelMutationEvent event = ModelMutationEvent.isRecorded()
+                ? new ModelMutationEvent(ModelMutationEvent.REORDER) : null;
         int currentIndex = figures.indexOf(f);
         if (currentIndex != index) {
+            shifted(Math.min(currentIndex, index));
             figures.remove(currentIndex);
             figures.add(index, f);
+            version++;
             notifyListeners(f, Type.DRAWING_CHANGED);
         }
+        if (event != null) {
+            event.end(figures.size(), listeners.size());
+        }
+    }
+
+    @Override
+    public void moveFigures(Collection<? extends Figure> moved, int index) {
+        int[] positions = positionsOf(moved);
+        int distinct = positions.length;
+        if (index < 0 || index + distinct > figures.size()) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        ModelMutationEvent event = ModelMutationEvent.isRecorded()
+                ? new ModelMutationEvent(ModelMutationEvent.REORDER) : null;
+        // distinct ascending indices are in place if the first and the last one are
+        if (distinct > 0 && (positions[0] != index || positions[distinct - 1] != index + distinct - 1)) {
+            shifted(Math.min(positions[0], index));
+            Figure[] block = new Figure[distinct];
+            // remove from the back such that the smaller indices remain valid
+            for (int j = distinct - 1; j >= 0; j--) {
+                block[j] = figures.remove(positions[j]);
+            }
+            for (int j = 0; j < distinct; j++) {
+                figures.add(index + j, block[j]);
+            }
+            version++;
+            notifyListeners(null, Type.DRAWING_CHANGED);
+        }
+        if (event != null) {
+            event.end(figures.size(), listeners.size());
+        }
+    }
+
+    /**
+     * Looks up the parts by index and replaces them with the group in a single
+     * mutation, which takes O(k log n) for k parts.
+     */
+    @Override
+    public Figure groupFigures(Collection<? extends Figure> parts,
+            Function<? super List<Figure>, ? extends Figure> factory) {
+        int[] positions = positionsOf(parts);
+        if (positions.length == 0) {
+            throw new IllegalArgumentException();
+        }
+        List<Figure> ordered = new ArrayList<>(positions.length);
+        for (int i : positions) {
+            ordered.add(figures.get(i));
+        }
+        Figure group = factory.apply(ordered);
+        if (!(group instanceof FigureGroup) || figures.contains(group)) {
+            throw new IllegalArgumentException();
+        }
+
+        ModelMutationEvent event = ModelMutationEvent.isRecorded()
+                ? new ModelMutationEvent(ModelMutationEvent.GROUP) : null;
+        shifted(positions[0]);
+        // remove from the back such that the smaller indices remain valid
+        for (int j = positions.length - 1; j >= 0; j--) {
+            detach(figures.remove(positions[j]));
+        }
+        figures.add(positions[positions.length - 1] - positions.length + 1, group);
+        attach(group);
+        version++;
+        notifyListeners(group, Type.FIGURES_GROUPED);
+        if (event != null) {
+            event.end(figures.size(), listeners.size());
+        }
+        return group;
+    }
+
+    @Override
+    public void ungroupFigure(Figure group) {
+        int index = figures.indexOf(group);
+        if (index < 0 || !(group instanceof FigureGroup)) {
+            throw new IllegalArgumentException();
+        }
+        List<Figure> parts = ((FigureGroup) group).getFigureParts().collect(Collectors.toList());
+        Set<Figure> distinct = new HashSet<>();
+        for (Figure f : parts) {
+            if (f == null || figures.contains(f) || !distinct.add(f)) {
+                throw new IllegalArgumentException();
+            }
+        }
+
+        ModelMutationEvent event = ModelMutationEvent.isRecorded()
+                ? new ModelMutationEvent(ModelMutationEvent.UNGROUP) : null;
+        shifted(index);
+        figures.remove(index);
+        detach(group);
+        for (Figure f : parts) {
+            figures.add(index++, f);
+            attach(f);
+        }
+        version++;
+        notifyListeners(group, Type.FIGURES_UNGROUPED);
+        if (event != null) {
+            event.end(figures.size(), listeners.size());
+        }
+    }
+
+    /**
+     * Returns the indices of the given figures in ascending order, without
+     * duplicates.
+     *
+     * @throws IllegalArgumentException if a figure is not contained in the model
+     */
+    private int[] positionsOf(Collection<? extends Figure> fs) {
+        int[] positions = new int[fs.size()];
+        int k = 0;
+        for (Figure f : fs) {
+            int i = figures.indexOf(f);
+            if (i < 0) {
+                throw new IllegalArgumentException();
+            }
+            positions[k++] = i;
+        }
+        Arrays.sort(positions);
+        int distinct = 0;
+        for (int j = 0; j < k; j++) {
+            if (distinct == 0 || positions[distinct - 1] != positions[j]) {
+                positions[distinct++] = positions[j];
+            }
+        }
+        return Arrays.copyOf(positions, distinct);
+    }
+
+    /** Starts to observe a figure which has been inserted into the list. */
+    private void attach(Figure f) {
+        f.addFigureListener(this);
+        if (bounds != null) {
+            bounds.put(f, FigureRenderer.paddedBounds(f));
+        }
+    }
+
+    /** Stops to observe a figure which has been removed from the list. */
+    private void detach(Figure f) {
+        f.removeFigureListener(this);
+        if (lastChange != null && lastChange.getFigure() == f) {
+            lastChange = null;
+        }
+        Map<Figure, Figure> copies = copies();
+        if (copies != null) {
+            copies.remove(f);
+        }
+        if (interests != null) {
+            bounds.remove(f);
+            for (Interest interest : interests.values()) {
+                interest.missed.remove(f);
+            }
+        }
     }
 
     @Override
     public void removeAllFigures() {
+        ModelMutationEvent event = ModelMutationEvent.isRecorded()
+                ? new ModelMutationEvent(ModelMutationEvent.CLEAR) : null;
         for (Figure f : figures) {
             f.removeFigureListener(this);
         }
         figures.clear();
+        lastChange = null;
+        lastSnapshot.clear();
+        shifted(0);
+        if (interests != null) {
+            bounds.clear();
+            for (Interest interest : interests.values()) {
+                interest.missed.clear();
+            }
+        }
+        version++;
         notifyListeners(null, Type.DRAWING_CLEARED);
+        if (event != null) {
+            event.end(0, listeners.size());
+        }
     }
 
     @Override
     public void figureChanged(FigureEvent e) {
-        notifyListeners(e.getFigure(), DrawModelEvent.Type.FIGURE_CHANGED);
+        ModelMutationEvent event = ModelMutationEvent.isRecorded()
+                ? new ModelMutationEvent(ModelMutationEvent.CHANGE) : null;
+        DrawModelEvent change = lastChange;
+        if (change == null || change.getFigure() != e.getFigure()) {
+            change = new DrawModelEvent(this, e.getFigure(), Type.FIGURE_CHANGED);
+            lastChange = change;
+        }
+        Map<Figure, Figure> copies = copies();
+        if (copies != null && copies.remove(e.getFigure()) != null) {
+            changedSegments.set(figures.indexOf(e.getFigure()) / SEGMENT_SIZE);
+        }
+        version++;
+        if (interests == null) {
+            notifyListeners(change);
+        } else {
+            notifyInterestedListeners(change);
+        }
+        if (event != null) {
+            event.end(figures.size(), listeners.size());
+        }
+    }
+
+    /**
+     * Returns a snapshot of the model. Segments of the previous snapshot in
+     * which neither a figure has changed nor the list has been modified are
+     * reused without visiting their figures, so the time taken depends on the
+     * number of changed segments only.
+     */
+    @Override
+    public DrawingSnapshot snapshot() {
+        Snapshot last = lastSnapshot.get();
+        if (last != null && last.version == version) {
+            return last;
+        }
+        Map<Figure, Figure> copies = last != null ? last.copies : new IdentityHashMap<>();
+        Figure[][] previous = last != null ? last.segments : new Figure[0][];
+        int n = figures.size();
+        Figure[][] segments = new Figure[(n + SEGMENT_SIZE - 1) / SEGMENT_SIZE][];
+        Iterator<Figure> it = null;
+        int next = -1;
+        for (int s = 0; s < segments.length; s++) {
+            int from = s * SEGMENT_SIZE;
+            int length = Math.min(SEGMENT_SIZE, n - from);
+            Figure[] segment = s < previous.length && previous[s].length == length ? previous[s] : null;
+            if (segment != null && from + length <= shiftedFrom && !changedSegments.get(s)) {
+                segments[s] = segment;
+                continue;
+            }
+            if (next != from) {
+                it = figures.iterator(from);
+            }
+            // reuse the segment of the previous snapshot until it differs
+            boolean shared = segment != null;
+            if (!shared) {
+                segment = new Figure[length];
+            }
+            for (int i = 0; i < length; i++) {
+                Figure copy = copyOf(copies, it.next());
+                if (segment[i] != copy) {
+                    if (shared) {
+                        segment = Arrays.copyOf(segment, length);
+                        shared = false;
+                    }
+                    segment[i] = copy;
+                }
+            }
+            next = from + length;
+            segments[s] = segment;
+        }
+        shiftedFrom = Integer.MAX_VALUE;
+        changedSegments.clear();
+        last = new Snapshot(version, n, segments, copies);
+        lastSnapshot = new WeakReference<>(last);
+        return last;
+    }
+
+    /** Records that the figures from the given index on have been moved. */
+    private void shifted(int index) {
+        shiftedFrom = Math.min(shiftedFrom, index);
+    }
+
+    /** Returns the copies of the last snapshot, or null if no snapshot is in use. */
+    private Map<Figure, Figure> copies() {
+        Snapshot last = lastSnapshot.get();
+        return last != null ? last.copies : null;
+    }
+
+    /** Returns the copy of the given figure for the snapshots. */
+    private static Figure copyOf(Map<Figure, Figure> copies, Figure f) {
+        Figure copy = copies.get(f);
+        if (copy == null) {
+            copy = f.clone();
+            if (copy == null) {
+                // the figure cannot be cloned, the snapshot refers to it directly
+                copy = f;
+            }
+            copies.put(f, copy);
+        }
+        return copy;
     }
 
     private void notifyListeners(Figure f, Type t) {
-        for (DrawModelListener listener : listeners) {
-            listener.modelChanged(new DrawModelEvent(this, f, t));
+        notifyListeners(new DrawModelEvent(this, f, t));
+    }
+
+    /** Passes the same event to all listeners. */
+    private void notifyListeners(DrawModelEvent e) {
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).modelChanged(e);
+        }
+    }
+
+    /**
+     * Passes a change event to the listeners whose area of interest intersects
+     * the old or the new bounds of the figure. The other listeners remember that
+     * they missed a change of the figure. The recorded bounds are updated in
+     * place, so a figure which keeps changing (e.g. while it is dragged) is
+     * dispatched without allocating.
+     */
+    private void notifyInterestedListeners(DrawModelEvent e) {
+        Figure f = e.getFigure();
+        Rectangle r = f.getBounds(scratch);
+        Rectangle stored = bounds.get(f);
+        if (r == null || stored == null) {
+            // bounds unknown before or after the change: every listener is affected
+            if (r == null) {
+                bounds.remove(f);
+            } else {
+                bounds.put(f, FigureRenderer.paddedBounds(f));
+            }
+            notifyListeners(e);
+            return;
+        }
+        int ox = stored.x;
+        int oy = stored.y;
+        int ow = stored.width;
+        int oh = stored.height;
+        int m = FigureRenderer.STROKE_MARGIN;
+        stored.setBounds(r.x - m, r.y - m, r.width + 2 * m, r.height + 2 * m);
+        for (int i = 0; i < listeners.size(); i++) {
+            DrawModelListener listener = listeners.get(i);
+            Interest interest = interests != null ? interests.get(listener) : null;
+            if (interest == null || interest.area.intersects(stored)
+                    || intersects(interest.area, ox, oy, ow, oh)) {
+                listener.modelChanged(e);
+            } else {
+                interest.missed.add(f);
+            }
+        }
+    }
+
+    /**
+     * Tests whether an area intersects the given rectangle, like
+     * {@link Rectangle#intersects(Rectangle)} but without creating the rectangle.
+     */
+    private static boolean intersects(Rectangle area, int x, int y, int width, int height) {
+        return width > 0 && height > 0 && area.width > 0 && area.height > 0
+                && x < area.x + area.width && area.x < x + width
+                && y < area.y + area.height && area.y < y + height;
+    }
+
+    /** The area of interest of a listener and the figures changed outside of it. */
+    private static final class Interest {
+        private Rectangle area;
+        private final Set<Figure> missed = Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    /**
+     * A snapshot of the model; its segments and the copies of the figures may be
+     * shared with other snapshots. A figure which changes is removed from the
+     * copies, so it is copied again by the next snapshot.
+     */
+    private static final class Snapshot implements DrawingSnapshot {
+        private final long version;
+        private final int size;
+        private final Figure[][] segments;
+        private final Map<Figure, Figure> copies;
+
+        Snapshot(long version, int size, Figure[][] segments, Map<Figure, Figure> copies) {
+            this.version = version;
+            this.size = size;
+            this.segments = segments;
+            this.copies = copies;
+        }
+
+        @Override
+        public long getVersion() {
+            return version;
+        }
+
+        @Override
+        public int getFigureCount() {
+            return size;
+        }
+
+        @Override
+        public Stream<Figure> getFigures() {
+            return Arrays.stream(segments).flatMap(Arrays::stream);
         }
     }
 }
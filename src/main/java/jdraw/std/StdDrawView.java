@@ -8,6 +8,7 @@ package jdraw.std;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.event.InputEvent;
@@ -16,19 +17,35 @@ import java.awt.event.KeyListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
+import java.awt.event.MouseWheelEvent;
+import java.awt.event.MouseWheelListener;
+import java.awt.geom.AffineTransform;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
 import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+
+import org.apache.log4j.Logger;
 
 import jdraw.framework.DrawContext;
 import jdraw.framework.DrawModel;
 import jdraw.framework.DrawModelEvent;
 import jdraw.framework.DrawModelListener;
+import jdraw.framework.DrawTool;
 import jdraw.framework.DrawView;
 import jdraw.framework.Figure;
+import jdraw.framework.FigureGroup;
 import jdraw.framework.FigureHandle;
 import jdraw.framework.DrawGrid;
+import jdraw.jfr.PaintEvent;
 
 /**
  * The StdDrawView class is the standard implementation of the DrawView
@@ -44,6 +61,19 @@ import jdraw.framework.DrawGrid;
  * the interaction with drawing tools, applying actions like moving or deleting
  * figures in response to user input.
  * 
+ * The drawing can be zoomed (Ctrl + mouse wheel) and panned (dragging with the
+ * middle mouse button). Mouse events are mapped to drawing coordinates before
+ * they are passed to the current tool and the grid. When zoomed out, figures
+ * smaller than a configurable number of pixels are drawn as a single pixel or
+ * skipped (level of detail).
+ * 
+ * Repaint requests, whether issued by tools or caused by model changes, are
+ * coalesced by a frame scheduler into at most one paint per frame (60 frames
+ * per second by default).
+ * 
+ * If instrumentation is enabled, the view collects {@link RenderStatistics}
+ * which are registered as an MBean and can optionally be shown in an overlay.
+ * 
  * This class is designed to be used as part of the graphical user interface
  * within a JDraw application, encapsulating the core behaviors needed for
  * interactive drawing.
@@ -63,6 +93,23 @@ public final class StdDrawView extends JComponent implements DrawView {
     /** Space in pixels around the minimal bounding box of all figures. */
     private static final int BOUNDING_BOX_PADDING = 10;
 
+    /** Width and height of the tiles in which rendered figures are cached. */
+    private static final int TILE_SIZE = TileCache.DEFAULT_TILE_SIZE;
+
+    /** Smallest supported zoom factor. */
+    public static final double MIN_ZOOM = 1.0 / 64;
+    /** Largest supported zoom factor. */
+    public static final double MAX_ZOOM = 64.0;
+    /**
+     * Margin in drawing coordinates around the bounds of a changed figure which is
+     * repainted, as the handles of a selected figure extend beyond its bounds.
+     */
+    private static final int HANDLE_MARGIN = 8;
+    /** Factor by which the zoom changes per step of the mouse wheel. */
+    private static final double ZOOM_STEP = 1.25;
+
+    private static final Logger LOGGER = Logger.getLogger(StdDrawView.class);
+
     /**
      * The drawing model associated with this view, containing all figures to be
      * visualized.
@@ -75,8 +122,8 @@ public final class StdDrawView extends JComponent implements DrawView {
     private DrawContext context;
     /** The grid used for aligning figures within the view, if applicable. */
     private DrawGrid grid;
-    /** The list of currently selected figures in the view. */
-    private final List<Figure> selection = new LinkedList<>();
+    /** The currently selected figures in the view, in the order of selection. */
+    private final Set<Figure> selection = new LinkedHashSet<>();
     /**
      * The handles associated with the currently selected figures, used for
      * manipulation.
@@ -87,6 +134,25 @@ public final class StdDrawView extends JComponent implements DrawView {
      * modifications.
      */
     private final DrawModelListener ml;
+    /**
+     * Weak registration of {@link #ml}; a view which is dropped without being
+     * closed does not stay reachable through the model.
+     */
+    private final WeakModelListener registration;
+    /**
+     * The area of the drawing registered with the model as the interest of this
+     * view, or null before the first paint.
+     */
+    private Rectangle interest;
+
+    /** Cache of rendered figures, split into tiles of {@link #TILE_SIZE} pixels. */
+    private final TileCache tiles;
+
+    /**
+     * Last known bounds of all figures, needed to invalidate the tiles a figure
+     * covered before it was changed.
+     */
+    private final FigureBoundsTracker bounds;
 
     /**
      * Indicates whether a mouse drag interaction is active. When dragging is
@@ -94,6 +160,29 @@ public final class StdDrawView extends JComponent implements DrawView {
      */
     private boolean dragging = false;
 
+    /** The zoom factor, i.e. number of pixels per unit in drawing coordinates. */
+    private double zoom = 1.0;
+    /** Horizontal pan offset in pixels. */
+    private int panX;
+    /** Vertical pan offset in pixels. */
+    private int panY;
+
+    /** Coalesces repaint requests into at most one paint per frame. */
+    private final FrameScheduler frames;
+
+    /** Whether the preferred size has to be recomputed at the next frame. */
+    private boolean sizeChanged = false;
+
+    /** Statistics of this view, or null if instrumentation is disabled. */
+    private RenderStatistics statistics;
+    /** Name under which the statistics are registered as an MBean, or null. */
+    private ObjectName statisticsName;
+    /** Whether the statistics are painted on top of the drawing. */
+    private boolean statisticsOverlay = false;
+
+    /** Recorder of the input events received by this view, or null. */
+    private InputRecorder recorder;
+
     /**
      * Creates a new StdDrawView with the specified drawing model. The view will
      * visualize the figures in the model and respond to user interactions according
@@ -104,38 +193,62 @@ public final class StdDrawView extends JComponent implements DrawView {
     public StdDrawView(DrawModel model) {
 
         this.model = model;
+        this.bounds = new FigureBoundsTracker(model);
+        this.tiles = new TileCache(model, bounds, TILE_SIZE);
+
+        this.frames = new FrameScheduler(this, () -> {
+            if (sizeChanged) {
+                sizeChanged = false;
+                setPreferredSize(getPreferredSize());
+                revalidate();
+            }
+        });
 
         ml = e -> {
-            Dimension size = getPreferredSize();
-            setPreferredSize(size);
-            revalidate();
+            if (statistics != null) {
+                statistics.modelEvent();
+            }
+            // the preferred size is recomputed once per frame
+            sizeChanged = true;
 
-            if (e.getType() == DrawModelEvent.Type.FIGURE_REMOVED) {
+            if (e.getType() == DrawModelEvent.Type.FIGURE_REMOVED
+                    || e.getType() == DrawModelEvent.Type.FIGURES_UNGROUPED) {
                 removeFromSelection(e.getFigure());
             }
+            if (e.getType() == DrawModelEvent.Type.FIGURES_GROUPED) {
+                Set<Figure> parts = Collections.newSetFromMap(new IdentityHashMap<>());
+                ((FigureGroup) e.getFigure()).getFigureParts().forEach(parts::add);
+                if (selection.removeIf(parts::contains)) {
+                    handles.removeIf(h -> parts.contains(h.getOwner()));
+                }
+            }
             if (e.getType() == DrawModelEvent.Type.DRAWING_CLEARED) {
                 clearSelection();
             }
 
-// If a figure was added or removed, we could restrict the area to be repainted, but the
-// problem is that this area is not known as long as the size of the handles is not known.
-//            if (e.getType() == DrawModelEvent.Type.FIGURE_ADDED
-//             || e.getType() == DrawModelEvent.Type.FIGURE_REMOVED) {
-//                // here the bounds of all the handles has to be added to
-//                // e.getFigure().getBounds()
-//                repaint(e.getFigure().getBounds());
-//            } else {
-//                repaint();
-//            }
-            repaint();
+            List<Rectangle> dirty = bounds.update(e);
+            if (dirty == null) {
+                tiles.invalidateAll();
+                repaint();
+            } else {
+                for (Rectangle r : dirty) {
+                    tiles.invalidate(r);
+                    // handles are centered on the border of the figure, the exact
+                    // size is not known
+                    Rectangle area = new Rectangle(r);
+                    area.grow(HANDLE_MARGIN, HANDLE_MARGIN);
+                    frames.request(getViewTransform().createTransformedShape(area).getBounds());
+                }
+            }
         };
 
         // Registers the model change listener to update the view when the model changes
-        this.model.addModelChangeListener(ml);
+        this.registration = WeakModelListener.register(this.model, ml);
 
         InputEventHandler ieh = new InputEventHandler();
         addMouseListener(ieh);
         addMouseMotionListener(ieh);
+        addMouseWheelListener(ieh);
         addKeyListener(ieh);
     }
 
@@ -146,7 +259,206 @@ public final class StdDrawView extends JComponent implements DrawView {
      */
     @Override
     public void close() {
-        model.removeModelChangeListener(ml);
+        registration.unregister();
+        setInstrumented(false);
+        frames.stop();
+        tiles.invalidateAll();
+        tiles.shutdown();
+    }
+
+    // Repaint Scheduling
+    // ==================
+
+    /**
+     * Requests a repaint of the whole view. The request is coalesced with all
+     * other requests received until the next frame.
+     */
+    @Override
+    public void repaint() {
+        if (frames != null) { // null while the JComponent is being constructed
+            frames.request(null);
+        } else {
+            super.repaint();
+        }
+    }
+
+    /**
+     * Requests a repaint of the given region of the view. The request is coalesced
+     * with all other requests received until the next frame.
+     * 
+     * @param r the region to repaint, in pixel coordinates of this view
+     */
+    @Override
+    public void repaint(Rectangle r) {
+        if (frames != null) {
+            frames.request(r);
+        } else {
+            super.repaint(r);
+        }
+    }
+
+    /**
+     * Sets the maximal number of frames per second at which this view is
+     * repainted.
+     * 
+     * @param fps the target frame rate
+     */
+    public void setTargetFps(int fps) {
+        frames.setTargetFps(fps);
+    }
+
+    /**
+     * Returns the maximal number of frames per second at which this view is
+     * repainted.
+     * 
+     * @return the target frame rate
+     */
+    public int getTargetFps() {
+        return frames.getTargetFps();
+    }
+
+    /**
+     * Returns the number of repaints requested since this view was created, e.g.
+     * by tools or by model changes.
+     * 
+     * @return the number of requested repaints
+     */
+    public long getRequestedRepaints() {
+        return frames.getRequestedRepaints();
+    }
+
+    /**
+     * Returns the number of paints this view has actually executed since it was
+     * created. Compared with {@link #getRequestedRepaints()} it shows how many
+     * requests have been coalesced.
+     * 
+     * @return the number of executed paints
+     */
+    public long getExecutedRepaints() {
+        return frames.getExecutedRepaints();
+    }
+
+    // Instrumentation
+    // ===============
+
+    /**
+     * Enables or disables the collection of render statistics. While enabled, the
+     * statistics are registered as an MBean with the platform MBean server (see
+     * {@link RenderStatisticsMBean}). When disabled, nothing is measured.
+     * 
+     * @param instrumented <code>true</code> to collect render statistics
+     */
+    public void setInstrumented(boolean instrumented) {
+        if (instrumented && statistics == null) {
+            statistics = new RenderStatistics(frames);
+            tiles.setStatistics(statistics);
+            try {
+                statisticsName = new ObjectName("jdraw:type=RenderStatistics,view="
+                        + Integer.toHexString(System.identityHashCode(this)));
+                ManagementFactory.getPlatformMBeanServer().registerMBean(statistics, statisticsName);
+            } catch (JMException e) {
+                LOGGER.warn("render statistics could not be registered", e);
+                statisticsName = null;
+            }
+        } else if (!instrumented && statistics != null) {
+            if (statisticsName != null) {
+                try {
+                    ManagementFactory.getPlatformMBeanServer().unregisterMBean(statisticsName);
+                } catch (JMException e) {
+                    LOGGER.warn("render statistics could not be unregistered", e);
+                }
+                statisticsName = null;
+            }
+            statistics = null;
+            tiles.setStatistics(null);
+            statisticsOverlay = false;
+            repaint();
+        }
+    }
+
+    /**
+     * Returns whether render statistics are collected.
+     * 
+     * @return <code>true</code> if instrumentation is enabled
+     */
+    public boolean isInstrumented() {
+        return statistics != null;
+    }
+
+    /**
+     * Returns the render statistics of this view.
+     * 
+     * @return the statistics, or <code>null</code> if instrumentation is disabled
+     */
+    public RenderStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Shows or hides an overlay with the render statistics in the upper left
+     * corner of the visible area. Showing the overlay enables instrumentation.
+     * 
+     * @param overlay <code>true</code> to show the overlay
+     */
+    public void setStatisticsOverlay(boolean overlay) {
+        if (overlay) {
+            setInstrumented(true);
+        }
+        this.statisticsOverlay = overlay;
+        repaint();
+    }
+
+    /**
+     * Returns whether the overlay with the render statistics is shown.
+     * 
+     * @return <code>true</code> if the overlay is shown
+     */
+    public boolean isStatisticsOverlay() {
+        return statisticsOverlay;
+    }
+
+    /**
+     * Paints the statistics overlay in the upper left corner of the visible area.
+     * If the current paint does not cover the overlay, the overlay is repainted
+     * separately such that it never shows partially outdated values.
+     */
+    private void paintStatistics(Graphics g, Rectangle clip) {
+        String[] lines = statistics.summary();
+        int lineHeight = g.getFontMetrics().getHeight();
+        int width = 0;
+        for (String line : lines) {
+            width = Math.max(width, g.getFontMetrics().stringWidth(line));
+        }
+        Rectangle visible = getVisibleRect();
+        Rectangle box = new Rectangle(visible.x, visible.y, width + 8, lines.length * lineHeight + 6);
+        if (clip != null && !clip.contains(box)) {
+            repaint(0, box.x, box.y, box.width, box.height);
+        }
+        g.setColor(new Color(255, 255, 224, 224));
+        g.fillRect(box.x, box.y, box.width, box.height);
+        g.setColor(Color.BLACK);
+        for (int i = 0; i < lines.length; i++) {
+            g.drawString(lines[i], box.x + 4, box.y + 3 + g.getFontMetrics().getAscent() + i * lineHeight);
+        }
+    }
+
+    /**
+     * Sets a recorder which records all mouse and key events received by this
+     * view, e.g. to replay the session with an {@link InputReplayer}.
+     * 
+     * @param recorder the recorder, or <code>null</code> to stop recording
+     */
+    public void setInputRecorder(InputRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Returns the recorder of the input events received by this view.
+     * 
+     * @return the recorder, or <code>null</code> if no input is recorded
+     */
+    public InputRecorder getInputRecorder() {
+        return recorder;
     }
 
     @Override
@@ -154,6 +466,158 @@ public final class StdDrawView extends JComponent implements DrawView {
         return model;
     }
 
+    /**
+     * Sets the maximum amount of memory used to cache rendered tiles of the
+     * drawing. Tiles which have not been painted recently are evicted first.
+     * 
+     * @param capacity the capacity of the tile cache in bytes
+     */
+    public void setTileCacheCapacity(long capacity) {
+        tiles.setCapacity(capacity);
+    }
+
+    /**
+     * Returns the maximum amount of memory used to cache rendered tiles.
+     * 
+     * @return the capacity of the tile cache in bytes
+     */
+    public long getTileCacheCapacity() {
+        return tiles.getCapacity();
+    }
+
+    /**
+     * Sets the number of threads used to render tiles of the drawing in parallel.
+     * By default as many threads as processors are available are used; a value of
+     * 1 renders all tiles on the event dispatch thread.
+     * 
+     * @param threads the number of render threads
+     */
+    public void setRenderThreads(int threads) {
+        tiles.setParallelism(threads);
+    }
+
+    /**
+     * Returns the number of threads used to render tiles in parallel.
+     * 
+     * @return the number of render threads
+     */
+    public int getRenderThreads() {
+        return tiles.getParallelism();
+    }
+
+    /**
+     * Sets the minimal number of figures a drawing must contain before tiles are
+     * rendered in parallel. Smaller drawings are rendered serially.
+     * 
+     * @param threshold the minimal number of figures for parallel rendering
+     */
+    public void setParallelRenderThreshold(int threshold) {
+        tiles.setParallelThreshold(threshold);
+    }
+
+    /**
+     * Returns the minimal number of figures for parallel rendering.
+     * 
+     * @return the minimal number of figures for parallel rendering
+     */
+    public int getParallelRenderThreshold() {
+        return tiles.getParallelThreshold();
+    }
+
+    // Zoom and Pan
+    // ============
+    @Override
+    public AffineTransform getViewTransform() {
+        return new AffineTransform(zoom, 0, 0, zoom, panX, panY);
+    }
+
+    @Override
+    public double getZoom() {
+        return zoom;
+    }
+
+    @Override
+    public void setZoom(double zoom) {
+        if (!(zoom > 0)) {
+            throw new IllegalArgumentException("zoom must be positive");
+        }
+        zoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom));
+        if (zoom != this.zoom) {
+            this.zoom = zoom;
+            tiles.setScale(zoom);
+            setPreferredSize(getPreferredSize());
+            revalidate();
+            repaint();
+        }
+    }
+
+    /**
+     * Sets the zoom such that the drawing point under the given view position
+     * stays at that position.
+     * 
+     * @param zoom   the new zoom factor
+     * @param anchor a position in pixel coordinates of this view
+     */
+    private void zoomAt(double zoom, Point anchor) {
+        double x = (anchor.x - panX) / this.zoom;
+        double y = (anchor.y - panY) / this.zoom;
+        setZoom(zoom);
+        pan((int) Math.round(anchor.x - x * this.zoom) - panX, (int) Math.round(anchor.y - y * this.zoom) - panY);
+    }
+
+    @Override
+    public void pan(int dx, int dy) {
+        if (dx != 0 || dy != 0) {
+            panX += dx;
+            panY += dy;
+            setPreferredSize(getPreferredSize());
+            revalidate();
+            repaint();
+        }
+    }
+
+    /**
+     * Sets the level of detail used when the drawing is zoomed out. Figures whose
+     * width and height on the screen are below the given number of pixels are
+     * drawn as a single pixel, or are skipped entirely if <code>skip</code> is
+     * set. At zoom 1 and above all figures are drawn in full.
+     * 
+     * @param threshold size in pixels below which figures are simplified
+     * @param skip      <code>true</code> to skip simplified figures entirely
+     */
+    public void setLevelOfDetail(double threshold, boolean skip) {
+        tiles.setLevelOfDetail(threshold, skip);
+        repaint();
+    }
+
+    /**
+     * Returns the size in pixels below which figures are simplified when zoomed
+     * out.
+     * 
+     * @return the level of detail threshold in pixels
+     */
+    public double getLevelOfDetailThreshold() {
+        return tiles.getDetailThreshold();
+    }
+
+    /**
+     * Maps a mouse event from pixel coordinates of this view to drawing
+     * coordinates. If the view is neither zoomed nor panned, the event is returned
+     * unchanged.
+     * 
+     * @param e the mouse event as delivered to this component
+     * @return a mouse event carrying drawing coordinates
+     */
+    private MouseEvent toDrawing(MouseEvent e) {
+        if (zoom == 1.0 && panX == 0 && panY == 0) {
+            return e;
+        }
+        int x = (int) Math.floor((e.getX() - panX) / zoom);
+        int y = (int) Math.floor((e.getY() - panY) / zoom);
+        return new MouseEvent(e.getComponent(), e.getID(), e.getWhen(), e.getModifiersEx(), x, y,
+                e.getXOnScreen(), e.getYOnScreen(), e.getClickCount(), e.isPopupTrigger(), e.getButton());
+    }
+
     // Grid Management
     // ===============
     @Override
@@ -199,7 +663,8 @@ public final class StdDrawView extends JComponent implements DrawView {
 
     /**
      * Paints the figures and handles within this view, using the provided graphics
-     * context.
+     * context. Figures are taken from the tile cache, only tiles which have been
+     * invalidated since the last paint are rendered again.
      * 
      * @param g the graphics context used for painting the figures and handles
      */
@@ -207,12 +672,59 @@ public final class StdDrawView extends JComponent implements DrawView {
     public void paintComponent(Graphics g) {
         // g.setColor(getBackground());
         // g.fillRect(0, 0, getWidth(), getHeight());
-        model.getFigures().forEachOrdered(f -> f.draw(g));
-        handles.forEach(fh -> fh.draw(g));
+        PaintEvent event = PaintEvent.isRecorded() ? new PaintEvent() : null;
+        long start = statistics != null ? System.nanoTime() : 0;
+        frames.painted();
+        updateInterest();
+        Graphics2D g2 = (Graphics2D) g.create();
+        g2.translate(panX, panY);
+        Rectangle clip = g2.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(-panX, -panY, getWidth(), getHeight());
+        }
+        int rendered = 0;
+        if (!clip.isEmpty()) {
+            rendered = tiles.paint(g2, clip);
+        }
+
+        g2.scale(zoom, zoom);
+        handles.forEach(fh -> fh.draw(g2));
 
         if (selectionRectangle != null) {
-            g.setColor(Color.BLACK);
-            g.drawRect(selectionRectangle.x, selectionRectangle.y, selectionRectangle.width, selectionRectangle.height);
+            g2.setColor(Color.BLACK);
+            g2.drawRect(selectionRectangle.x, selectionRectangle.y, selectionRectangle.width,
+                    selectionRectangle.height);
+        }
+        g2.dispose();
+
+        if (statistics != null) {
+            statistics.paint(System.nanoTime() - start, handles.size());
+            if (statisticsOverlay) {
+                paintStatistics(g, g.getClipBounds());
+            }
+        }
+        if (event != null) {
+            event.end(clip, zoom, rendered, handles.size());
+        }
+    }
+
+    /**
+     * Registers the visible area of the drawing with the model, such that changes
+     * of figures which are not shown by this view are not delivered. Changes
+     * missed while they were outside the area are delivered by the model when
+     * the area changes, before the tiles are painted.
+     */
+    private void updateInterest() {
+        Rectangle visible = getVisibleRect();
+        int x = (int) Math.floor((visible.x - panX) / zoom);
+        int y = (int) Math.floor((visible.y - panY) / zoom);
+        Rectangle area = new Rectangle(x, y, (int) Math.ceil(visible.width / zoom) + 1,
+                (int) Math.ceil(visible.height / zoom) + 1);
+        // handles are drawn around the figures
+        area.grow(HANDLE_MARGIN, HANDLE_MARGIN);
+        if (!area.equals(interest)) {
+            interest = area;
+            model.setListenerInterest(registration, area);
         }
     }
 
@@ -233,8 +745,7 @@ public final class StdDrawView extends JComponent implements DrawView {
     @Override
     public void addToSelection(Figure f) {
         context.setDefaultTool();
-        if (!selection.contains(f)) {
-            selection.add(f);
+        if (selection.add(f)) {
             List<? extends FigureHandle> hList = f.getHandles();
             if (hList != null) {
                 handles.addAll(hList);
@@ -276,8 +787,8 @@ public final class StdDrawView extends JComponent implements DrawView {
         model.getFigures().forEachOrdered(f -> r.add(f.getBounds()));
 
         Dimension size = new Dimension();
-        size.height = r.height + r.y + BOUNDING_BOX_PADDING;
-        size.width = r.width + r.x + BOUNDING_BOX_PADDING;
+        size.height = Math.max(0, (int) Math.ceil((r.height + r.y) * zoom) + panY + BOUNDING_BOX_PADDING);
+        size.width = Math.max(0, (int) Math.ceil((r.width + r.x) * zoom) + panX + BOUNDING_BOX_PADDING);
         return size;
     }
 
@@ -308,7 +819,18 @@ public final class StdDrawView extends JComponent implements DrawView {
      * 
      * @author Christoph Denzler
      */
-    private class InputEventHandler implements MouseListener, MouseMotionListener, KeyListener {
+    private class InputEventHandler implements MouseListener, MouseMotionListener, MouseWheelListener, KeyListener {
+
+        /** Last mouse position of an active pan interaction, or null. */
+        private Point panAnchor;
+
+        private void record(InputEvent e) {
+            if (recorder != null) {
+                DrawTool tool = context != null ? context.getTool() : null;
+                recorder.record(e, tool != null ? tool.getName() : null);
+            }
+        }
+
         // KeyListener
         // ===========
 
@@ -319,6 +841,7 @@ public final class StdDrawView extends JComponent implements DrawView {
         // code.
         @Override
         public void keyPressed(KeyEvent e) {
+            record(e);
             // Disable figure deletion and moving while a drag operation is active
             if (dragging) {
                 return;
@@ -380,7 +903,13 @@ public final class StdDrawView extends JComponent implements DrawView {
         // =============
         @Override
         public void mousePressed(MouseEvent e) {
+            record(e);
             requestFocus();
+            if (!dragging && (e.getModifiersEx() & InputEvent.BUTTON2_DOWN_MASK) != 0) {
+                panAnchor = e.getPoint();
+                return;
+            }
+            e = toDrawing(e);
             Point p = constrainPoint(new Point(e.getX(), e.getY()), 1);
             if (dragging) {
                 // mouse was pressed during dragging, e.g. another mouse button.
@@ -394,7 +923,12 @@ public final class StdDrawView extends JComponent implements DrawView {
 
         @Override
         public void mouseReleased(MouseEvent e) {
+            record(e);
+            if (panAnchor != null && (e.getModifiersEx() & InputEvent.BUTTON2_DOWN_MASK) == 0) {
+                panAnchor = null;
+            }
             if (dragging) {
+                e = toDrawing(e);
                 Point p = constrainPoint(new Point(e.getX(), e.getY()), 2);
                 if ((e.getModifiersEx() & InputEvent.BUTTON1_DOWN_MASK) == 0) {
                     dragging = false;
@@ -425,7 +959,13 @@ public final class StdDrawView extends JComponent implements DrawView {
         // ===================
         @Override
         public void mouseDragged(MouseEvent e) {
+            record(e);
+            if (panAnchor != null) {
+                pan(e.getX() - panAnchor.x, e.getY() - panAnchor.y);
+                panAnchor = e.getPoint();
+            }
             if (dragging) {
+                e = toDrawing(e);
                 Point p = constrainPoint(new Point(e.getX(), e.getY()), 0);
                 context.getTool().mouseDrag(p.x, p.y, e);
                 setCursor(context.getTool().getCursor());
@@ -434,6 +974,8 @@ public final class StdDrawView extends JComponent implements DrawView {
 
         @Override
         public void mouseMoved(MouseEvent e) {
+            record(e);
+            e = toDrawing(e);
             int x = e.getX();
             int y = e.getY();
 
@@ -445,5 +987,18 @@ public final class StdDrawView extends JComponent implements DrawView {
             }
             setCursor(context.getTool().getCursor());
         }
+
+        // MouseWheelListener
+        // ==================
+        @Override
+        public void mouseWheelMoved(MouseWheelEvent e) {
+            record(e);
+            if (e.isControlDown()) {
+                zoomAt(zoom * Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation()), e.getPoint());
+            } else if (getParent() != null) {
+                // let the enclosing scroll pane scroll the view
+                getParent().dispatchEvent(SwingUtilities.convertMouseEvent(StdDrawView.this, e, getParent()));
+            }
+        }
     }
 }
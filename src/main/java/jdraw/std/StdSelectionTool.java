@@ -22,6 +22,7 @@ import jdraw.framework.DrawTool;
 import jdraw.framework.DrawView;
 import jdraw.framework.Figure;
 import jdraw.framework.FigureHandle;
+import jdraw.jfr.ToolEvent;
 
 /**
  * The StdSelectionTool class implements the default selection tool for the
@@ -132,51 +133,59 @@ public class StdSelectionTool implements DrawTool {
 
     @Override
     public void mouseDown(int constrainedX, int constrainedY, MouseEvent e) {
-        originalX = e.getX();
-        originalY = e.getY();
-        tempX = constrainedX;
-        tempY = constrainedY;
-
-        // 0. Check if a handle is used for manipulation
-        lastSelectedFigure = null;
-        currentHandle = view.getHandle(originalX, originalY, e);
-        if (currentHandle != null) {
-            currentHandle.startInteraction(constrainedX, constrainedY, e, view);
-            return;
-        }
+        ToolEvent event = ToolEvent.isRecorded()
+                ? new ToolEvent(getName(), ToolEvent.MOUSE_DOWN, constrainedX, constrainedY) : null;
+        try {
+            originalX = e.getX();
+            originalY = e.getY();
+            tempX = constrainedX;
+            tempY = constrainedY;
+
+            // 0. Check if a handle is used for manipulation
+            lastSelectedFigure = null;
+            currentHandle = view.getHandle(originalX, originalY, e);
+            if (currentHandle != null) {
+                currentHandle.startInteraction(constrainedX, constrainedY, e, view);
+                return;
+            }
 
-        // 1. Check if the mouse position is on an already
-        //    selected figure; in this case keep the selection
-        if (!isOnSelected(originalX, originalY) || e.isShiftDown()) {
+            // 1. Check if the mouse position is on an already
+            //    selected figure; in this case keep the selection
+            if (!isOnSelected(originalX, originalY) || e.isShiftDown()) {
 
-            // 2. if the mouse click is outside of an existing selection then
-            //    deselect all figures - except if shift is down (modifier used to extend the selection)
-            if (!e.isShiftDown()) {
-                view.clearSelection();
-            }
+                // 2. if the mouse click is outside of an existing selection then
+                //    deselect all figures - except if shift is down (modifier used to extend the selection)
+                if (!e.isShiftDown()) {
+                    view.clearSelection();
+                }
 
-            // 3. Look for new figures (which are not already selected) and select them. Only one figure.
-            List<Figure> figures = new LinkedList<>();
-            view.getModel().getFigures().forEachOrdered(f -> figures.add(0, f));
-            for (Figure f : figures) {
-                if (f.contains(originalX, originalY) && !view.getSelection().contains(f)) {
-                    view.addToSelection(f);
-                    lastSelectedFigure = f;
-                    break;
+                // 3. Look for new figures (which are not already selected) and select them. Only one figure.
+                List<Figure> figures = new LinkedList<>();
+                view.getModel().getFigures().forEachOrdered(f -> figures.add(0, f));
+                for (Figure f : figures) {
+                    if (f.contains(originalX, originalY) && !view.getSelection().contains(f)) {
+                        view.addToSelection(f);
+                        lastSelectedFigure = f;
+                        break;
+                    }
                 }
-            }
 
-            // 4. If dragging mouse for spanning a selection, remember starting position
-            //    (sx0, sy0) and initialize the current position (sx1, sy1).
-            if (lastSelectedFigure == null && !e.isShiftDown()) {
-                sx0 = originalX;
-                sy0 = originalY;
-                sx1 = originalX;
-                sy1 = originalY;
-                selMode = true;
+                // 4. If dragging mouse for spanning a selection, remember starting position
+                //    (sx0, sy0) and initialize the current position (sx1, sy1).
+                if (lastSelectedFigure == null && !e.isShiftDown()) {
+                    sx0 = originalX;
+                    sy0 = originalY;
+                    sx1 = originalX;
+                    sy1 = originalY;
+                    selMode = true;
+                }
+            }
+            view.repaint();
+        } finally {
+            if (event != null) {
+                event.end(view);
             }
         }
-        view.repaint();
     }
 
     /**
@@ -248,68 +257,82 @@ public class StdSelectionTool implements DrawTool {
 
     @Override
     public void mouseDrag(int i, int j, java.awt.event.MouseEvent e) {
-        if (currentHandle != null) {
-            currentHandle.dragInteraction(i, j, e, view);
-            return;
-        }
+        ToolEvent event = ToolEvent.isRecorded() ? new ToolEvent(getName(), ToolEvent.MOUSE_DRAG, i, j) : null;
+        try {
+            if (currentHandle != null) {
+                currentHandle.dragInteraction(i, j, e, view);
+                return;
+            }
 
-        if (selMode) {
-            sx1 = e.getX();
-            sy1 = e.getY();
-            Rectangle selRectangle = new Rectangle(min(sx0, sx1), min(sy0, sy1), abs(sx1 - sx0), abs(sy1 - sy0));
-
-            Set<Figure> sel = view.getModel().getFigures().filter(f -> contains(selRectangle, f.getBounds()))
-                    .collect(Collectors.toSet());
-            view.setSelectionRubberBand(selRectangle);
-            view.clearSelection();
-            for (Figure f : sel) {
-                view.addToSelection(f);
+            if (selMode) {
+                sx1 = e.getX();
+                sy1 = e.getY();
+                Rectangle selRectangle = new Rectangle(min(sx0, sx1), min(sy0, sy1), abs(sx1 - sx0), abs(sy1 - sy0));
+
+                Set<Figure> sel = view.getModel().getFigures().filter(f -> contains(selRectangle, f.getBounds()))
+                        .collect(Collectors.toSet());
+                view.setSelectionRubberBand(selRectangle);
+                view.clearSelection();
+                for (Figure f : sel) {
+                    view.addToSelection(f);
+                }
+                view.repaint();
+                return;
             }
-            view.repaint();
-            return;
-        }
 
-        int k = i - tempX;
-        int l = j - tempY;
+            int k = i - tempX;
+            int l = j - tempY;
 
-        for (Figure f : view.getSelection()) {
-            f.move(k, l);
-            view.getModel().getDrawCommandHandler().addCommand(new MoveCommand(f, k, l));
-        }
+            for (Figure f : view.getSelection()) {
+                f.move(k, l);
+                view.getModel().getDrawCommandHandler().addCommand(new MoveCommand(f, k, l));
+            }
 
-        tempX = i;
-        tempY = j;
-        view.repaint();
+            tempX = i;
+            tempY = j;
+            view.repaint();
+        } finally {
+            if (event != null) {
+                event.end(view);
+            }
+        }
     }
 
     @Override
     public void mouseUp(int i, int j, MouseEvent e) {
-        if (currentHandle != null) {
-            currentHandle.stopInteraction(i, j, e, view);
-            currentHandle = null;
-            return;
-        }
+        ToolEvent event = ToolEvent.isRecorded() ? new ToolEvent(getName(), ToolEvent.MOUSE_UP, i, j) : null;
+        try {
+            if (currentHandle != null) {
+                currentHandle.stopInteraction(i, j, e, view);
+                currentHandle = null;
+                return;
+            }
 
-        if (selMode) {
-            // Finalize rubber band selection
-            selMode = false;
-            view.setSelectionRubberBand(null);
-            view.repaint();
-        }
+            if (selMode) {
+                // Finalize rubber band selection
+                selMode = false;
+                view.setSelectionRubberBand(null);
+                view.repaint();
+            }
 
-        // Handle deselection of figures when clicking with Shift key
-        if (e.isShiftDown() && e.getX() == originalX && e.getY() == originalY && lastSelectedFigure == null) {
-            List<Figure> figures = view.getModel().getFigures().collect(Collectors.toList());
-            Collections.reverse(figures);
-            for (Figure f : figures) {
-                if (f.contains(originalX, originalY)) {
-                    if (view.getSelection().contains(f)) {
-                        view.removeFromSelection(f);
-                        view.repaint();
+            // Handle deselection of figures when clicking with Shift key
+            if (e.isShiftDown() && e.getX() == originalX && e.getY() == originalY && lastSelectedFigure == null) {
+                List<Figure> figures = view.getModel().getFigures().collect(Collectors.toList());
+                Collections.reverse(figures);
+                for (Figure f : figures) {
+                    if (f.contains(originalX, originalY)) {
+                        if (view.getSelection().contains(f)) {
+                            view.removeFromSelection(f);
+                            view.repaint();
+                        }
+                        break;
                     }
-                    break;
                 }
             }
+        } finally {
+            if (event != null) {
+                event.end(view);
+            }
         }
     }
 
@@ -0,0 +1,547 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.std;
+
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import jdraw.export.FigureRenderer;
+import jdraw.framework.DrawModel;
+import jdraw.framework.Figure;
+
+/**
+ * The TileCache splits the drawing into square tiles of a fixed size and keeps
+ * a rendered image of each tile. Painting the view only renders tiles which are
+ * not cached yet; all other tiles are simply copied to the screen. When figures
+ * change, only the tiles intersecting the old and the new bounds of the figure
+ * are invalidated.
+ *
+ * The memory used by the cached images is limited by a configurable capacity.
+ * If the capacity is exceeded, the least recently painted tiles are evicted
+ * first, i.e. tiles which are scrolled out of the visible area are dropped
+ * before the tiles which are currently shown.
+ *
+ * The cache only contains figures; handles and the selection rubber band are
+ * painted on top of the tiles by the view.
+ *
+ * If many figures have to be rendered into several tiles at once (e.g. on the
+ * first paint of a large drawing), the tiles are rasterised in parallel on a
+ * fork/join pool. Each tile is drawn through its own graphics context, and the
+ * finished images are composited by the calling thread (the event dispatch
+ * thread). The figures must therefore not be modified while the tiles are
+ * rendered, which holds as long as they are only modified on the event dispatch
+ * thread. Small drawings are rendered serially.
+ *
+ * Tiles are kept in device space: they cover the drawing scaled by the zoom
+ * factor of the view. Changing the scale drops all tiles, whereas panning only
+ * changes where the tiles are copied to. When zoomed out, figures which would
+ * be smaller than a pixel threshold are not drawn by themselves; they are
+ * replaced by a single pixel or skipped entirely (level of detail).
+ *
+ * @see StdDrawView
+ * @see FigureBoundsTracker
+ */
+final class TileCache {
+
+    /** Default width and height of a tile in pixels. */
+    static final int DEFAULT_TILE_SIZE = 256;
+
+    /** Default capacity of the cache in bytes (64 MB). */
+    static final long DEFAULT_CAPACITY = 64L * 1024 * 1024;
+
+    /**
+     * Default minimal number of figures for which missing tiles are rendered in
+     * parallel.
+     */
+    static final int DEFAULT_PARALLEL_THRESHOLD = 10_000;
+
+    /** Default size in pixels below which figures are drawn as a single pixel. */
+    static final double DEFAULT_DETAIL_THRESHOLD = 2.0;
+
+    /** Number of bytes per pixel of a tile image (TYPE_INT_ARGB). */
+    private static final int BYTES_PER_PIXEL = 4;
+
+    /** Number of figures whose bounds are computed by a single task. */
+    private static final int BOUNDS_BATCH = 4096;
+
+    /** The model whose figures are rendered into the tiles. */
+    private final DrawModel model;
+
+    /** The bounds of the figures, which also tell how many figures there are. */
+    private final FigureBoundsTracker tracker;
+
+    /** Width and height of a tile in pixels. */
+    private final int tileSize;
+
+    /** Maximum number of bytes occupied by cached tile images. */
+    private long capacity = DEFAULT_CAPACITY;
+
+    /**
+     * The cached tiles in access order, i.e. the eldest entry is the least
+     * recently painted tile.
+     */
+    private final LinkedHashMap<Long, BufferedImage> tiles = new LinkedHashMap<>(64, 0.75f, true);
+
+    /** Number of threads used to render tiles in parallel, 1 renders serially. */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /** Minimal number of figures in the model for parallel rendering. */
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+    /** Pool on which tiles are rendered, created on first use. */
+    private ForkJoinPool pool;
+
+    /** Factor by which the drawing is scaled when rendered into the tiles. */
+    private double scale = 1.0;
+
+    /**
+     * Width and height in pixels (at the current scale) below which a figure is
+     * not drawn by itself when the drawing is zoomed out.
+     */
+    private double detailThreshold = DEFAULT_DETAIL_THRESHOLD;
+
+    /**
+     * Whether figures below the detail threshold are skipped entirely instead of
+     * being drawn as a single pixel.
+     */
+    private boolean skipTinyFigures = false;
+
+    /** Statistics receiving the work done per tile, or null if not instrumented. */
+    private RenderStatistics statistics;
+
+    /**
+     * Creates a tile cache for the given model.
+     *
+     * @param model    the model whose figures are rendered
+     * @param tracker  the tracker fed with the events of the model
+     * @param tileSize the width and height of a tile in pixels
+     */
+    TileCache(DrawModel model, FigureBoundsTracker tracker, int tileSize) {
+        if (tileSize <= 0) {
+            throw new IllegalArgumentException("tile size must be positive");
+        }
+        this.model = model;
+        this.tracker = tracker;
+        this.tileSize = tileSize;
+    }
+
+    /**
+     * Sets the maximum number of bytes used by cached tile images. At least the
+     * tiles needed for a single paint are always kept until the paint completes.
+     *
+     * @param capacity the capacity in bytes
+     */
+    void setCapacity(long capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must not be negative");
+        }
+        this.capacity = capacity;
+        evict();
+    }
+
+    /**
+     * Returns the maximum number of bytes used by cached tile images.
+     *
+     * @return the capacity in bytes
+     */
+    long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Sets the number of threads used to render tiles in parallel. A value of 1
+     * disables parallel rendering.
+     *
+     * @param parallelism the number of render threads
+     */
+    void setParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        if (parallelism != this.parallelism) {
+            shutdown();
+            this.parallelism = parallelism;
+        }
+    }
+
+    /**
+     * Returns the number of threads used to render tiles in parallel.
+     *
+     * @return the number of render threads
+     */
+    int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the minimal number of figures a drawing must contain so that missing
+     * tiles are rendered in parallel. Smaller drawings are rendered serially as
+     * the overhead of the fork/join tasks would outweigh the gain.
+     *
+     * @param threshold the minimal number of figures
+     */
+    void setParallelThreshold(int threshold) {
+        this.parallelThreshold = threshold;
+    }
+
+    /**
+     * Returns the minimal number of figures for parallel rendering.
+     *
+     * @return the minimal number of figures
+     */
+    int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /** Terminates the render threads. A new pool is created when needed again. */
+    void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    /**
+     * Sets the factor by which the drawing is scaled. All tiles rendered at a
+     * different scale are dropped.
+     *
+     * @param scale the scale factor, i.e. the zoom of the view
+     */
+    void setScale(double scale) {
+        if (!(scale > 0)) {
+            throw new IllegalArgumentException("scale must be positive");
+        }
+        if (scale != this.scale) {
+            this.scale = scale;
+            invalidateAll();
+        }
+    }
+
+    /**
+     * Returns the factor by which the drawing is scaled.
+     *
+     * @return the scale factor
+     */
+    double getScale() {
+        return scale;
+    }
+
+    /**
+     * Sets the level of detail used when the drawing is zoomed out. Figures whose
+     * width and height at the current scale are below the given threshold are
+     * drawn as a single pixel, or not at all if <code>skip</code> is set.
+     *
+     * @param threshold the size in pixels below which figures are simplified
+     * @param skip      <code>true</code> if simplified figures are not drawn at all
+     */
+    void setLevelOfDetail(double threshold, boolean skip) {
+        if (threshold != detailThreshold || skip != skipTinyFigures) {
+            this.detailThreshold = threshold;
+            this.skipTinyFigures = skip;
+            if (scale < 1.0) {
+                invalidateAll();
+            }
+        }
+    }
+
+    /**
+     * Returns the size in pixels below which figures are simplified.
+     *
+     * @return the detail threshold in pixels
+     */
+    double getDetailThreshold() {
+        return detailThreshold;
+    }
+
+    /**
+     * Returns whether figures below the detail threshold are skipped entirely.
+     *
+     * @return <code>true</code> if tiny figures are not drawn at all
+     */
+    boolean isSkipTinyFigures() {
+        return skipTinyFigures;
+    }
+
+    /**
+     * Sets the statistics which record the work done for every rendered tile.
+     *
+     * @param statistics the statistics, or <code>null</code> to record nothing
+     */
+    void setStatistics(RenderStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * Returns the number of tiles currently held in the cache.
+     *
+     * @return the number of cached tiles
+     */
+    int size() {
+        return tiles.size();
+    }
+
+    /** Drops all cached tiles. */
+    void invalidateAll() {
+        tiles.clear();
+    }
+
+    /**
+     * Drops all cached tiles which intersect the given area of the drawing.
+     *
+     * @param area the area which has changed, in drawing coordinates
+     */
+    void invalidate(Rectangle area) {
+        if (area.isEmpty() || tiles.isEmpty()) {
+            return;
+        }
+        Rectangle r = toDevice(area);
+        int c0 = Math.floorDiv(r.x, tileSize);
+        int c1 = Math.floorDiv(r.x + r.width - 1, tileSize);
+        int r0 = Math.floorDiv(r.y, tileSize);
+        int r1 = Math.floorDiv(r.y + r.height - 1, tileSize);
+
+        if ((long) (c1 - c0 + 1) * (r1 - r0 + 1) > tiles.size()) {
+            // large area: cheaper to test the cached tiles than to enumerate the area
+            Iterator<Long> it = tiles.keySet().iterator();
+            while (it.hasNext()) {
+                long key = it.next();
+                int col = column(key);
+                int row = row(key);
+                if (col >= c0 && col <= c1 && row >= r0 && row <= r1) {
+                    it.remove();
+                }
+            }
+        } else {
+            for (int row = r0; row <= r1; row++) {
+                for (int col = c0; col <= c1; col++) {
+                    tiles.remove(key(col, row));
+                }
+            }
+        }
+    }
+
+    /**
+     * Paints the figures of the model within the given clip area. Missing tiles are
+     * rendered in a single pass over the figures of the model, then all tiles
+     * covering the clip area are copied onto the graphics context.
+     *
+     * @param g    the graphics context to paint on, in device space (i.e. already
+     *             scaled drawing coordinates)
+     * @param clip the area to be painted, in device space
+     * @return the number of tiles which had to be rendered
+     */
+    int paint(Graphics g, Rectangle clip) {
+        int c0 = Math.floorDiv(clip.x, tileSize);
+        int c1 = Math.floorDiv(clip.x + clip.width - 1, tileSize);
+        int r0 = Math.floorDiv(clip.y, tileSize);
+        int r1 = Math.floorDiv(clip.y + clip.height - 1, tileSize);
+
+        List<Tile> missing = new ArrayList<>();
+        for (int row = r0; row <= r1; row++) {
+            for (int col = c0; col <= c1; col++) {
+                if (tiles.get(key(col, row)) == null) {
+                    missing.add(new Tile(col, row));
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            render(missing);
+        }
+
+        for (int row = r0; row <= r1; row++) {
+            for (int col = c0; col <= c1; col++) {
+                g.drawImage(tiles.get(key(col, row)), col * tileSize, row * tileSize, null);
+            }
+        }
+        evict();
+        return missing.size();
+    }
+
+    /**
+     * Renders the given tiles and stores them in the cache. Every figure is asked
+     * for its bounds once and is drawn into all tiles it intersects.
+     *
+     * @param missing the tiles to be rendered
+     */
+    private void render(List<Tile> missing) {
+        if (parallelism > 1 && missing.size() > 1 && tracker.size() >= parallelThreshold) {
+            renderParallel(missing, model.getFigures().toArray(Figure[]::new));
+        } else {
+            model.getFigures().forEachOrdered(f -> {
+                Rectangle b = FigureRenderer.paddedBounds(f);
+                for (Tile t : missing) {
+                    t.draw(f, b);
+                }
+            });
+        }
+        store(missing);
+    }
+
+    /**
+     * Renders the given tiles on the fork/join pool. The bounds of the figures are
+     * computed in parallel first, then every tile is rendered by a task of its own
+     * which draws all figures intersecting the tile in model order. This method
+     * returns when all tiles have been rendered.
+     *
+     * @param missing the tiles to be rendered
+     * @param figures the figures of the model in back-to-front order
+     */
+    private void renderParallel(List<Tile> missing, Figure[] figures) {
+        if (pool == null) {
+            pool = new ForkJoinPool(parallelism);
+        }
+        Rectangle[] bounds = new Rectangle[figures.length];
+        pool.invoke(new BoundsTask(figures, bounds, 0, figures.length));
+        pool.invoke(new RenderTask(missing, figures, bounds));
+    }
+
+    /** Moves rendered tiles into the cache. */
+    private void store(List<Tile> missing) {
+        for (Tile t : missing) {
+            t.dispose();
+            tiles.put(key(t.col, t.row), t.image);
+            if (statistics != null) {
+                statistics.tile(t.renderer.getDrawn(), t.renderer.getSimplified(), t.renderer.getCulled());
+            }
+        }
+    }
+
+    /** Removes the least recently used tiles until the capacity is respected. */
+    private void evict() {
+        long tileBytes = (long) tileSize * tileSize * BYTES_PER_PIXEL;
+        Iterator<Map.Entry<Long, BufferedImage>> it = tiles.entrySet().iterator();
+        while (tiles.size() * tileBytes > capacity && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    /**
+     * Maps an area of the drawing to the pixels it covers at the current scale,
+     * including the pixels touched by outlines drawn along its border.
+     */
+    private Rectangle toDevice(Rectangle r) {
+        if (scale == 1.0) {
+            return r;
+        }
+        int x0 = (int) Math.floor(r.x * scale) - FigureRenderer.STROKE_MARGIN;
+        int y0 = (int) Math.floor(r.y * scale) - FigureRenderer.STROKE_MARGIN;
+        int x1 = (int) Math.ceil((r.x + r.width) * scale) + FigureRenderer.STROKE_MARGIN;
+        int y1 = (int) Math.ceil((r.y + r.height) * scale) + FigureRenderer.STROKE_MARGIN;
+        return new Rectangle(x0, y0, x1 - x0, y1 - y0);
+    }
+
+    private static long key(int col, int row) {
+        return ((long) col << 32) | (row & 0xFFFFFFFFL);
+    }
+
+    private static int column(long key) {
+        return (int) (key >> 32);
+    }
+
+    private static int row(long key) {
+        return (int) key;
+    }
+
+    /** Computes the padded bounds of a range of figures. */
+    @SuppressWarnings("serial")
+    private static final class BoundsTask extends RecursiveAction {
+        private final Figure[] figures;
+        private final Rectangle[] bounds;
+        private final int from;
+        private final int to;
+
+        BoundsTask(Figure[] figures, Rectangle[] bounds, int from, int to) {
+            this.figures = figures;
+            this.bounds = bounds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BOUNDS_BATCH) {
+                for (int i = from; i < to; i++) {
+                    bounds[i] = FigureRenderer.paddedBounds(figures[i]);
+                }
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new BoundsTask(figures, bounds, from, mid), new BoundsTask(figures, bounds, mid, to));
+            }
+        }
+    }
+
+    /** Renders a list of tiles, splitting it until each task renders one tile. */
+    @SuppressWarnings("serial")
+    private static final class RenderTask extends RecursiveAction {
+        private final List<Tile> tiles;
+        private final Figure[] figures;
+        private final Rectangle[] bounds;
+
+        RenderTask(List<Tile> tiles, Figure[] figures, Rectangle[] bounds) {
+            this.tiles = tiles;
+            this.figures = figures;
+            this.bounds = bounds;
+        }
+
+        @Override
+        protected void compute() {
+            if (tiles.size() == 1) {
+                Tile t = tiles.get(0);
+                for (int i = 0; i < figures.length; i++) {
+                    t.draw(figures[i], bounds[i]);
+                }
+            } else {
+                int mid = tiles.size() / 2;
+                invokeAll(new RenderTask(tiles.subList(0, mid), figures, bounds),
+                        new RenderTask(tiles.subList(mid, tiles.size()), figures, bounds));
+            }
+        }
+    }
+
+    /** A tile which is being rendered. */
+    private final class Tile {
+        private final int col;
+        private final int row;
+        private final BufferedImage image;
+        private final FigureRenderer renderer;
+
+        Tile(int col, int row) {
+            this.col = col;
+            this.row = row;
+            this.image = new BufferedImage(tileSize, tileSize, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = image.createGraphics();
+            Rectangle area = new Rectangle(col * tileSize, row * tileSize, tileSize, tileSize);
+            this.renderer = new FigureRenderer(g, area, new Point(), scale);
+            renderer.setLevelOfDetail(detailThreshold, skipTinyFigures);
+            g.dispose();
+        }
+
+        /**
+         * Draws the given figure into this tile if it is visible in this tile.
+         *
+         * @param f the figure to draw
+         * @param b the padded bounds of the figure
+         */
+        void draw(Figure f, Rectangle b) {
+            renderer.draw(f, b);
+        }
+
+        void dispose() {
+            renderer.dispose();
+        }
+    }
+}
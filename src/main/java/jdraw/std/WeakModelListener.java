@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2024 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.std;
+
+import java.lang.ref.Cleaner;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.swing.SwingUtilities;
+
+import jdraw.framework.DrawModel;
+import jdraw.framework.DrawModelEvent;
+import jdraw.framework.DrawModelListener;
+
+/**
+ * The WeakModelListener registers a model listener without keeping it
+ * reachable. A view registers its listener through this class instead of
+ * directly with the model; if the view is dropped without being closed (e.g.
+ * its window is disposed), the listener is garbage collected together with the
+ * view and the registration is removed from the model automatically.
+ *
+ * <PRE>
+ * registration = WeakModelListener.register(model, ml);
+ * ...
+ * registration.unregister();
+ * </PRE>
+ *
+ * The listener must be referenced strongly by its owner, typically a field of
+ * the view; a listener which is only referenced by the registration is
+ * collected immediately. The purge of a collected listener is done on the
+ * event dispatch thread, as the models are not thread-safe; until then the
+ * registration ignores the events of the model.
+ *
+ * For diagnostics, the registrations are counted per model, see
+ * {@link #report()}.
+ */
+public final class WeakModelListener implements DrawModelListener {
+
+    /** Runs the purge actions of collected listeners. */
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    /**
+     * The registrations per model, guarded by the map. A model is removed when its
+     * last registration has been purged.
+     */
+    private static final Map<DrawModel, Set<WeakModelListener>> REGISTRATIONS = new IdentityHashMap<>();
+
+    private final DrawModel model;
+    private final WeakReference<DrawModelListener> listener;
+    /** Name of the listener (or its enclosing class) used in the report. */
+    private final String name;
+    private final Cleaner.Cleanable cleanable;
+    /** Whether the owner has unregistered the listener explicitly. */
+    private volatile boolean unregistered;
+
+    private WeakModelListener(DrawModel model, DrawModelListener listener) {
+        this.model = model;
+        this.listener = new WeakReference<>(listener);
+        this.name = nameOf(listener);
+        // the action must not reference the listener, otherwise it is never collected
+        this.cleanable = CLEANER.register(listener, new Purge(this));
+    }
+
+    /**
+     * Registers a listener with a model without keeping the listener reachable.
+     *
+     * @param model    the model to listen to
+     * @param listener the listener, which must be referenced by its owner
+     * @return the registration, which has to be used to unregister the listener
+     */
+    public static WeakModelListener register(DrawModel model, DrawModelListener listener) {
+        if (model == null || listener == null) {
+            throw new IllegalArgumentException("model and listener must not be null");
+        }
+        WeakModelListener registration = new WeakModelListener(model, listener);
+        synchronized (REGISTRATIONS) {
+            REGISTRATIONS.computeIfAbsent(model, m -> Collections.newSetFromMap(new IdentityHashMap<>()))
+                    .add(registration);
+        }
+        model.addModelChangeListener(registration);
+        return registration;
+    }
+
+    /**
+     * Removes the registration from the model. Has no effect if the registration
+     * has already been removed.
+     */
+    public void unregister() {
+        unregistered = true;
+        // runs the purge at most once, also if the listener has been collected
+        cleanable.clean();
+    }
+
+    /**
+     * Returns the registered listener.
+     *
+     * @return the listener, or null if it has been garbage collected
+     */
+    public DrawModelListener getListener() {
+        return listener.get();
+    }
+
+    /**
+     * Returns whether the listener has been garbage collected.
+     *
+     * @return true if the listener is gone
+     */
+    public boolean isCleared() {
+        return listener.get() == null;
+    }
+
+    /** Forwards the event to the listener as long as it is reachable. */
+    @Override
+    public void modelChanged(DrawModelEvent e) {
+        DrawModelListener l = listener.get();
+        // a collected listener is not removed here, the model may be iterating
+        // over its listeners; the purge is already scheduled
+        if (l != null) {
+            l.modelChanged(e);
+        }
+    }
+
+    /**
+     * Returns the number of weak registrations with a model.
+     *
+     * @param model the model
+     * @return the number of registrations, including the ones awaiting the purge
+     */
+    public static int getListenerCount(DrawModel model) {
+        synchronized (REGISTRATIONS) {
+            Set<WeakModelListener> set = REGISTRATIONS.get(model);
+            return set == null ? 0 : set.size();
+        }
+    }
+
+    /**
+     * Returns the number of weak registrations with a model whose listener has
+     * been garbage collected but which have not been purged yet.
+     *
+     * @param model the model
+     * @return the number of stale registrations
+     */
+    public static int getClearedCount(DrawModel model) {
+        synchronized (REGISTRATIONS) {
+            Set<WeakModelListener> set = REGISTRATIONS.get(model);
+            return set == null ? 0 : (int) set.stream().filter(WeakModelListener::isCleared).count();
+        }
+    }
+
+    /**
+     * Describes the weak registrations of all models, one line per model, e.g.
+     * <code>StdDrawModel@1b6d3586: 3 listeners (0 cleared) {OverviewPanel=1, StdDrawView=2}</code>.
+     * A growing number of listeners while windows are opened and closed points to
+     * leaked views.
+     *
+     * @return the report lines
+     */
+    public static List<String> report() {
+        List<String> lines = new ArrayList<>();
+        synchronized (REGISTRATIONS) {
+            for (Map.Entry<DrawModel, Set<WeakModelListener>> entry : REGISTRATIONS.entrySet()) {
+                Map<String, Integer> byName = new TreeMap<>();
+                int cleared = 0;
+                for (WeakModelListener r : entry.getValue()) {
+                    byName.merge(r.name, 1, Integer::sum);
+                    if (r.isCleared()) {
+                        cleared++;
+                    }
+                }
+                DrawModel m = entry.getKey();
+                lines.add(String.format("%s@%x: %d listeners (%d cleared) %s", m.getClass().getSimpleName(),
+                        System.identityHashCode(m), entry.getValue().size(), cleared, byName));
+            }
+        }
+        return lines;
+    }
+
+    private void remove() {
+        synchronized (REGISTRATIONS) {
+            Set<WeakModelListener> set = REGISTRATIONS.get(model);
+            if (set != null && set.remove(this) && set.isEmpty()) {
+                REGISTRATIONS.remove(model);
+            }
+        }
+        model.removeModelChangeListener(this);
+    }
+
+    /** Returns the simple name of the class defining the listener. */
+    private static String nameOf(DrawModelListener listener) {
+        String name = listener.getClass().getName();
+        int lambda = name.indexOf("$$Lambda");
+        if (lambda >= 0) {
+            name = name.substring(0, lambda);
+        }
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * Removes a registration. Runs on the thread calling {@link #unregister()}, or
+     * on the thread of the cleaner after the listener has been collected, in which
+     * case the removal is passed to the event dispatch thread.
+     */
+    private static final class Purge implements Runnable {
+        private final WeakModelListener registration;
+
+        Purge(WeakModelListener registration) {
+            this.registration = registration;
+        }
+
+        @Override
+        public void run() {
+            if (registration.unregistered) {
+                registration.remove();
+            } else {
+                SwingUtilities.invokeLater(registration::remove);
+            }
+        }
+    }
+}
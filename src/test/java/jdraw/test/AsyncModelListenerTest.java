@@ -0,0 +1,172 @@
+package jdraw.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import jdraw.figures.Rect;
+import jdraw.framework.DrawModelEvent;
+import jdraw.framework.DrawModelEvent.Type;
+import jdraw.framework.Figure;
+import jdraw.std.AsyncModelListener;
+import jdraw.std.AsyncModelListener.BackPressure;
+import jdraw.std.StdDrawModel;
+
+public class AsyncModelListenerTest {
+
+    private StdDrawModel m;
+    private List<DrawModelEvent> received;
+
+    /** Tasks passed to the executor, run by {@link #runTasks()}. */
+    private List<Runnable> tasks;
+
+    @BeforeEach
+    public void setUp() {
+        m = new StdDrawModel();
+        received = Collections.synchronizedList(new ArrayList<>());
+        tasks = new ArrayList<>();
+    }
+
+    private AsyncModelListener register(int capacity, BackPressure policy) {
+        AsyncModelListener l = new AsyncModelListener(received::add, tasks::add, capacity, policy);
+        m.addModelChangeListener(l);
+        return l;
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+
+    @Test
+    @DisplayName("Events are delivered on the executor in the order of the mutations")
+    public void testOrder() {
+        AsyncModelListener l = register(16, BackPressure.DROP);
+        Figure a = new Rect(0, 0, 10, 10);
+        Figure b = new Rect(20, 0, 10, 10);
+        m.addFigure(a);
+        m.addFigure(b);
+        a.move(1, 1);
+        m.removeFigure(b);
+
+        assertTrue(received.isEmpty());
+        assertEquals(4, l.getPendingEvents());
+        assertEquals(1, tasks.size(), "a single drain task is scheduled");
+        runTasks();
+
+        assertEquals(List.of(Type.FIGURE_ADDED, Type.FIGURE_ADDED, Type.FIGURE_CHANGED, Type.FIGURE_REMOVED),
+                received.stream().map(DrawModelEvent::getType).collect(Collectors.toList()));
+        assertEquals(List.of(a, b, a, b),
+                received.stream().map(DrawModelEvent::getFigure).collect(Collectors.toList()));
+        assertEquals(4, l.getDeliveredEvents());
+        assertEquals(0, l.getPendingEvents());
+    }
+
+    @Test
+    @DisplayName("DROP discards events while the queue is full")
+    public void testDrop() {
+        AsyncModelListener l = register(3, BackPressure.DROP);
+        for (int i = 0; i < 5; i++) {
+            m.addFigure(new Rect(i, i, 10, 10));
+        }
+        runTasks();
+
+        assertEquals(3, received.size());
+        assertEquals(3, l.getDeliveredEvents());
+        assertEquals(2, l.getDroppedEvents());
+        assertEquals(0, l.getCoalescedEvents());
+    }
+
+    @Test
+    @DisplayName("COALESCE merges changes of the same figure and replaces a full queue")
+    public void testCoalesce() {
+        AsyncModelListener l = register(4, BackPressure.COALESCE);
+        Figure f = new Rect(0, 0, 10, 10);
+        m.addFigure(f);
+        f.move(1, 0);
+        f.move(1, 0);
+        f.move(1, 0);
+        assertEquals(2, l.getPendingEvents());
+        assertEquals(2, l.getCoalescedEvents());
+
+        m.addFigure(new Rect(20, 0, 10, 10));
+        m.addFigure(new Rect(40, 0, 10, 10));
+        // the queue is full: the pending events are replaced by a rebuild
+        m.addFigure(new Rect(60, 0, 10, 10));
+        assertEquals(2, l.getPendingEvents());
+        assertEquals(5, l.getCoalescedEvents());
+        runTasks();
+
+        assertEquals(List.of(Type.DRAWING_CLEARED, Type.FIGURES_ADDED),
+                received.stream().map(DrawModelEvent::getType).collect(Collectors.toList()));
+        assertEquals(0, l.getDroppedEvents());
+        assertEquals(2, l.getDeliveredEvents());
+    }
+
+    @Test
+    @DisplayName("COALESCE queues a change again once the pending change has been delivered")
+    public void testCoalesceAfterDelivery() {
+        AsyncModelListener l = register(16, BackPressure.COALESCE);
+        Figure f = new Rect(0, 0, 10, 10);
+        m.addFigure(f);
+        f.move(1, 0);
+        runTasks();
+        f.move(1, 0);
+        runTasks();
+
+        assertEquals(3, received.size());
+        assertEquals(0, l.getCoalescedEvents());
+    }
+
+    @Test
+    @DisplayName("BLOCK makes the modifying thread wait until the listener has taken an event")
+    public void testBlock() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch firstTaken = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AsyncModelListener l = new AsyncModelListener(e -> {
+            received.add(e);
+            firstTaken.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }, executor, 2, BackPressure.BLOCK);
+        m.addModelChangeListener(l);
+
+        Thread editor = new Thread(() -> {
+            for (int i = 0; i < 4; i++) {
+                m.addFigure(new Rect(i, i, 10, 10));
+            }
+        });
+        editor.start();
+        assertTrue(firstTaken.await(5, TimeUnit.SECONDS));
+        // one event is being delivered, two are queued, the fourth one has to wait
+        editor.join(200);
+        assertTrue(editor.isAlive(), "the editor waits for the listener");
+        assertEquals(2, l.getPendingEvents());
+
+        release.countDown();
+        editor.join(5000);
+        assertFalse(editor.isAlive());
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(4, received.size());
+        assertEquals(0, l.getDroppedEvents());
+    }
+}
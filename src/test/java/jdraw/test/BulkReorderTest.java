@@ -0,0 +1,117 @@
+package jdraw.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import jdraw.figures.Rect;
+import jdraw.framework.DrawModelEvent;
+import jdraw.framework.DrawModelEvent.Type;
+import jdraw.framework.DrawModelListener;
+import jdraw.framework.Figure;
+import jdraw.std.StdDrawModel;
+
+import org.apache.log4j.Logger;
+
+public class BulkReorderTest {
+
+    private static final Logger LOGGER = Logger.getLogger(BulkReorderTest.class);
+
+    @Test
+    @DisplayName("Moving several figures notifies a single event")
+    public void testSingleEvent() {
+        StdDrawModel m = new StdDrawModel();
+        List<Figure> figures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            figures.add(new Rect(i, i, 10, 10));
+        }
+        m.addFigures(figures);
+        DrawModelListener listener = mock(DrawModelListener.class);
+        m.addModelChangeListener(listener);
+
+        m.bringToFront(List.of(figures.get(9), figures.get(8)));
+        verify(listener, never()).modelChanged(any());
+
+        m.bringToFront(List.of(figures.get(1), figures.get(3), figures.get(5)));
+        ArgumentCaptor<DrawModelEvent> arg = ArgumentCaptor.forClass(DrawModelEvent.class);
+        verify(listener).modelChanged(arg.capture());
+        assertSame(Type.DRAWING_CHANGED, arg.getValue().getType());
+        assertNull(arg.getValue().getFigure());
+    }
+
+    @Test
+    @DisplayName("Random moves match the moves on a list")
+    public void testRandomMoves() {
+        StdDrawModel m = new StdDrawModel();
+        List<Figure> expected = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            expected.add(new Rect(i, 0, 1, 1));
+        }
+        m.addFigures(expected);
+        Random random = new Random(7);
+        for (int round = 0; round < 300; round++) {
+            Set<Figure> moved = new LinkedHashSet<>();
+            int k = 1 + random.nextInt(20);
+            for (int j = 0; j < k; j++) {
+                moved.add(expected.get(random.nextInt(expected.size())));
+            }
+            int index = random.nextInt(expected.size() - moved.size() + 1);
+            m.moveFigures(moved, index);
+
+            List<Figure> block = expected.stream().filter(moved::contains).collect(Collectors.toList());
+            expected.removeAll(moved);
+            expected.addAll(index, block);
+            assertEquals(expected, m.getFigures().collect(Collectors.toList()), "round " + round);
+
+            // single figures still go through the same list
+            Figure f = expected.remove(random.nextInt(expected.size()));
+            int to = random.nextInt(expected.size() + 1);
+            expected.add(to, f);
+            m.setFigureIndex(f, to);
+        }
+        assertEquals(expected, m.getFigures().collect(Collectors.toList()));
+    }
+
+    @Test
+    @DisplayName("Bringing 50k of 100k figures to front")
+    public void testLargeSelection() {
+        StdDrawModel m = new StdDrawModel();
+        List<Figure> figures = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            figures.add(new Rect(i % 1000, i / 1000, 5, 5));
+        }
+        m.addFigures(figures);
+        List<Figure> selection = new ArrayList<>();
+        for (int i = 0; i < figures.size(); i += 2) {
+            selection.add(figures.get(i));
+        }
+        Collections.shuffle(selection, new Random(1));
+
+        long start = System.nanoTime();
+        m.bringToFront(selection);
+        LOGGER.info(String.format("brought %d of %d figures to front in %.1f ms", selection.size(), figures.size(),
+                (System.nanoTime() - start) / 1e6));
+
+        List<Figure> order = m.getFigures().collect(Collectors.toList());
+        for (int i = 0; i < 50_000; i++) {
+            assertSame(figures.get(2 * i + 1), order.get(i));
+            assertSame(figures.get(2 * i), order.get(50_000 + i));
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package jdraw.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import jdraw.figures.Line;
+import jdraw.figures.Oval;
+import jdraw.figures.Rect;
+import jdraw.framework.DrawModel;
+import jdraw.framework.DrawModelEvent;
+import jdraw.framework.DrawModelListener;
+import jdraw.framework.DrawingSnapshot;
+import jdraw.framework.Figure;
+import jdraw.std.CompactDrawModel;
+import jdraw.std.CompactDrawModel.CompactFigure;
+
+public class CompactDrawModelTest extends DrawModelTest {
+
+    @Override
+    protected DrawModel createDrawModel() {
+        return new CompactDrawModel();
+    }
+
+    @Test
+    @DisplayName("All views of a removed figure keep working and can add it again")
+    public void testRemovedViews() {
+        CompactDrawModel m = new CompactDrawModel();
+        m.addFigure(new Rect(10, 20, 30, 40));
+        m.compact();
+        Figure first = m.getFigures().findFirst().get();
+        Figure second = m.getFigures().findFirst().get();
+
+        m.removeFigure(first);
+        assertEquals(new Rectangle(10, 20, 30, 40), second.getBounds());
+        second.move(5, 5);
+        assertEquals(new Rectangle(15, 25, 30, 40), first.getBounds());
+
+        m.addFigure(second);
+        assertEquals(1, m.getFigures().count());
+        assertEquals(first, m.getFigures().findFirst().get());
+        assertEquals(new Rectangle(15, 25, 30, 40), m.getFigures().findFirst().get().getBounds());
+
+        // removed again through the other view
+        m.removeFigure(first);
+        first.move(1, 1);
+        assertEquals(new Rectangle(16, 26, 30, 40), second.getBounds());
+    }
+
+    @Test
+    @DisplayName("A copy of a compact figure is an independent figure object")
+    public void testClone() {
+        CompactDrawModel m = new CompactDrawModel();
+        m.addFigure(new Rect(10, 20, 30, 40));
+        m.compact();
+        Figure f = m.getFigures().findFirst().get();
+        Figure copy = f.clone();
+
+        assertSame(Rect.class, copy.getClass());
+        assertNotEquals(f, copy);
+        copy.move(5, 5);
+        assertEquals(new Rectangle(10, 20, 30, 40), f.getBounds());
+
+        m.addFigure(copy);
+        assertEquals(1, m.compact());
+        assertEquals(2, m.getFigures().count());
+    }
+
+    @Test
+    @DisplayName("Figures added in bulk are stored in the arrays")
+    public void testBulkFootprint() {
+        final int n = 200_000;
+        long before = usedMemory();
+        CompactDrawModel m = new CompactDrawModel();
+        m.addFigures(figures(n));
+        long perFigure = (usedMemory() - before) / n;
+
+        assertTrue(perFigure < 64, perFigure + " bytes per figure");
+        assertEquals(n, m.getFigures().filter(f -> f instanceof CompactFigure).count());
+    }
+
+    @Test
+    @DisplayName("A figure is compacted when its tool has finished editing it")
+    public void testFigureEdited() {
+        CompactDrawModel m = new CompactDrawModel();
+        Figure back = new Oval(0, 0, 5, 5);
+        Figure f = new Rect(10, 20, 30, 40);
+        m.addFigure(back);
+        m.addFigure(f);
+        m.addFigure(new Line(0, 0));
+        List<DrawModelEvent.Type> events = new ArrayList<>();
+        DrawModelListener l = e -> events.add(e.getType());
+        m.addModelChangeListener(l);
+
+        m.figureEdited(f);
+        assertEquals(List.of(DrawModelEvent.Type.FIGURE_REMOVED, DrawModelEvent.Type.FIGURE_ADDED), events);
+        Figure view = m.getFigures().skip(1).findFirst().get();
+        assertTrue(view instanceof CompactFigure);
+        assertEquals(new Rectangle(10, 20, 30, 40), view.getBounds());
+        assertSame(back, m.getFigures().findFirst().get());
+
+        // the replaced object is no longer observed
+        events.clear();
+        f.move(1, 1);
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    @DisplayName("A snapshot copies the arrays and is reused while the drawing is unchanged")
+    public void testSnapshotVersions() {
+        CompactDrawModel m = new CompactDrawModel();
+        m.addFigures(List.of(new Rect(0, 0, 10, 10), new Oval(20, 0, 10, 10)));
+        m.addFigure(new Rect(40, 0, 10, 10));
+        DrawingSnapshot s1 = m.snapshot();
+        assertSame(s1, m.snapshot());
+
+        m.getFigures().findFirst().get().move(1, 1);
+        DrawingSnapshot s2 = m.snapshot();
+        assertNotSame(s1, s2);
+        assertNotEquals(s1.getVersion(), s2.getVersion());
+        assertEquals(List.of(Rect.class, Oval.class, Rect.class),
+                s2.getFigures().map(Object::getClass).collect(Collectors.toList()));
+        assertEquals(new Rectangle(1, 1, 10, 10), s2.getFigures().findFirst().get().getBounds());
+    }
+
+    private static List<Figure> figures(int n) {
+        List<Figure> figures = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            figures.add(i % 2 == 0 ? new Rect(i, i, 10, 10) : new Oval(i, i, 10, 10));
+        }
+        return figures;
+    }
+
+    private static long usedMemory() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -0,0 +1,168 @@
+package jdraw.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import jdraw.figures.Rect;
+import jdraw.framework.DrawModelEvent.Type;
+import jdraw.framework.Figure;
+import jdraw.std.ConcurrentDrawModel;
+
+public class ConcurrentDrawModelStressTest {
+
+    private static final int WRITERS = 8;
+    private static final int READERS = 4;
+    private static final int OPERATIONS = 2_000;
+
+    private ConcurrentDrawModel m;
+    private ExecutorService pool;
+
+    @BeforeEach
+    public void setUp() {
+        m = new ConcurrentDrawModel();
+        pool = Executors.newFixedThreadPool(WRITERS + READERS);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Concurrent writers and readers leave the model consistent")
+    public void testWritersAndReaders() throws Exception {
+        m.setListenerExecutor(Runnable::run);
+        AtomicInteger added = new AtomicInteger();
+        AtomicInteger removed = new AtomicInteger();
+        m.addModelChangeListener(e -> {
+            if (e.getType() == Type.FIGURE_ADDED) {
+                added.incrementAndGet();
+            } else if (e.getType() == Type.FIGURE_REMOVED) {
+                removed.incrementAndGet();
+            }
+        });
+
+        AtomicBoolean writing = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            writers.add(pool.submit(() -> {
+                start.await();
+                write();
+                return null;
+            }));
+        }
+        List<Future<?>> readers = new ArrayList<>();
+        for (int r = 0; r < READERS; r++) {
+            readers.add(pool.submit(() -> {
+                start.await();
+                while (writing.get()) {
+                    List<Figure> figures = m.getFigures().collect(Collectors.toList());
+                    // a snapshot never contains a figure twice
+                    assertEquals(figures.size(), new HashSet<>(figures).size(), "duplicate figure in snapshot");
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> f : writers) {
+            f.get(60, TimeUnit.SECONDS);
+        }
+        writing.set(false);
+        for (Future<?> f : readers) {
+            f.get(60, TimeUnit.SECONDS);
+        }
+
+        long count = m.getFigures().count();
+        assertEquals(added.get() - removed.get(), count, "every mutation must be notified exactly once");
+        assertEquals(count, m.getFigures().distinct().count(), "figures must be unique");
+    }
+
+    @Test
+    @DisplayName("Listeners are notified on the event dispatch thread in mutation order")
+    public void testDeliveryOnEdt() throws Exception {
+        AtomicInteger offEdt = new AtomicInteger();
+        List<Figure> order = new ArrayList<>();
+        m.addModelChangeListener(e -> {
+            if (!SwingUtilities.isEventDispatchThread()) {
+                offEdt.incrementAndGet();
+            }
+            if (e.getType() == Type.FIGURE_ADDED) {
+                order.add(e.getFigure());
+            }
+        });
+
+        List<Future<?>> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            writers.add(pool.submit(() -> {
+                for (int i = 0; i < OPERATIONS; i++) {
+                    m.addFigure(new Rect(i, i, 10, 10));
+                }
+            }));
+        }
+        for (Future<?> f : writers) {
+            f.get(60, TimeUnit.SECONDS);
+        }
+        // all events have been posted; wait until the EDT has delivered them
+        SwingUtilities.invokeAndWait(() -> { });
+
+        assertEquals(0, offEdt.get(), "listeners must be notified on the EDT");
+        assertEquals(WRITERS * OPERATIONS, order.size(), "every addition must be notified");
+        assertEquals(m.getFigures().collect(Collectors.toList()), order,
+                "events must be delivered in the order of the mutations");
+    }
+
+    /** Randomly adds, moves, reorders and removes figures. */
+    private void write() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Figure> own = new ArrayList<>();
+        Set<Figure> removedFigures = new HashSet<>();
+        for (int i = 0; i < OPERATIONS; i++) {
+            int op = own.isEmpty() ? 0 : random.nextInt(4);
+            switch (op) {
+            case 0:
+                Figure f = new Rect(random.nextInt(1000), random.nextInt(1000), 10, 10);
+                own.add(f);
+                m.addFigure(f);
+                break;
+            case 1:
+                own.get(random.nextInt(own.size())).move(1, 1);
+                break;
+            case 2:
+                try {
+                    m.setFigureIndex(own.get(random.nextInt(own.size())), 0);
+                } catch (IllegalArgumentException e) {
+                    throw new AssertionError("own figure must be in the model", e);
+                }
+                break;
+            default:
+                Figure g = own.remove(random.nextInt(own.size()));
+                m.removeFigure(g);
+                removedFigures.add(g);
+            }
+        }
+        assertTrue(own.stream().noneMatch(removedFigures::contains));
+    }
+}
@@ -0,0 +1,99 @@
+package jdraw.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import jdraw.figures.Rect;
+import jdraw.framework.DrawModel;
+import jdraw.framework.DrawModelEvent;
+import jdraw.framework.DrawingSnapshot;
+import jdraw.framework.Figure;
+import jdraw.std.ConcurrentDrawModel;
+
+public class ConcurrentDrawModelTest extends DrawModelTest {
+
+    @Override
+    protected DrawModel createDrawModel() {
+        ConcurrentDrawModel m = new ConcurrentDrawModel();
+        // notify on the calling thread, as the tests verify the listeners directly
+        m.setListenerExecutor(Runnable::run);
+        return m;
+    }
+
+    @Test
+    @DisplayName("Events are delivered in the order of the mutations on a multi-threaded executor")
+    public void testEventOrder() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        ConcurrentDrawModel m = new ConcurrentDrawModel();
+        m.setListenerExecutor(pool);
+        List<Figure> events = Collections.synchronizedList(new ArrayList<>());
+        m.addModelChangeListener(e -> events.add(e.getFigure()));
+
+        List<Figure> added = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Figure f = new Rect(i, i, 10, 10);
+            added.add(f);
+            m.addFigure(f);
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(added, events);
+    }
+
+    @Test
+    @DisplayName("Listeners are notified without holding the lock of the model")
+    public void testNotifyOutsideLock() {
+        ConcurrentDrawModel m = new ConcurrentDrawModel();
+        m.setListenerExecutor(Runnable::run);
+        List<DrawModelEvent> events = new ArrayList<>();
+        m.addModelChangeListener(e -> {
+            // a reader on another thread must not be blocked by the listener
+            Thread reader = new Thread(() -> m.getFigures().count());
+            reader.start();
+            try {
+                reader.join(5000);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            if (!reader.isAlive()) {
+                events.add(e);
+            }
+        });
+        m.addFigure(new Rect(0, 0, 10, 10));
+        m.addFigure(new Rect(5, 5, 10, 10));
+        assertEquals(2, events.size());
+    }
+
+    @Test
+    @DisplayName("Snapshots share the copies of unchanged figures")
+    public void testSnapshotReuse() {
+        ConcurrentDrawModel m = new ConcurrentDrawModel();
+        m.setListenerExecutor(Runnable::run);
+        Figure a = new Rect(0, 0, 10, 10);
+        Figure b = new Rect(20, 0, 10, 10);
+        m.addFigures(List.of(a, b));
+        DrawingSnapshot s1 = m.snapshot();
+        assertSame(s1, m.snapshot());
+
+        b.move(1, 1);
+        DrawingSnapshot s2 = m.snapshot();
+        List<Figure> first = s1.getFigures().collect(Collectors.toList());
+        List<Figure> second = s2.getFigures().collect(Collectors.toList());
+        assertSame(first.get(0), second.get(0));
+        assertNotSame(first.get(1), second.get(1));
+        assertNotSame(b, second.get(1));
+    }
+}
@@ -0,0 +1,12 @@
+package jdraw.test;
+
+import jdraw.framework.DrawModel;
+import jdraw.std.CrdtDrawModel;
+
+public class CrdtDrawModelTest extends DrawModelTest {
+
+    @Override
+    protected DrawModel createDrawModel() {
+        return new CrdtDrawModel(1);
+    }
+}
@@ -0,0 +1,158 @@
+package jdraw.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import jdraw.figures.Line;
+import jdraw.figures.Rect;
+import jdraw.framework.Figure;
+import jdraw.std.CrdtDrawModel;
+import jdraw.std.CrdtDrawModel.Operation;
+
+import org.apache.log4j.Logger;
+
+public class CrdtMergeTest {
+
+    private static final Logger LOGGER = Logger.getLogger(CrdtMergeTest.class);
+
+    private static final int REPLICAS = 4;
+    private static final int BASE_FIGURES = 1_000;
+    private static final int OPERATIONS = 100_000;
+
+    @Test
+    @DisplayName("Concurrent changes of the same figure converge to the later one")
+    public void testConcurrentChanges() {
+        CrdtDrawModel a = new CrdtDrawModel(1);
+        CrdtDrawModel b = new CrdtDrawModel(2);
+        a.addFigure(new Rect(0, 0, 10, 10));
+        a.addFigure(new Line(5, 5));
+        b.merge(a.takeOperations());
+
+        a.getFigures().findFirst().get().move(5, 0);
+        b.getFigures().findFirst().get().move(0, 7);
+        b.getFigures().findFirst().get().move(0, 1);
+        b.setFigureIndex(b.getFigures().findFirst().get(), 1);
+        List<Operation> fromA = a.takeOperations();
+        List<Operation> fromB = b.takeOperations();
+        a.merge(fromB);
+        b.merge(fromA);
+
+        assertEquals(bounds(a), bounds(b));
+        assertEquals(new Rectangle(0, 8, 10, 10), a.getFigures().skip(1).findFirst().get().getBounds());
+    }
+
+    @Test
+    @DisplayName("Removals win and operations may arrive in any order")
+    public void testRemoveAndReorder() {
+        CrdtDrawModel a = new CrdtDrawModel(1);
+        CrdtDrawModel b = new CrdtDrawModel(2);
+        CrdtDrawModel c = new CrdtDrawModel(3);
+        for (int i = 0; i < 3; i++) {
+            a.addFigure(new Rect(10 * i, 0, 5, 5));
+        }
+        List<Operation> base = a.takeOperations();
+        b.merge(base);
+
+        Figure first = a.getFigures().findFirst().get();
+        a.removeFigure(first);
+        b.getFigures().findFirst().get().move(1, 1);
+        b.addFigure(new Rect(100, 100, 5, 5));
+        b.setFigureIndex(b.getFigures().skip(3).findFirst().get(), 0);
+        List<Operation> fromA = a.takeOperations();
+        List<Operation> fromB = b.takeOperations();
+        a.merge(fromB);
+        b.merge(fromA);
+
+        // c receives everything in reverse order
+        List<Operation> all = new ArrayList<>(base);
+        all.addAll(fromA);
+        all.addAll(fromB);
+        Collections.reverse(all);
+        c.merge(all);
+
+        assertEquals(3, a.getFigures().count());
+        assertEquals(bounds(a), bounds(b));
+        assertEquals(bounds(a), bounds(c));
+        assertEquals(new Rectangle(100, 100, 5, 5), a.getFigures().findFirst().get().getBounds());
+    }
+
+    @Test
+    @DisplayName("Replicas converge after merging 100k concurrent operations")
+    public void testLargeMerge() {
+        CrdtDrawModel[] replicas = new CrdtDrawModel[REPLICAS];
+        for (int r = 0; r < REPLICAS; r++) {
+            replicas[r] = new CrdtDrawModel(r + 1);
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < BASE_FIGURES; i++) {
+            replicas[0].addFigure(new Rect(random.nextInt(2000), random.nextInt(2000), 20, 20));
+        }
+        List<Operation> base = replicas[0].takeOperations();
+        for (int r = 1; r < REPLICAS; r++) {
+            replicas[r].merge(base);
+        }
+
+        // every replica edits on its own
+        List<List<Operation>> local = new ArrayList<>();
+        for (CrdtDrawModel m : replicas) {
+            edit(m, OPERATIONS / REPLICAS, random);
+            local.add(m.takeOperations());
+        }
+
+        long start = System.nanoTime();
+        long merged = 0;
+        for (int r = 0; r < REPLICAS; r++) {
+            List<Operation> remote = new ArrayList<>();
+            for (int o = 0; o < REPLICAS; o++) {
+                if (o != r) {
+                    remote.addAll(local.get(o));
+                }
+            }
+            Collections.shuffle(remote, random);
+            replicas[r].merge(remote);
+            merged += remote.size();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        LOGGER.info(String.format("merged %d operations of %d replicas in %.3f s: %.0f operations/s", merged,
+                REPLICAS, seconds, merged / seconds));
+
+        List<Rectangle> expected = bounds(replicas[0]);
+        for (int r = 1; r < REPLICAS; r++) {
+            assertEquals(expected, bounds(replicas[r]), "replica " + (r + 1));
+        }
+    }
+
+    /** Moves, reorders, adds and removes random figures. */
+    private static void edit(CrdtDrawModel m, int operations, Random random) {
+        List<Figure> figures = m.getFigures().collect(Collectors.toList());
+        for (int i = 0; i < operations; i++) {
+            int choice = random.nextInt(100);
+            if (choice < 70) {
+                figures.get(random.nextInt(figures.size())).move(random.nextInt(21) - 10, random.nextInt(21) - 10);
+            } else if (choice < 85) {
+                m.setFigureIndex(figures.get(random.nextInt(figures.size())), random.nextInt(figures.size()));
+            } else if (choice < 95 || figures.size() < 10) {
+                Line line = new Line(random.nextInt(2000), random.nextInt(2000));
+                line.setBounds(line.getStart(), new Point(random.nextInt(2000), random.nextInt(2000)));
+                m.addFigure(line);
+                figures.add(line);
+            } else {
+                m.removeFigure(figures.remove(random.nextInt(figures.size())));
+            }
+        }
+    }
+
+    private static List<Rectangle> bounds(CrdtDrawModel m) {
+        return m.getFigures().map(Figure::getBounds).collect(Collectors.toList());
+    }
+}
@@ -17,18 +17,23 @@ import java.awt.Rectangle;
 import java.io.Serial;
 import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 
+import jdraw.figures.Group;
+import jdraw.figures.Rect;
 import jdraw.framework.DrawModel;
 import jdraw.framework.DrawModelEvent;
 import jdraw.framework.DrawModelEvent.Type;
 import jdraw.framework.DrawModelListener;
+import jdraw.framework.DrawingSnapshot;
 import jdraw.framework.Figure;
 import jdraw.framework.FigureEvent;
+import jdraw.framework.FigureGroup;
 import jdraw.framework.FigureHandle;
 import jdraw.framework.FigureListener;
 import jdraw.std.StdDrawModel;
@@ -277,6 +282,60 @@ public class DrawModelTest {
                 "in case that an IndexOutOfBoundsException occurs, the figure must not be removed from the model");
     }
 
+    @Test
+    @DisplayName("Moved figures keep their relative order")
+    public void testMoveFigures1() {
+        Figure[] fs = new Figure[6];
+        for (int i = 0; i < fs.length; i++) {
+            fs[i] = mock(Figure.class);
+            m.addFigure(fs[i]);
+        }
+
+        m.moveFigures(List.of(fs[4], fs[0], fs[4]), 2);
+        assertEquals(List.of(fs[1], fs[2], fs[0], fs[4], fs[3], fs[5]), m.getFigures().toList());
+
+        m.bringToFront(List.of(fs[2], fs[1]));
+        assertEquals(List.of(fs[0], fs[4], fs[3], fs[5], fs[1], fs[2]), m.getFigures().toList());
+
+        m.sendToBack(List.of(fs[5], fs[3]));
+        assertEquals(List.of(fs[3], fs[5], fs[0], fs[4], fs[1], fs[2]), m.getFigures().toList());
+    }
+
+    @Test
+    @DisplayName("Only added figures may be moved to existing positions")
+    public void testMoveFigures2() {
+        Figure f1 = mock(Figure.class);
+        Figure f2 = mock(Figure.class);
+
+        m.addFigure(f1);
+        m.addFigure(f2);
+
+        assertThrows(IllegalArgumentException.class, () -> m.moveFigures(List.of(f1, f), 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> m.moveFigures(List.of(f1, f2), 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> m.moveFigures(List.of(f2), -1));
+        assertEquals(List.of(f1, f2), m.getFigures().toList());
+    }
+
+    @Test
+    @DisplayName("A group takes the place of its frontmost part")
+    public void testGroupFigures() {
+        Figure[] fs = new Figure[5];
+        for (int i = 0; i < fs.length; i++) {
+            fs[i] = new Rect(10 * i, 0, 5, 5);
+            m.addFigure(fs[i]);
+        }
+
+        Figure g = m.groupFigures(List.of(fs[3], fs[1], fs[1]), Group::new);
+        assertEquals(List.of(fs[1], fs[3]), ((FigureGroup) g).getFigureParts().toList());
+        assertEquals(List.of(fs[0], fs[2], g, fs[4]), m.getFigures().toList());
+        assertThrows(IllegalArgumentException.class, () -> m.groupFigures(List.of(fs[1]), Group::new));
+
+        m.ungroupFigure(g);
+        assertEquals(List.of(fs[0], fs[2], fs[1], fs[3], fs[4]), m.getFigures().toList());
+        assertThrows(IllegalArgumentException.class, () -> m.ungroupFigure(g));
+        assertThrows(IllegalArgumentException.class, () -> m.ungroupFigure(fs[0]));
+    }
+
     @Test
     @DisplayName("DrawModelEvent must refer to the changed figure")
     public void testNotification() {
@@ -341,4 +400,19 @@ public class DrawModelTest {
                 "Model should refer to the changed figure in a FIGURE_CHANGED event");
     }
 
+    @Test
+    @DisplayName("A snapshot keeps the state of the drawing when the model changes")
+    public void testSnapshot() {
+        m.addFigures(List.of(new Rect(0, 0, 10, 10), new Rect(20, 0, 10, 10)));
+        DrawingSnapshot s = m.snapshot();
+
+        m.getFigures().iterator().next().move(5, 5);
+        m.addFigure(new Rect(40, 0, 10, 10));
+
+        assertEquals(2, s.getFigureCount());
+        assertEquals(List.of(new Rectangle(0, 0, 10, 10), new Rectangle(20, 0, 10, 10)),
+                s.getFigures().map(Figure::getBounds).collect(Collectors.toList()));
+        assertEquals(List.of(new Rectangle(5, 5, 10, 10), new Rectangle(20, 0, 10, 10), new Rectangle(40, 0, 10, 10)),
+                m.snapshot().getFigures().map(Figure::getBounds).collect(Collectors.toList()));
+    }
 }
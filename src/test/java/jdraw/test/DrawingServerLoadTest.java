@@ -0,0 +1,235 @@
+package jdraw.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Rectangle;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import jdraw.figures.Group;
+import jdraw.figures.Rect;
+import jdraw.framework.DrawModel;
+import jdraw.framework.Figure;
+import jdraw.framework.FigureGroup;
+import jdraw.net.DrawingClient;
+import jdraw.net.DrawingServer;
+import jdraw.std.StdDrawModel;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Load test of a drawing shared by {@value #CLIENTS} clients. Logs the round
+ * trip latency of single changes and the throughput of changes sent as fast as
+ * possible, and checks that all clients end up with the drawing of the server.
+ */
+public class DrawingServerLoadTest {
+
+    private static final Logger LOGGER = Logger.getLogger(DrawingServerLoadTest.class);
+
+    private static final int CLIENTS = 10;
+    private static final int FIGURES_PER_CLIENT = 5;
+    private static final int ROUND_TRIPS = 100;
+    private static final int MOVES = 1_000;
+    private static final int CONFLICTS = 50;
+    private static final long TIMEOUT = 30_000;
+
+    private StdDrawModel serverModel;
+    private DrawingServer server;
+    private final List<DrawModel> models = new ArrayList<>();
+    private final List<ExecutorService> threads = new ArrayList<>();
+    private final List<DrawingClient> clients = new ArrayList<>();
+    private ExecutorService pool;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        serverModel = new StdDrawModel();
+        server = new DrawingServer(serverModel);
+        server.start(0);
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+        for (int i = 0; i < CLIENTS; i++) {
+            StdDrawModel model = new StdDrawModel();
+            ExecutorService thread = Executors.newSingleThreadExecutor();
+            DrawingClient client = new DrawingClient(model, thread);
+            client.connect(address);
+            models.add(model);
+            threads.add(thread);
+            clients.add(client);
+        }
+        pool = Executors.newFixedThreadPool(CLIENTS);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        clients.forEach(DrawingClient::close);
+        threads.forEach(ExecutorService::shutdownNow);
+        pool.shutdownNow();
+        server.close();
+    }
+
+    @Test
+    @DisplayName("Ten clients share a drawing")
+    public void testLoad() throws Exception {
+        // every client adds its own figures
+        Figure[] own = new Figure[CLIENTS];
+        forEachClient(i -> {
+            onClient(i, () -> {
+                for (int k = 0; k < FIGURES_PER_CLIENT; k++) {
+                    own[i] = new Rect(100 * i, 50 * k, 20, 20);
+                    models.get(i).addFigure(own[i]);
+                }
+            });
+            return null;
+        });
+        awaitConvergence();
+        assertEquals(CLIENTS * FIGURES_PER_CLIENT, serverModel.getFigures().count());
+
+        // latency: one change at a time, waiting for the server to send it back
+        long[] latencies = new long[CLIENTS * ROUND_TRIPS];
+        forEachClient(i -> {
+            DrawingClient client = clients.get(i);
+            for (int k = 0; k < ROUND_TRIPS; k++) {
+                long start = System.nanoTime();
+                long seq = onClient(i, () -> {
+                    own[i].move(1, 0);
+                    return client.getSequence();
+                });
+                assertTrue(client.awaitConfirmed(seq, TIMEOUT), "change confirmed");
+                latencies[i * ROUND_TRIPS + k] = System.nanoTime() - start;
+            }
+            return null;
+        });
+        Arrays.sort(latencies);
+        LOGGER.info(String.format("round trip latency with %d clients: median %.3f ms, 99th percentile %.3f ms",
+                CLIENTS, latencies[latencies.length / 2] / 1e6, latencies[latencies.length * 99 / 100] / 1e6));
+        awaitConvergence();
+
+        // throughput: all clients send their changes as fast as possible
+        long position = server.getPosition();
+        long start = System.nanoTime();
+        forEachClient(i -> {
+            long seq = onClient(i, () -> {
+                for (int k = 0; k < MOVES; k++) {
+                    own[i].move(0, 1);
+                }
+                return clients.get(i).getSequence();
+            });
+            assertTrue(clients.get(i).awaitConfirmed(seq, TIMEOUT), "changes confirmed");
+            return null;
+        });
+        awaitConvergence();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long changes = server.getPosition() - position;
+        long batches = clients.stream().mapToLong(DrawingClient::getBatchCount).sum();
+        LOGGER.info(String.format("throughput with %d clients: %d changes in %.3f s, %.0f changes/s applied by the "
+                + "server, %.0f changes/s delivered, %d batches", CLIENTS, changes, seconds, changes / seconds,
+                changes * CLIENTS / seconds, batches));
+        assertEquals(CLIENTS * MOVES, changes);
+
+        // conflicts: all clients move the same figure
+        Figure[] shared = new Figure[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            int c = i;
+            shared[i] = onClient(i, () -> models.get(c).getFigures().findFirst().get());
+        }
+        forEachClient(i -> {
+            Random random = new Random(i);
+            for (int k = 0; k < CONFLICTS; k++) {
+                onClient(i, () -> shared[i].move(random.nextInt(11) - 5, random.nextInt(11) - 5));
+            }
+            return null;
+        });
+        awaitConvergence();
+    }
+
+    @Test
+    @DisplayName("Figures added at once are shared, shared figures are not grouped")
+    public void testBulkAddAndGroup() throws Exception {
+        DrawModel m = models.get(0);
+        onClient(0, () -> m.addFigure(new Rect(0, 100, 10, 10)));
+        onClient(0, () -> m.addFigures(List.of(new Rect(0, 0, 10, 10), new Rect(20, 0, 10, 10),
+                new Rect(40, 0, 10, 10))));
+        awaitConvergence();
+        assertEquals(4, onClient(0, () -> m.getFigures().count()));
+
+        onClient(0, () -> {
+            List<Figure> fs = m.getFigures().collect(Collectors.toList());
+            m.groupFigures(List.of(fs.get(1), fs.get(3)), Group::new);
+        });
+        awaitConvergence();
+        // the group has been replaced by its parts, which remain shared
+        assertTrue(onClient(0, () -> m.getFigures().noneMatch(f -> f instanceof FigureGroup)));
+        for (int i = 0; i < CLIENTS; i++) {
+            int c = i;
+            assertEquals(4, onClient(i, () -> models.get(c).getFigures().count()), "figures of client " + i);
+        }
+    }
+
+    /** Waits until all clients have applied the complete change log and compares the drawings. */
+    private void awaitConvergence() throws Exception {
+        long position;
+        do {
+            position = server.getPosition();
+            for (DrawingClient client : clients) {
+                assertTrue(client.awaitApplied(position, TIMEOUT), "changes applied");
+            }
+            // every client has to receive the confirmation of its last change
+            for (int i = 0; i < CLIENTS; i++) {
+                DrawingClient client = clients.get(i);
+                long seq = onClient(i, client::getSequence);
+                assertTrue(client.awaitConfirmed(seq, TIMEOUT), "changes confirmed");
+            }
+        } while (position != server.getPosition());
+
+        List<Rectangle> expected = new ArrayList<>();
+        server.inspect(() -> expected.addAll(bounds(serverModel)));
+        for (int i = 0; i < CLIENTS; i++) {
+            int c = i;
+            assertEquals(expected, onClient(i, () -> bounds(models.get(c))), "drawing of client " + i);
+        }
+    }
+
+    private static List<Rectangle> bounds(DrawModel model) {
+        return model.getFigures().map(Figure::getBounds).collect(Collectors.toList());
+    }
+
+    private <T> T onClient(int client, Callable<T> task) throws Exception {
+        return threads.get(client).submit(task).get(TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+    private void onClient(int client, Runnable task) throws Exception {
+        threads.get(client).submit(task).get(TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+    /** Runs a task for every client in parallel and waits for all of them. */
+    private void forEachClient(ClientTask task) throws Exception {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            int c = i;
+            futures.add(pool.submit(() -> task.run(c)));
+        }
+        for (Future<?> f : futures) {
+            f.get(TIMEOUT, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ClientTask {
+        Object run(int client) throws Exception;
+    }
+}
@@ -0,0 +1,125 @@
+package jdraw.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Rectangle;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import jdraw.figures.Rect;
+import jdraw.framework.DrawingSnapshot;
+import jdraw.framework.Figure;
+import jdraw.std.StdDrawModel;
+
+public class DrawingSnapshotTest {
+
+    private static final int FIGURES = 2_000;
+
+    private StdDrawModel m;
+    private List<Figure> figures;
+
+    @BeforeEach
+    public void setUp() {
+        m = new StdDrawModel();
+        figures = new ArrayList<>();
+        for (int i = 0; i < FIGURES; i++) {
+            figures.add(new Rect(i, i, 10, 10));
+        }
+        m.addFigures(figures);
+    }
+
+    @Test
+    @DisplayName("A snapshot does not change when the model changes")
+    public void testImmutable() {
+        DrawingSnapshot s = m.snapshot();
+        List<Rectangle> before = bounds(s);
+
+        figures.get(10).move(100, 100);
+        m.removeFigure(figures.get(0));
+        m.setFigureIndex(figures.get(20), FIGURES - 2);
+        m.addFigure(new Rect(0, 0, 1, 1));
+
+        assertEquals(FIGURES, s.getFigureCount());
+        assertEquals(before, bounds(s));
+    }
+
+    @Test
+    @DisplayName("Every mutation advances the version; an unchanged model returns the same snapshot")
+    public void testVersions() {
+        DrawingSnapshot s1 = m.snapshot();
+        assertSame(s1, m.snapshot());
+
+        figures.get(0).move(1, 0);
+        DrawingSnapshot s2 = m.snapshot();
+        assertNotEquals(s1.getVersion(), s2.getVersion());
+
+        m.setFigureIndex(figures.get(0), 1);
+        DrawingSnapshot s3 = m.snapshot();
+        assertNotEquals(s2.getVersion(), s3.getVersion());
+        assertSame(s3, m.snapshot());
+    }
+
+    @Test
+    @DisplayName("Unchanged figures keep their copies, changed figures are copied again")
+    public void testReuse() {
+        DrawingSnapshot s1 = m.snapshot();
+        figures.get(1500).move(5, 5);
+        DrawingSnapshot s2 = m.snapshot();
+        List<Figure> first = s1.getFigures().collect(Collectors.toList());
+        List<Figure> second = s2.getFigures().collect(Collectors.toList());
+
+        for (int i = 0; i < FIGURES; i++) {
+            if (i == 1500) {
+                assertNotSame(first.get(i), second.get(i));
+                assertEquals(new Rectangle(1505, 1505, 10, 10), second.get(i).getBounds());
+            } else {
+                assertSame(first.get(i), second.get(i), "figure " + i);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Snapshots follow insertions, removals and reordering in any segment")
+    public void testStructuralChanges() {
+        m.snapshot();
+        m.removeFigure(figures.get(300));
+        m.setFigureIndex(figures.get(1999), 5);
+        figures.get(700).move(1, 1);
+        Figure added = new Rect(-5, -5, 1, 1);
+        m.addFigure(added);
+        m.snapshot();
+        figures.get(1000).move(2, 2);
+        m.setFigureIndex(added, 0);
+
+        assertEquals(bounds(m.getFigures().collect(Collectors.toList())), bounds(m.snapshot()));
+        assertEquals(FIGURES, m.snapshot().getFigureCount());
+    }
+
+    @Test
+    @DisplayName("The copies of the figures are released when no snapshot is in use")
+    public void testReleased() {
+        WeakReference<Figure> copy = new WeakReference<>(m.snapshot().getFigures().findFirst().get());
+        for (int i = 0; i < 10 && copy.get() != null; i++) {
+            System.gc();
+        }
+        assertTrue(copy.get() == null, "copy still referenced by the model");
+    }
+
+    private static List<Rectangle> bounds(DrawingSnapshot s) {
+        return bounds(s.getFigures().collect(Collectors.toList()));
+    }
+
+    private static List<Rectangle> bounds(List<Figure> fs) {
+        return fs.stream().map(Figure::getBounds).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,101 @@
+package jdraw.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import jdraw.figures.Group;
+import jdraw.figures.Line;
+import jdraw.figures.Rect;
+import jdraw.framework.Figure;
+
+public class GroupCloneTest {
+
+    private static Group createGroup(int size) {
+        List<Figure> parts = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            parts.add(new Rect(i % 1000, i / 1000, 5, 5));
+        }
+        return new Group(parts);
+    }
+
+    @Test
+    @DisplayName("Moving a clone does not move its source and vice versa")
+    public void testIndependentCopies() {
+        Group source = new Group(List.of(createGroup(3), new Line(0, 0), new Rect(10, 10, 5, 5)));
+        Rectangle bounds = source.getBounds();
+
+        Group copy = source.clone();
+        Group copyOfCopy = copy.clone();
+        copy.move(5, 0);
+        assertEquals(bounds, source.getBounds());
+        assertEquals(bounds, copyOfCopy.getBounds());
+        assertEquals(new Rectangle(bounds.x + 5, bounds.y, bounds.width, bounds.height), copy.getBounds());
+
+        source.move(0, 7);
+        assertEquals(bounds, copyOfCopy.getBounds());
+        assertEquals(new Rectangle(bounds.x + 5, bounds.y, bounds.width, bounds.height), copy.getBounds());
+    }
+
+    @Test
+    @DisplayName("Reading a group or cloning it does not replace its parts")
+    public void testStableParts() {
+        List<Figure> parts = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            parts.add(new Rect(i, 0, 5, 5));
+        }
+        Group source = new Group(parts);
+        Group copy = source.clone();
+        assertEquals(parts, source.getFigureParts().collect(Collectors.toList()));
+        assertEquals(parts, copy.getFigureParts().collect(Collectors.toList()));
+        copy.clone();
+        assertEquals(parts, source.getFigureParts().collect(Collectors.toList()));
+
+        // moving replaces the shared parts once, then moves the copies in place
+        source.move(2, 2);
+        Figure moved = source.getFigureParts().findFirst().get();
+        assertNotSame(parts.get(0), moved);
+        assertEquals(new Rectangle(2, 2, 5, 5), moved.getBounds());
+        assertEquals(new Rectangle(0, 0, 5, 5), parts.get(0).getBounds());
+        assertEquals(parts, copy.getFigureParts().collect(Collectors.toList()));
+        source.move(1, 1);
+        assertSame(moved, source.getFigureParts().findFirst().get());
+        assertEquals(new Rectangle(3, 3, 5, 5), moved.getBounds());
+    }
+
+    @Test
+    @DisplayName("A group which has never been cloned moves its own parts")
+    public void testUnsharedMove() {
+        Figure part = new Rect(0, 0, 5, 5);
+        Group g = new Group(List.of(part, new Rect(10, 0, 5, 5)));
+        g.move(1, 1);
+        assertSame(part, g.getFigureParts().findFirst().get());
+        assertEquals(new Rectangle(1, 1, 5, 5), part.getBounds());
+    }
+
+    @Test
+    @DisplayName("Copy and paste of a group with 100k parts")
+    public void testLargeGroup() {
+        Group source = createGroup(100_000);
+
+        List<Group> pasted = new ArrayList<>();
+        Group clipboard = source.clone();
+        for (int i = 0; i < 10; i++) {
+            pasted.add(clipboard.clone());
+        }
+        pasted.get(0).move(1, 1);
+
+        assertEquals(new Rectangle(1, 1, 1004, 104), pasted.get(0).getBounds());
+        assertEquals(new Rectangle(0, 0, 1004, 104), pasted.get(1).getBounds());
+        assertTrue(source.getBounds().equals(clipboard.getBounds()));
+    }
+}
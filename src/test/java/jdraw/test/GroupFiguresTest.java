@@ -0,0 +1,98 @@
+package jdraw.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import jdraw.figures.Group;
+import jdraw.figures.Rect;
+import jdraw.framework.DrawModelEvent;
+import jdraw.framework.DrawModelEvent.Type;
+import jdraw.framework.DrawModelListener;
+import jdraw.framework.Figure;
+import jdraw.framework.FigureGroup;
+import jdraw.std.StdDrawModel;
+
+import org.apache.log4j.Logger;
+
+public class GroupFiguresTest {
+
+    private static final Logger LOGGER = Logger.getLogger(GroupFiguresTest.class);
+
+    @Test
+    @DisplayName("Grouping and ungrouping notify a single event each")
+    public void testSingleEvent() {
+        StdDrawModel m = new StdDrawModel();
+        List<Figure> figures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            figures.add(new Rect(i, i, 10, 10));
+        }
+        m.addFigures(figures);
+        DrawModelListener listener = mock(DrawModelListener.class);
+        m.addModelChangeListener(listener);
+
+        Figure g = m.groupFigures(List.of(figures.get(7), figures.get(2), figures.get(4)), Group::new);
+        m.ungroupFigure(g);
+
+        ArgumentCaptor<DrawModelEvent> arg = ArgumentCaptor.forClass(DrawModelEvent.class);
+        verify(listener, times(2)).modelChanged(arg.capture());
+        assertSame(Type.FIGURES_GROUPED, arg.getAllValues().get(0).getType());
+        assertSame(Type.FIGURES_UNGROUPED, arg.getAllValues().get(1).getType());
+        assertSame(g, arg.getAllValues().get(0).getFigure());
+        assertSame(g, arg.getAllValues().get(1).getFigure());
+
+        // the parts are observed again
+        figures.get(2).move(1, 1);
+        verify(listener, times(3)).modelChanged(arg.capture());
+        assertSame(figures.get(2), arg.getValue().getFigure());
+    }
+
+    @Test
+    @DisplayName("Grouping 50k of 100k figures")
+    public void testLargeGroup() {
+        StdDrawModel m = new StdDrawModel();
+        List<Figure> figures = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            figures.add(new Rect(i % 1000, i / 1000, 5, 5));
+        }
+        m.addFigures(figures);
+        List<Figure> selection = new ArrayList<>();
+        for (int i = 0; i < figures.size(); i += 2) {
+            selection.add(figures.get(i));
+        }
+        Collections.shuffle(selection, new Random(1));
+
+        long start = System.nanoTime();
+        Figure g = m.groupFigures(selection, Group::new);
+        long grouped = System.nanoTime();
+        m.ungroupFigure(g);
+        long ungrouped = System.nanoTime();
+        LOGGER.info(String.format("grouped %d of %d figures in %.1f ms, ungrouped in %.1f ms", selection.size(),
+                figures.size(), (grouped - start) / 1e6, (ungrouped - grouped) / 1e6));
+
+        List<Figure> parts = ((FigureGroup) g).getFigureParts().collect(Collectors.toList());
+        List<Figure> order = m.getFigures().collect(Collectors.toList());
+        // the parts take the place of the group, behind the last figure
+        for (int i = 0; i < 50_000; i++) {
+            assertSame(figures.get(2 * i), parts.get(i));
+            assertSame(figures.get(2 * i), order.get(49_999 + i));
+        }
+        for (int i = 0; i < 49_999; i++) {
+            assertSame(figures.get(2 * i + 1), order.get(i));
+        }
+        assertSame(figures.get(99_999), order.get(99_999));
+        assertEquals(100_000, order.size());
+    }
+}
@@ -0,0 +1,102 @@
+package jdraw.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import jdraw.figures.Rect;
+import jdraw.framework.DrawModelEvent;
+import jdraw.framework.DrawModelEvent.Type;
+import jdraw.framework.DrawModelListener;
+import jdraw.std.StdDrawModel;
+
+public class ListenerInterestTest {
+
+    private StdDrawModel m;
+    private Rect inside;
+    private Rect outside;
+    private final List<DrawModelEvent> left = new ArrayList<>();
+    private final List<DrawModelEvent> right = new ArrayList<>();
+    private final DrawModelListener leftView = left::add;
+    private final DrawModelListener rightView = right::add;
+
+    @BeforeEach
+    public void setUp() {
+        m = new StdDrawModel();
+        inside = new Rect(10, 10, 20, 20);
+        outside = new Rect(500, 10, 20, 20);
+        m.addFigure(inside);
+        m.addFigure(outside);
+        m.addModelChangeListener(leftView);
+        m.addModelChangeListener(rightView);
+        m.setListenerInterest(leftView, new Rectangle(0, 0, 100, 100));
+        m.setListenerInterest(rightView, new Rectangle(400, 0, 200, 100));
+    }
+
+    @Test
+    @DisplayName("Changes are only delivered to listeners whose area intersects the figure")
+    public void testFiltered() {
+        inside.move(1, 1);
+        outside.move(1, 1);
+        assertEquals(List.of(inside), figures(left));
+        assertEquals(List.of(outside), figures(right));
+    }
+
+    @Test
+    @DisplayName("Moving a figure out of the area is delivered")
+    public void testMoveOut() {
+        inside.setBounds(new Point(300, 300), new Point(320, 320));
+        assertEquals(List.of(inside), figures(left));
+        inside.move(1, 1);
+        assertEquals(1, left.size());
+    }
+
+    @Test
+    @DisplayName("Missed changes are delivered once when the area changes")
+    public void testCatchUp() {
+        outside.move(1, 1);
+        outside.move(1, 1);
+        assertEquals(0, left.size());
+        m.setListenerInterest(leftView, new Rectangle(0, 0, 50, 50));
+        assertEquals(List.of(outside), figures(left));
+        m.setListenerInterest(leftView, new Rectangle(0, 0, 100, 100));
+        assertEquals(1, left.size());
+    }
+
+    @Test
+    @DisplayName("Other events and listeners without an area are not filtered")
+    public void testUnfiltered() {
+        List<DrawModelEvent> all = new ArrayList<>();
+        m.addModelChangeListener(all::add);
+        outside.move(1, 1);
+        m.removeFigure(outside);
+        assertEquals(List.of(Type.FIGURE_REMOVED), types(left));
+        assertEquals(List.of(Type.FIGURE_CHANGED, Type.FIGURE_REMOVED), types(all));
+
+        // the removed figure is not delivered as a missed change
+        m.setListenerInterest(leftView, null);
+        assertEquals(1, left.size());
+        inside.move(300, 0);
+        outside.move(1, 1);
+        assertEquals(2, left.size());
+    }
+
+    private static List<Object> figures(List<DrawModelEvent> events) {
+        List<Object> result = new ArrayList<>();
+        events.forEach(e -> result.add(e.getFigure()));
+        return result;
+    }
+
+    private static List<Type> types(List<DrawModelEvent> events) {
+        List<Type> result = new ArrayList<>();
+        events.forEach(e -> result.add(e.getType()));
+        return result;
+    }
+}
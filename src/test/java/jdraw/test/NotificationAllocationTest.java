@@ -0,0 +1,122 @@
+package jdraw.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.awt.Rectangle;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import jdraw.figures.Group;
+import jdraw.figures.Line;
+import jdraw.figures.Rect;
+import jdraw.framework.DrawModel;
+import jdraw.framework.DrawModelListener;
+import jdraw.framework.Figure;
+import jdraw.std.CompactDrawModel;
+import jdraw.std.StdDrawModel;
+
+public class NotificationAllocationTest {
+
+    private static final int WARMUP = 20_000;
+    private static final int STEPS = 10_000;
+    private static final int ROUNDS = 3;
+
+    private com.sun.management.ThreadMXBean threads;
+    private int events;
+
+    @BeforeEach
+    public void setUp() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean, "allocations cannot be measured");
+        threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled(),
+                "allocations cannot be measured");
+    }
+
+    @Test
+    @DisplayName("Dragging a rectangle in a StdDrawModel allocates nothing")
+    public void testDragRect() {
+        assertDragAllocatesNothing(new StdDrawModel(), new Rect(10, 10, 20, 20));
+    }
+
+    @Test
+    @DisplayName("Dragging a line in a StdDrawModel allocates nothing")
+    public void testDragLine() {
+        Line line = new Line(10, 10);
+        line.setBounds(new java.awt.Point(10, 10), new java.awt.Point(40, 30));
+        assertDragAllocatesNothing(new StdDrawModel(), line);
+    }
+
+    @Test
+    @DisplayName("Dragging a compacted rectangle in a CompactDrawModel allocates nothing")
+    public void testDragCompactFigure() {
+        CompactDrawModel m = new CompactDrawModel();
+        m.addFigure(new Rect(10, 10, 20, 20));
+        m.compact();
+        assertDragAllocatesNothing(m, m.getFigures().findFirst().get());
+    }
+
+    @Test
+    @DisplayName("Dragging a copied group in a StdDrawModel only copies its parts once")
+    public void testDragGroup() {
+        Group source = new Group(List.of(new Rect(10, 10, 20, 20), new Rect(40, 10, 20, 20),
+                new Group(List.of(new Rect(10, 40, 20, 20), new Rect(40, 40, 20, 20)))));
+        // the clone shares the parts, the first step of the warmup copies them
+        assertDragAllocatesNothing(new StdDrawModel(), source.clone());
+    }
+
+    @Test
+    @DisplayName("Dragging a rectangle past listeners with areas of interest allocates nothing")
+    public void testDragWithInterest() {
+        StdDrawModel m = new StdDrawModel();
+        Figure f = new Rect(10, 10, 20, 20);
+        m.addFigure(f);
+        // a view showing the path of the drag and a view showing another area
+        DrawModelListener inside = e -> events++;
+        DrawModelListener outside = e -> events += 1000;
+        m.addModelChangeListener(inside);
+        m.addModelChangeListener(outside);
+        m.setListenerInterest(inside, new Rectangle(0, 0, 100, 100_000));
+        m.setListenerInterest(outside, new Rectangle(-1000, -1000, 10, 10));
+        assertDragAllocatesNothing(f, 1);
+    }
+
+    private void assertDragAllocatesNothing(DrawModel m, Figure f) {
+        m.addFigure(f);
+        // two listeners, as with a view and its overview
+        m.addModelChangeListener(e -> events++);
+        m.addModelChangeListener(e -> events++);
+        assertDragAllocatesNothing(f, 2);
+    }
+
+    /**
+     * Drags the figure and asserts that no drag step allocates.
+     *
+     * @param listeners the number of listeners notified of every step
+     */
+    private void assertDragAllocatesNothing(Figure f, int listeners) {
+        drag(f, WARMUP);
+        // one-off allocations (class loading, deoptimization) may hit a single
+        // round, an allocation per step hits every round
+        long allocated = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            events = 0;
+            long before = threads.getCurrentThreadAllocatedBytes();
+            drag(f, STEPS);
+            allocated = Math.min(allocated, threads.getCurrentThreadAllocatedBytes() - before);
+            assertEquals(listeners * STEPS, events, "every drag step must notify the listeners");
+        }
+        assertEquals(0, allocated, "a drag step must not allocate");
+    }
+
+    private static void drag(Figure f, int steps) {
+        for (int i = 0; i < steps; i++) {
+            f.move((i & 1) == 0 ? 1 : -1, 1);
+        }
+    }
+}
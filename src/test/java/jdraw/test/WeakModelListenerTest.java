@@ -0,0 +1,76 @@
+package jdraw.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.lang.reflect.InvocationTargetException;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import jdraw.figures.Rect;
+import jdraw.framework.DrawModel;
+import jdraw.framework.DrawModelEvent;
+import jdraw.framework.DrawModelListener;
+import jdraw.std.StdDrawModel;
+import jdraw.std.WeakModelListener;
+
+public class WeakModelListenerTest {
+
+    @Test
+    @DisplayName("Events are forwarded until the listener is unregistered")
+    public void testUnregister() {
+        DrawModel m = new StdDrawModel();
+        DrawModelListener l = mock(DrawModelListener.class);
+        WeakModelListener registration = WeakModelListener.register(m, l);
+        assertEquals(1, WeakModelListener.getListenerCount(m));
+
+        m.addFigure(new Rect(0, 0, 10, 10));
+        registration.unregister();
+        m.addFigure(new Rect(0, 0, 10, 10));
+
+        verify(l, times(1)).modelChanged(any());
+        assertEquals(0, WeakModelListener.getListenerCount(m));
+    }
+
+    @Test
+    @DisplayName("A collected listener is removed from the model and the counts are updated")
+    public void testCollectedListener() throws InterruptedException, InvocationTargetException {
+        DrawModel m = mock(DrawModel.class);
+        WeakModelListener registration = WeakModelListener.register(m, new IgnoringListener());
+        assertEquals(1, WeakModelListener.getListenerCount(m));
+        assertEquals(0, WeakModelListener.getClearedCount(m));
+        String prefix = String.format("@%x:", System.identityHashCode(m));
+        assertTrue(WeakModelListener.report().stream()
+                .anyMatch(line -> line.contains(prefix + " 1 listeners (0 cleared)")));
+
+        // the listener is only referenced by the registration
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (WeakModelListener.getListenerCount(m) > 0 && System.currentTimeMillis() < deadline) {
+            System.gc();
+            Thread.sleep(10);
+            // the purge is passed to the event dispatch thread
+            SwingUtilities.invokeAndWait(() -> { });
+        }
+
+        assertTrue(registration.isCleared());
+        assertEquals(0, WeakModelListener.getListenerCount(m));
+        assertEquals(0, WeakModelListener.getClearedCount(m));
+        assertFalse(WeakModelListener.report().stream().anyMatch(line -> line.contains(prefix)));
+        verify(m).removeModelChangeListener(registration);
+    }
+
+    /** A listener which is not shared, unlike a lambda without captured state. */
+    private static final class IgnoringListener implements DrawModelListener {
+        @Override
+        public void modelChanged(DrawModelEvent e) {
+        }
+    }
+}